@@ -0,0 +1,334 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.GZIPInputStream;
+
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.Descriptor;
+import javassist.bytecode.FieldInfo;
+
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.JarArchive;
+import org.jboss.tattletale.core.Location;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.AbstractProfile;
+import org.jboss.tattletale.profiles.CDI10;
+import org.jboss.tattletale.profiles.JBossAS7Profile;
+import org.jboss.tattletale.profiles.JavaEE5;
+import org.jboss.tattletale.profiles.JavaEE6;
+import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.profiles.Seam22;
+import org.jboss.tattletale.profiles.Spring25;
+import org.jboss.tattletale.profiles.Spring30;
+import org.jboss.tattletale.profiles.SunJava5;
+import org.jboss.tattletale.profiles.SunJava6;
+
+/**
+ * Generates the synthetic class files, jars and archive models used by the benchmarks.
+ * The same seed always gives the same corpus, so results can be compared between runs.
+ */
+public final class Corpus
+{
+   /** The seed */
+   public static final long SEED = 42L;
+
+   /** The class sets of the bundled profiles */
+   private static final String[] CLASS_SETS = {"sunjdk5.clz.gz", "sunjdk6.clz.gz", "ee5.clz.gz", "ee6.clz.gz",
+                                               "cdi10.clz.gz", "seam22.clz.gz", "spring25.clz.gz",
+                                               "spring30.clz.gz", "jbossas7.clz.gz"};
+
+   /** Classes from the profiles that generated classes refer to */
+   private static final String[] PLATFORM_CLASSES = {"java.lang.String", "java.util.List", "java.util.Map",
+                                                     "java.io.InputStream", "javax.servlet.Servlet",
+                                                     "javax.ejb.Stateless", "javax.persistence.Entity",
+                                                     "org.springframework.context.ApplicationContext"};
+
+   /** Constructor */
+   private Corpus()
+   {
+   }
+
+   /**
+    * Get all bundled profiles
+    * @return The profiles
+    */
+   public static List<Profile> getProfiles()
+   {
+      final List<Profile> profiles = new ArrayList<Profile>();
+      profiles.add(AbstractProfile.getInstance(SunJava5.class));
+      profiles.add(AbstractProfile.getInstance(SunJava6.class));
+      profiles.add(AbstractProfile.getInstance(JavaEE5.class));
+      profiles.add(AbstractProfile.getInstance(JavaEE6.class));
+      profiles.add(AbstractProfile.getInstance(CDI10.class));
+      profiles.add(AbstractProfile.getInstance(Seam22.class));
+      profiles.add(AbstractProfile.getInstance(Spring25.class));
+      profiles.add(AbstractProfile.getInstance(Spring30.class));
+      profiles.add(AbstractProfile.getInstance(JBossAS7Profile.class));
+      return profiles;
+   }
+
+   /**
+    * Get class names for profile lookups: every step-th class of each bundled profile,
+    * each followed by a name no profile provides
+    * @param step The sampling step
+    * @return The class names
+    * @throws IOException If a class set can't be read
+    */
+   public static List<String> getProfileQueries(int step) throws IOException
+   {
+      final List<String> names = new ArrayList<String>();
+
+      for (String classSet : CLASS_SETS)
+      {
+         final InputStream is = Corpus.class.getClassLoader().getResourceAsStream(classSet);
+         try
+         {
+            final BufferedReader br = new BufferedReader(new InputStreamReader(new GZIPInputStream(is)));
+            int i = 0;
+            for (String line; (line = br.readLine()) != null; i++)
+            {
+               if (0 == i % step)
+               {
+                  final String name = line.split(",")[0];
+                  names.add(name);
+                  names.add(name + "Impl");
+               }
+            }
+         }
+         finally
+         {
+            is.close();
+         }
+      }
+      return names;
+   }
+
+   /**
+    * Create the class files of a package. Each class refers to some classes of the
+    * package, some platform classes and some classes of other packages.
+    * @param pkg     The package
+    * @param count   The number of classes
+    * @param random  The source of randomness
+    * @return The class files
+    * @throws IOException If a class can't be written
+    */
+   public static List<byte[]> createClasses(String pkg, int count, Random random) throws IOException
+   {
+      final List<byte[]> classes = new ArrayList<byte[]>(count);
+      for (int i = 0; i < count; i++)
+      {
+         final List<String> refs = new ArrayList<String>();
+         for (int r = 0; r < 4; r++)
+         {
+            refs.add(pkg + ".C" + random.nextInt(count));
+         }
+         for (int r = 0; r < 2; r++)
+         {
+            refs.add(PLATFORM_CLASSES[random.nextInt(PLATFORM_CLASSES.length)]);
+         }
+         refs.add("ext.p" + random.nextInt(100) + ".C" + random.nextInt(100));
+
+         classes.add(createClass(pkg + ".C" + i, refs));
+      }
+      return classes;
+   }
+
+   /**
+    * Create a class file with a field for each referenced class
+    * @param name The class name
+    * @param refs The referenced classes
+    * @return The class file
+    * @throws IOException If the class can't be written
+    */
+   public static byte[] createClass(String name, List<String> refs) throws IOException
+   {
+      final ClassFile cf = new ClassFile(false, name, null);
+      cf.setMajorVersion(ClassFile.JAVA_6);
+
+      int i = 0;
+      for (String ref : refs)
+      {
+         cf.addField2(new FieldInfo(cf.getConstPool(), "f" + i++, Descriptor.of(ref)));
+      }
+
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final DataOutputStream dos = new DataOutputStream(baos);
+      cf.write(dos);
+      dos.flush();
+      return baos.toByteArray();
+   }
+
+   /**
+    * Create a jar file
+    * @param file    The file
+    * @param pkg     The package of the classes
+    * @param count   The number of classes
+    * @param random  The source of randomness
+    * @throws IOException If the jar can't be written
+    */
+   public static void createJar(File file, String pkg, int count, Random random) throws IOException
+   {
+      final List<byte[]> classes = createClasses(pkg, count, random);
+      final JarOutputStream jos = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      try
+      {
+         for (int i = 0; i < classes.size(); i++)
+         {
+            jos.putNextEntry(new JarEntry(pkg.replace('.', '/') + "/C" + i + ".class"));
+            jos.write(classes.get(i));
+            jos.closeEntry();
+         }
+      }
+      finally
+      {
+         jos.close();
+      }
+   }
+
+   /**
+    * Create the model of a deployment: JAR archives whose requires point at classes
+    * of other archives, with some classes provided by several archives
+    * @param count       The number of archives
+    * @param classes     The number of classes per archive
+    * @param random      The source of randomness
+    * @return The archives
+    */
+   public static SortedSet<Archive> createArchives(int count, int classes, Random random)
+   {
+      final SortedSet<Archive> archives = new TreeSet<Archive>();
+      final Symbols symbols = new Symbols();
+
+      for (int a = 0; a < count; a++)
+      {
+         final String pkg = "gen.a" + a;
+         final SortedMap<String, Long> provides = new TreeMap<String, Long>();
+         final SortedSet<String> requires = new TreeSet<String>();
+         final SortedMap<String, SortedSet<String>> classDependencies = new TreeMap<String, SortedSet<String>>();
+         final SortedMap<String, SortedSet<String>> packageDependencies = new TreeMap<String, SortedSet<String>>();
+
+         for (int c = 0; c < classes; c++)
+         {
+            provides.put(pkg + ".C" + c, null);
+         }
+
+         // A few classes shared with a neighbour
+         for (int c = 0; c < 2; c++)
+         {
+            provides.put("gen.shared" + (a / 2) + ".C" + c, null);
+         }
+
+         for (int r = 0; r < 5; r++)
+         {
+            final String other = "gen.a" + random.nextInt(count);
+            final String clz = other + ".C" + random.nextInt(classes);
+            if (!provides.containsKey(clz))
+            {
+               requires.add(clz);
+
+               SortedSet<String> cd = classDependencies.get(pkg + ".C0");
+               if (null == cd)
+               {
+                  cd = new TreeSet<String>();
+                  classDependencies.put(pkg + ".C0", cd);
+               }
+               cd.add(clz);
+
+               SortedSet<String> pd = packageDependencies.get(pkg);
+               if (null == pd)
+               {
+                  pd = new TreeSet<String>();
+                  packageDependencies.put(pkg, pd);
+               }
+               pd.add(other);
+            }
+         }
+         requires.add(PLATFORM_CLASSES[random.nextInt(PLATFORM_CLASSES.length)]);
+
+         archives.add(new JarArchive("a" + a + ".jar", ClassFile.JAVA_6, null, null, requires, provides,
+                                     classDependencies, packageDependencies,
+                                     new TreeMap<String, SortedSet<String>>(),
+                                     new Location("/corpus/a" + a + ".jar", "1.0"), symbols));
+      }
+      return archives;
+   }
+
+   /**
+    * Create the global provides map of archives
+    * @param archives The archives
+    * @return Class name to the names of the archives providing it
+    */
+   public static SortedMap<String, SortedSet<String>> createGlobalProvides(Collection<Archive> archives)
+   {
+      final SortedMap<String, SortedSet<String>> gProvides = new TreeMap<String, SortedSet<String>>();
+      for (Archive archive : archives)
+      {
+         for (String clz : archive.getProvides().keySet())
+         {
+            SortedSet<String> ss = gProvides.get(clz);
+            if (null == ss)
+            {
+               ss = new TreeSet<String>();
+               gProvides.put(clz, ss);
+            }
+            ss.add(archive.getName());
+         }
+      }
+      return gProvides;
+   }
+
+   /**
+    * Delete a directory tree
+    * @param file The root
+    */
+   public static void delete(File file)
+   {
+      final File[] files = file.listFiles();
+      if (null != files)
+      {
+         for (File f : files)
+         {
+            delete(f);
+         }
+      }
+      file.delete();
+   }
+}
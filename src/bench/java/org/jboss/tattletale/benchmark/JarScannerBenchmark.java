@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tattletale.analyzers.JarScanner;
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.ProfileIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link JarScanner#scan(File, java.util.Map, ProfileIndex, PrefixTrie, Symbols)} on synthetic jars of varying size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JarScannerBenchmark
+{
+   /** The number of classes in the jar */
+   @Param({"10", "100", "1000", "5000"})
+   private int classes;
+
+   /** The working directory */
+   private File directory;
+
+   /** The jar */
+   private File jar;
+
+   /** The profiles */
+   private ProfileIndex known;
+
+   /** The black listed packages */
+   private PrefixTrie blacklisted;
+
+   /** The table the names are interned into */
+   private Symbols symbols;
+
+   /**
+    * Generate the jar
+    * @throws IOException If the jar can't be written
+    */
+   @Setup
+   public void setup() throws IOException
+   {
+      directory = File.createTempFile("tattletale-bench", "");
+      directory.delete();
+      directory.mkdirs();
+
+      jar = new File(directory, "gen-" + classes + ".jar");
+      Corpus.createJar(jar, "gen.jar", classes, new Random(Corpus.SEED));
+
+      known = new ProfileIndex(Corpus.getProfiles());
+      blacklisted = new PrefixTrie(Collections.singleton("javax.swing"));
+      symbols = new Symbols();
+   }
+
+   /**
+    * Delete the jar
+    */
+   @TearDown
+   public void tearDown()
+   {
+      Corpus.delete(directory);
+   }
+
+   /**
+    * Scan the jar
+    * @return The archive
+    */
+   @Benchmark
+   public Archive scan()
+   {
+      return new JarScanner().scan(jar, new HashMap<String, SortedSet<String>>(), known, blacklisted, symbols);
+   }
+}
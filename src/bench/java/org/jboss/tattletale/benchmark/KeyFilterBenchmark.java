@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tattletale.reporting.KeyFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link KeyFilter#isFiltered(String)} with filters of varying size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(KeyFilterBenchmark.QUERIES)
+public class KeyFilterBenchmark
+{
+   /** The number of lookups per invocation */
+   static final int QUERIES = 10000;
+
+   /** The number of filter entries */
+   @Param({"10", "100", "1000"})
+   private int filters;
+
+   /** The filter */
+   private KeyFilter filter;
+
+   /** The keys */
+   private String[] keys;
+
+   /**
+    * Build the filter and the keys
+    */
+   @Setup
+   public void setup()
+   {
+      final Random random = new Random(Corpus.SEED);
+      final StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < filters; i++)
+      {
+         if (i > 0)
+         {
+            sb.append(',');
+         }
+         sb.append("gen.p").append(i).append((0 == i % 2) ? ".*" : ".C0");
+      }
+
+      filter = new KeyFilter();
+      filter.init(sb.toString());
+
+      keys = new String[QUERIES];
+      for (int i = 0; i < QUERIES; i++)
+      {
+         keys[i] = "gen.p" + random.nextInt(2 * filters) + ".C" + random.nextInt(10);
+      }
+   }
+
+   /**
+    * Filter the keys
+    * @param bh The black hole
+    */
+   @Benchmark
+   public void isFiltered(Blackhole bh)
+   {
+      for (String key : keys)
+      {
+         bh.consume(filter.isFiltered(key));
+      }
+   }
+}
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.profiles.ProfileIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Class lookups across all bundled profiles, one profile at a time and through the merged index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(ProfileBenchmark.QUERIES)
+public class ProfileBenchmark
+{
+   /** The number of lookups per invocation */
+   static final int QUERIES = 10000;
+
+   /** The class names; half of them are provided by a profile */
+   private String[] names;
+
+   /** The profiles */
+   private List<Profile> known;
+
+   /** The merged index */
+   private ProfileIndex index;
+
+   /**
+    * Load the profiles
+    * @throws IOException If a class set can't be read
+    */
+   @Setup
+   public void setup() throws IOException
+   {
+      final List<String> queries = Corpus.getProfileQueries(7);
+      names = new String[QUERIES];
+      for (int i = 0; i < QUERIES; i++)
+      {
+         names[i] = queries.get((int) ((long) i * queries.size() / QUERIES));
+      }
+
+      known = Corpus.getProfiles();
+      index = new ProfileIndex(known);
+   }
+
+   /**
+    * Ask every profile in turn
+    * @param bh The black hole
+    */
+   @Benchmark
+   public void doesProvide(Blackhole bh)
+   {
+      for (String name : names)
+      {
+         Profile result = null;
+         for (Profile p : known)
+         {
+            if (p.doesProvide(name))
+            {
+               result = p;
+               break;
+            }
+         }
+         bh.consume(result);
+      }
+   }
+
+   /**
+    * Ask the merged index
+    * @param bh The black hole
+    */
+   @Benchmark
+   public void profileIndex(Blackhole bh)
+   {
+      for (String name : names)
+      {
+         bh.consume(index.getProfile(name));
+      }
+   }
+}
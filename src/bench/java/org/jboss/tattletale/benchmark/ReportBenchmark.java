@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.reporting.AbstractReport;
+import org.jboss.tattletale.reporting.CLSReport;
+import org.jboss.tattletale.reporting.CircularDependencyReport;
+import org.jboss.tattletale.reporting.ClassMultipleJarsReport;
+import org.jboss.tattletale.reporting.TransitiveDependsOnReport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end generation of the heavy reports on a generated corpus of archives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark
+{
+   /** The report */
+   @Param({"circulardependency", "transitivedependson", "multiplejarsclass"})
+   private String report;
+
+   /** The number of archives */
+   @Param({"1000"})
+   private int archiveCount;
+
+   /** The archives */
+   private SortedSet<Archive> archives;
+
+   /** The global provides */
+   private SortedMap<String, SortedSet<String>> gProvides;
+
+   /** The profiles */
+   private List<Profile> known;
+
+   /** The output directory */
+   private File directory;
+
+   /**
+    * Generate the corpus
+    * @throws IOException If the output directory can't be created
+    */
+   @Setup
+   public void setup() throws IOException
+   {
+      archives = Corpus.createArchives(archiveCount, 50, new Random(Corpus.SEED));
+      gProvides = Corpus.createGlobalProvides(archives);
+      known = Corpus.getProfiles();
+
+      directory = File.createTempFile("tattletale-bench", "");
+      directory.delete();
+      directory.mkdirs();
+   }
+
+   /**
+    * Delete the output
+    */
+   @TearDown
+   public void tearDown()
+   {
+      Corpus.delete(directory);
+   }
+
+   /**
+    * Generate the report
+    * @return The report
+    */
+   @Benchmark
+   public AbstractReport generate()
+   {
+      final AbstractReport r;
+      if ("circulardependency".equals(report))
+      {
+         r = new CircularDependencyReport();
+      }
+      else if ("transitivedependson".equals(report))
+      {
+         r = new TransitiveDependsOnReport();
+      }
+      else
+      {
+         final ClassMultipleJarsReport cmj = new ClassMultipleJarsReport();
+         cmj.setGlobalProvides(gProvides);
+         r = cmj;
+      }
+
+      if (r instanceof CLSReport)
+      {
+         ((CLSReport) r).setCLS("org.jboss.tattletale.reporting.classloader.NoopClassLoaderStructure");
+         ((CLSReport) r).setKnown(known);
+      }
+      r.setArchives(archives);
+      r.generate(directory.getAbsolutePath());
+      return r;
+   }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.tattletale.analyzers.ClassScanner;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.profiles.ProfileIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-class throughput of {@link org.jboss.tattletale.analyzers.AbstractScanner#scanClasses}
+ * with all bundled profiles and a black list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScanClassesBenchmark
+{
+   /** The number of classes scanned per invocation */
+   private static final int CLASSES = 1000;
+
+   /** The class files */
+   private List<byte[]> classes;
+
+   /** The profiles */
+   private ProfileIndex known;
+
+   /** The black listed packages */
+   private PrefixTrie blacklisted;
+
+   /**
+    * Generate the classes
+    * @throws IOException If a class can't be generated
+    */
+   @Setup
+   public void setup() throws IOException
+   {
+      classes = Corpus.createClasses("gen.scan", CLASSES, new Random(Corpus.SEED));
+      known = new ProfileIndex(Corpus.getProfiles());
+      blacklisted = new PrefixTrie(Arrays.asList("javax.swing", "org.w3c.dom"));
+   }
+
+   /**
+    * Scan the classes
+    * @return The scanner
+    * @throws IOException If a class can't be scanned
+    */
+   @Benchmark
+   @OperationsPerInvocation(CLASSES)
+   public ClassScanner scanClasses() throws IOException
+   {
+      final ClassScanner scanner = new ClassScanner("gen/scan");
+      for (byte[] data : classes)
+      {
+         scanner.scan(new ByteArrayInputStream(data), known, blacklisted);
+      }
+      return scanner;
+   }
+}
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Properties;
+
+/**
+ * Client of an analysis server: sends the settings of an execution to the server,
+ * and waits for the reports to be written. The client has to run as the user of the
+ * server, to read the secret token of the server.
+ *
+ * @see Server
+ */
+public class Client
+{
+   /** The port of the server */
+   private final int port;
+
+   /**
+    * Constructor
+    * @param port The port of the server on the loopback interface
+    */
+   public Client(int port)
+   {
+      this.port = port;
+   }
+
+   /**
+    * Execute on the server
+    * @param main              The execution to delegate
+    * @param analyzeComponents analyze subarchives if true
+    * @throws Exception Thrown if the server can't be reached, or reports an error
+    */
+   public void execute(Main main, boolean analyzeComponents) throws Exception
+   {
+      send(main.toRequest(analyzeComponents));
+   }
+
+   /**
+    * Stop the server
+    * @throws Exception Thrown if the server can't be reached
+    */
+   public void stop() throws Exception
+   {
+      final Properties request = new Properties();
+      request.setProperty(Server.COMMAND, Server.STOP);
+      send(request);
+   }
+
+   /**
+    * Send a request and wait for the reply
+    * @param request The request
+    * @throws Exception Thrown if the server can't be reached, or reports an error
+    */
+   private void send(Properties request) throws Exception
+   {
+      request.setProperty(Server.TOKEN, readToken(Server.getTokenFile(port)));
+
+      final Socket socket;
+      try
+      {
+         socket = new Socket(InetAddress.getByName(Server.HOST), port);
+      }
+      catch (IOException ioe)
+      {
+         throw new IOException("No analysis server on port " + port + ": " + ioe.getMessage());
+      }
+
+      try
+      {
+         final OutputStream os = socket.getOutputStream();
+         request.store(os, null);
+         os.flush();
+         socket.shutdownOutput();
+
+         final BufferedReader reader =
+            new BufferedReader(new InputStreamReader(socket.getInputStream(), Server.ENCODING));
+         final String status = reader.readLine();
+
+         if (!Server.OK.equals(status))
+         {
+            final StringBuilder sb = new StringBuilder();
+            for (String line; null != (line = reader.readLine());)
+            {
+               if (sb.length() > 0)
+               {
+                  sb.append(System.getProperty("line.separator"));
+               }
+               sb.append(line);
+            }
+            throw new Exception((null != status) ? sb.toString() : "No reply from the analysis server");
+         }
+      }
+      finally
+      {
+         try
+         {
+            socket.close();
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Read the secret token of the server
+    * @param file The file holding the token
+    * @return The token
+    * @throws IOException Thrown if the token can't be read
+    */
+   private String readToken(File file) throws IOException
+   {
+      InputStream is = null;
+      try
+      {
+         is = new FileInputStream(file);
+         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+         final byte[] buffer = new byte[64];
+         for (int n; (n = is.read(buffer)) != -1;)
+         {
+            baos.write(buffer, 0, n);
+         }
+         return new String(baos.toByteArray(), Server.ENCODING).trim();
+      }
+      catch (IOException ioe)
+      {
+         throw new IOException("No analysis server on port " + port + ": " + ioe.getMessage());
+      }
+      finally
+      {
+         if (null != is)
+         {
+            try
+            {
+               is.close();
+            }
+            catch (IOException ioe)
+            {
+               // Ignore
+            }
+         }
+      }
+   }
+}
@@ -26,7 +26,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -37,20 +39,32 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.jboss.tattletale.analyzers.Analyzer;
 import org.jboss.tattletale.analyzers.ArchiveScanner;
+import org.jboss.tattletale.analyzers.ClassPipeline;
 import org.jboss.tattletale.analyzers.DirectoryScanner;
+import org.jboss.tattletale.analyzers.ScanCache;
+import org.jboss.tattletale.analyzers.ScanTask;
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
 import org.jboss.tattletale.core.ArchiveType;
 import org.jboss.tattletale.core.Location;
+import org.jboss.tattletale.core.Model;
 import org.jboss.tattletale.core.NestableArchive;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
 import org.jboss.tattletale.profiles.AbstractProfile;
 import org.jboss.tattletale.profiles.CDI10;
 import org.jboss.tattletale.profiles.JBossAS7Profile;
 import org.jboss.tattletale.profiles.JavaEE5;
 import org.jboss.tattletale.profiles.JavaEE6;
 import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.profiles.ProfileIndex;
 import org.jboss.tattletale.profiles.Seam22;
 import org.jboss.tattletale.profiles.Spring25;
 import org.jboss.tattletale.profiles.Spring30;
@@ -58,13 +72,16 @@ import org.jboss.tattletale.profiles.SunJava5;
 import org.jboss.tattletale.profiles.SunJava6;
 import org.jboss.tattletale.reporting.AS7Report;
 import org.jboss.tattletale.reporting.AbstractReport;
+import org.jboss.tattletale.reporting.ArchiveReport;
 import org.jboss.tattletale.reporting.BlackListedReport;
+import org.jboss.tattletale.reporting.CLSReport;
 import org.jboss.tattletale.reporting.CircularDependencyReport;
 import org.jboss.tattletale.reporting.ClassDependantsReport;
 import org.jboss.tattletale.reporting.ClassDependsOnReport;
 import org.jboss.tattletale.reporting.ClassLocationReport;
 import org.jboss.tattletale.reporting.ClassMultipleJarsReport;
 import org.jboss.tattletale.reporting.DependantsReport;
+import org.jboss.tattletale.reporting.DependencyIndex;
 import org.jboss.tattletale.reporting.DependsOnReport;
 import org.jboss.tattletale.reporting.Dump;
 import org.jboss.tattletale.reporting.EarReport;
@@ -106,6 +123,12 @@ public class Main
    /** Default list of matching files to extract from nested (war or ear) archives */
    private static final String DEFAULT_TT_EXTRACT = ".*\\.(j|w|r)ar$";
 
+   /** Chunks of classes read ahead of the merge per archive, per parser thread */
+   private static final int CLASS_PIPELINE_WINDOW = 2;
+
+   /** Default number of classes from which an archive is parsed in parallel */
+   private static final int DEFAULT_PARALLEL_PARSE_THRESHOLD = 1000;
+
    /** Source */
    private String source;
 
@@ -157,6 +180,36 @@ public class Main
    /** Bundle depth */
    private String bundlePattern;
 
+   /** Number of scanner threads */
+   private int scanThreads;
+
+   /** Number of class parser threads */
+   private int parseThreads;
+
+   /** Number of classes from which an archive is parsed in parallel */
+   private int parallelParseThreshold;
+
+   /** Scan cache directory */
+   private String scanCache;
+
+   /** Number of report threads */
+   private int reportThreads;
+
+   /** Model export formats */
+   private String exportModel;
+
+   /** Model to report on instead of scanning */
+   private String loadModel;
+
+   /** Warm scan caches shared between executions, by cache directory and scan settings */
+   private Map<String, ScanCache> scanCaches;
+
+   /** Only scan the sources, without writing reports */
+   private boolean scanOnly;
+
+   /** Working directory of the caller; <code>null</code> if it is the one of this process */
+   private String workingDirectory;
+
    /** Configuration **/
    private Properties configuration;
 
@@ -200,6 +253,16 @@ public class Main
       title = "";
       extractPattern = null;
       bundlePattern = null;
+      scanThreads = 0;
+      parseThreads = 0;
+      parallelParseThreshold = 0;
+      scanCache = null;
+      reportThreads = 0;
+      exportModel = null;
+      loadModel = null;
+      scanCaches = null;
+      scanOnly = false;
+      workingDirectory = null;
       configuration = null;
 
       dependencyReports = new ArrayList<Class<? extends AbstractReport>>();
@@ -412,6 +475,99 @@ public class Main
       this.bundlePattern = bundlePattern;
    }
 
+   /**
+    * Set the number of threads used to scan archives
+    * @param scanThreads The value; 0 selects the number of available processors
+    */
+   public void setScanThreads(int scanThreads)
+   {
+      this.scanThreads = scanThreads;
+   }
+
+   /**
+    * Set the number of threads used to parse the classes of the archives
+    * @param parseThreads The value; 0 selects the number of available processors
+    */
+   public void setParseThreads(int parseThreads)
+   {
+      this.parseThreads = parseThreads;
+   }
+
+   /**
+    * Set the number of classes from which the classes of an archive are parsed in parallel
+    * @param parallelParseThreshold The value; 0 selects the default
+    */
+   public void setParallelParseThreshold(int parallelParseThreshold)
+   {
+      this.parallelParseThreshold = parallelParseThreshold;
+   }
+
+   /**
+    * Set the directory of the scan cache
+    * @param scanCache The value; <code>null</code> or empty disables the cache
+    */
+   public void setScanCache(String scanCache)
+   {
+      this.scanCache = scanCache;
+   }
+
+   /**
+    * Set the number of threads used to generate the reports
+    * @param reportThreads The value; 0 selects the number of available processors
+    */
+   public void setReportThreads(int reportThreads)
+   {
+      this.reportThreads = reportThreads;
+   }
+
+   /**
+    * Set the formats of the model export
+    * @param exportModel The value: <code>binary</code> and/or <code>jsonl</code>; <code>null</code> or
+    *                    empty disables the export
+    */
+   public void setExportModel(String exportModel)
+   {
+      this.exportModel = exportModel;
+   }
+
+   /**
+    * Set the binary model to generate the reports from; the sources aren't scanned
+    * @param loadModel The file written with the <code>binary</code> model export; <code>null</code> or
+    *                  empty scans the sources
+    */
+   public void setLoadModel(String loadModel)
+   {
+      this.loadModel = loadModel;
+   }
+
+   /**
+    * Share warm scan caches between executions
+    * @param scanCaches The caches by cache directory and scan settings
+    */
+   void setScanCaches(Map<String, ScanCache> scanCaches)
+   {
+      this.scanCaches = scanCaches;
+   }
+
+   /**
+    * Set scan only: the sources are scanned, filling the scan caches, but no reports are written
+    * @param scanOnly The value
+    */
+   void setScanOnly(boolean scanOnly)
+   {
+      this.scanOnly = scanOnly;
+   }
+
+   /**
+    * Set the working directory of the caller: the output directory is never deleted if it
+    * is, or holds, the working directory
+    * @param workingDirectory The value; <code>null</code> if it is the one of this process
+    */
+   void setWorkingDirectory(String workingDirectory)
+   {
+      this.workingDirectory = workingDirectory;
+   }
+
    /**
     * Set the configuration
     * @param configuration The configuration
@@ -421,6 +577,181 @@ public class Main
       this.configuration = configuration;
    }
 
+   /**
+    * Describe the settings of an execution as a request to an analysis server. Paths are made
+    * absolute, and the configuration and filter files found next to the caller are named
+    * explicitly, since the server has a working directory of its own.
+    * @param analyzeComponents analyze subarchives if true
+    * @return The request
+    */
+   Properties toRequest(boolean analyzeComponents)
+   {
+      final Properties request = new Properties();
+
+      final StringBuilder sources = new StringBuilder();
+      for (String name : source.split("#"))
+      {
+         if (sources.length() > 0)
+         {
+            sources.append('#');
+         }
+         sources.append(new File(name).getAbsolutePath());
+      }
+      request.setProperty("source", sources.toString());
+      request.setProperty("destination", new File(destination).getAbsolutePath());
+      request.setProperty("workingDirectory", new File(".").getAbsoluteFile().getParent());
+
+      putPath(request, "configurationFile",
+              (null != configurationFile) ? configurationFile : findFile("jboss-tattletale.properties"));
+      putPath(request, "filter", (null != filter) ? filter : findFile("jboss-tattletale-filter.properties"));
+      putPath(request, "scanCache", scanCache);
+      putPath(request, "loadModel", loadModel);
+
+      putValue(request, "classloader", classloaderStructure);
+      putValue(request, "profiles", profiles);
+      putValue(request, "excludes", excludes);
+      putValue(request, "blacklisted", blacklisted);
+      putValue(request, "reports", reports);
+      putValue(request, "scan", scan);
+      putValue(request, "title", title);
+      putValue(request, "extractPattern", extractPattern);
+      putValue(request, "bundlePattern", bundlePattern);
+      putValue(request, "exportModel", exportModel);
+      request.setProperty("failOnInfo", Boolean.toString(failOnInfo));
+      request.setProperty("failOnWarn", Boolean.toString(failOnWarn));
+      request.setProperty("failOnError", Boolean.toString(failOnError));
+      request.setProperty("deleteOutputDirectory", Boolean.toString(deleteOutputDirectory));
+      request.setProperty("analyzeComponents", Boolean.toString(analyzeComponents));
+      request.setProperty("scanThreads", Integer.toString(scanThreads));
+      request.setProperty("parseThreads", Integer.toString(parseThreads));
+      request.setProperty("parallelParseThreshold", Integer.toString(parallelParseThreshold));
+      request.setProperty("reportThreads", Integer.toString(reportThreads));
+
+      if (null != configuration)
+      {
+         for (String key : configuration.stringPropertyNames())
+         {
+            request.setProperty("configuration." + key, configuration.getProperty(key));
+         }
+      }
+
+      return request;
+   }
+
+   /**
+    * Create the execution described by a request to an analysis server
+    * @param request The request
+    * @return The execution; analyzes subarchives if the <code>analyzeComponents</code> property is true
+    * @see #toRequest(boolean)
+    */
+   static Main fromRequest(Properties request)
+   {
+      final Main main = new Main();
+
+      main.setSource(request.getProperty("source", "."));
+      main.setDestination(request.getProperty("destination", "."));
+      main.setWorkingDirectory(request.getProperty("workingDirectory"));
+      main.setConfigurationFile(request.getProperty("configurationFile"));
+      main.setFilter(request.getProperty("filter"));
+      main.setScanCache(request.getProperty("scanCache"));
+      main.setLoadModel(request.getProperty("loadModel"));
+      main.setClassLoaderStructure(request.getProperty("classloader"));
+      main.setProfiles(request.getProperty("profiles"));
+      main.setExcludes(request.getProperty("excludes"));
+      main.setBlacklisted(request.getProperty("blacklisted"));
+      main.setReports(request.getProperty("reports"));
+      main.setScan(request.getProperty("scan"));
+      main.setTitle(request.getProperty("title", ""));
+      main.setExtractPattern(request.getProperty("extractPattern"));
+      main.setBundlePattern(request.getProperty("bundlePattern"));
+      main.setExportModel(request.getProperty("exportModel"));
+      main.setFailOnInfo(Boolean.parseBoolean(request.getProperty("failOnInfo")));
+      main.setFailOnWarn(Boolean.parseBoolean(request.getProperty("failOnWarn")));
+      main.setFailOnError(Boolean.parseBoolean(request.getProperty("failOnError")));
+      main.setDeleteOutputDirectory(Boolean.parseBoolean(request.getProperty("deleteOutputDirectory")));
+      main.setScanThreads(getInt(request, "scanThreads"));
+      main.setParseThreads(getInt(request, "parseThreads"));
+      main.setParallelParseThreshold(getInt(request, "parallelParseThreshold"));
+      main.setReportThreads(getInt(request, "reportThreads"));
+
+      final Properties config = new Properties();
+      for (String key : request.stringPropertyNames())
+      {
+         if (key.startsWith("configuration."))
+         {
+            config.setProperty(key.substring("configuration.".length()), request.getProperty(key));
+         }
+      }
+      if (!config.isEmpty())
+      {
+         main.setConfiguration(config);
+      }
+
+      return main;
+   }
+
+   /**
+    * Put a path into a request
+    * @param request The request
+    * @param key     The key
+    * @param path    The path; <code>null</code> if not set
+    */
+   private static void putPath(Properties request, String key, String path)
+   {
+      if (null != path && !path.trim().equals(""))
+      {
+         request.setProperty(key, new File(path.trim()).getAbsolutePath());
+      }
+   }
+
+   /**
+    * Put a value into a request
+    * @param request The request
+    * @param key     The key
+    * @param value   The value; <code>null</code> if not set
+    */
+   private static void putValue(Properties request, String key, String value)
+   {
+      if (null != value)
+      {
+         request.setProperty(key, value);
+      }
+   }
+
+   /**
+    * Get a number from a request
+    * @param request The request
+    * @param key     The key
+    * @return The number; 0 if not set or invalid
+    */
+   private static int getInt(Properties request, String key)
+   {
+      try
+      {
+         return Integer.parseInt(request.getProperty(key, "0").trim());
+      }
+      catch (NumberFormatException nfe)
+      {
+         return 0;
+      }
+   }
+
+   /**
+    * Find a properties file the way the configuration is looked up: named by a system
+    * property, or in the working directory
+    * @param key The name of the file and of the system property
+    * @return The file; <code>null</code> if there is none
+    */
+   private static String findFile(String key)
+   {
+      final String propertiesFile = System.getProperty(key);
+      if (null != propertiesFile)
+      {
+         return propertiesFile;
+      }
+      return (new File(key).isFile()) ? key : null;
+   }
+
    /**
     * Execute
     * @throws Exception Thrown if an error occurs
@@ -612,53 +943,239 @@ public class Main
          bundlePattern = null;
       }
 
-      DirectoryScanner.setArchives(scan);
+      if (scanThreads < 1)
+      {
+         scanThreads = parseThreads("scanThreads", configuration.getProperty("scanThreads"));
+      }
 
-      final Map<String, SortedSet<Location>> locationsMap = new HashMap<String, SortedSet<Location>>();
-      final SortedSet<Archive> archives = new TreeSet<Archive>();
-      final SortedMap<String, SortedSet<String>> gProvides = new TreeMap<String, SortedSet<String>>();
+      if (parseThreads < 1)
+      {
+         parseThreads = parseThreads("parseThreads", configuration.getProperty("parseThreads"));
+      }
+
+      if (parallelParseThreshold < 1)
+      {
+         final String ppt = configuration.getProperty("parallelParseThreshold");
+         parallelParseThreshold = DEFAULT_PARALLEL_PARSE_THRESHOLD;
+         if (null != ppt && !ppt.trim().equals(""))
+         {
+            try
+            {
+               parallelParseThreshold = Math.max(1, Integer.parseInt(ppt.trim()));
+            }
+            catch (NumberFormatException nfe)
+            {
+               System.err.println("Invalid parallelParseThreshold: " + ppt);
+            }
+         }
+      }
+
+      if (reportThreads < 1)
+      {
+         reportThreads = parseThreads("reportThreads", configuration.getProperty("reportThreads"));
+      }
+
+      if (null == scanCache)
+      {
+         scanCache = configuration.getProperty("scanCache");
+      }
+
+      if (null != scanCache && scanCache.trim().equals(""))
+      {
+         scanCache = null;
+      }
+
+      if (null == exportModel)
+      {
+         exportModel = configuration.getProperty("exportModel");
+      }
+
+      if (null == loadModel)
+      {
+         loadModel = configuration.getProperty("loadModel");
+      }
+
+      if (null != loadModel && loadModel.trim().equals(""))
+      {
+         loadModel = null;
+      }
 
       // Load up selected profiles
       final List<Profile> known = new ArrayList<Profile>();
 
-      final AbstractProfile[] profiles = new AbstractProfile[]{new SunJava5(), new SunJava6(),
-                                                               new JavaEE5(), new JavaEE6(),
-                                                               new CDI10(), new Seam22(),
-                                                               new Spring25(), new Spring30(),
-                                                               new JBossAS7Profile()};
-
-      for (AbstractProfile p : profiles)
+      final List<Class<? extends AbstractProfile>> profiles = new ArrayList<Class<? extends AbstractProfile>>();
+      profiles.add(SunJava5.class);
+      profiles.add(SunJava6.class);
+      profiles.add(JavaEE5.class);
+      profiles.add(JavaEE6.class);
+      profiles.add(CDI10.class);
+      profiles.add(Seam22.class);
+      profiles.add(Spring25.class);
+      profiles.add(Spring30.class);
+      profiles.add(JBossAS7Profile.class);
+
+      for (Class<? extends AbstractProfile> type : profiles)
       {
+         final AbstractProfile p = AbstractProfile.getInstance(type);
          if (p.included(allProfiles, profileSet))
          {
             known.add(p);
          }
       }
 
-      final List<File> fileList = new ArrayList<File>();
-      final Analyzer analyzer = new Analyzer();
+      final SortedSet<Archive> archives;
+      final SortedMap<String, SortedSet<String>> gProvides;
 
-      for (String name : source.split("#"))
+      // The names of this execution are dropped with its archives
+      final Symbols symbols = new Symbols();
+
+      if (null != loadModel)
       {
-         File file = new File(name);
-         if (file.isDirectory())
+         final Model model = Model.readBinary(new File(loadModel.trim()), symbols);
+         archives = model.getArchives();
+         gProvides = model.getGlobalProvides();
+      }
+      else
+      {
+         loadCustomReports(configuration);
+
+         archives = new TreeSet<Archive>();
+         gProvides = new TreeMap<String, SortedSet<String>>();
+         scan(known, blacklistedSet, excludeSet, analyzeComponents, planFacets(allReports, reportSet), symbols,
+              archives, gProvides);
+
+         if (scanOnly)
          {
-            fileList.addAll(DirectoryScanner.scan(file, excludeSet));
+            return;
          }
-         else
+      }
+
+      // Write out report
+      if (null != archives && archives.size() > 0)
+      {
+         final ReportSetBuilder reportSetBuilder = new ReportSetBuilder(destination, allReports, reportSet, filters,
+                                                                        reportThreads);
+
+         final DependencyIndex index = new DependencyIndex(archives);
+
+         if (null != exportModel)
          {
-            fileList.add(file);
+            exportModel(reportSetBuilder.getOutputDir(),
+                        new Model(archives, gProvides, index.getDependants(CLSReport.createCLS(classloaderStructure))));
          }
+
+         reportSetBuilder.addReportParameter("setCLS", classloaderStructure);
+         reportSetBuilder.addReportParameter("setKnown", known);
+         reportSetBuilder.addReportParameter("setArchives", archives);
+         reportSetBuilder.addReportParameter("setConfig", configuration);
+         reportSetBuilder.addReportParameter("setGlobalProvides", gProvides);
+         reportSetBuilder.addReportParameter("setDependencyIndex", index);
+
+         if (null != loadModel)
+         {
+            loadCustomReports(configuration);
+         }
+         outputReport(reportSetBuilder, archives);
+      }
+   }
+
+   /**
+    * Scan the sources
+    * @param known             The known profiles
+    * @param blacklistedSet    The black listed packages
+    * @param excludeSet        The excluded files
+    * @param analyzeComponents Analyze sub-archives if true
+    * @param facets            The archive facets to retain; <code>null</code> if all
+    * @param symbols           The table the names are interned into
+    * @param archives          The archives found
+    * @param gProvides         The globally provides map
+    * @throws Exception Thrown if an error occurs
+    */
+   private void scan(List<Profile> known, Set<String> blacklistedSet, Set<String> excludeSet,
+                     boolean analyzeComponents, Set<ArchiveFacet> facets, Symbols symbols,
+                     SortedSet<Archive> archives, SortedMap<String, SortedSet<String>> gProvides)
+      throws Exception
+   {
+      final Map<String, SortedSet<Location>> locationsMap = new HashMap<String, SortedSet<Location>>();
+      final ProfileIndex profileIndex = new ProfileIndex(known);
+
+      ScanCache cache = null;
+
+      if (null != scanCaches)
+      {
+         final String settings = getScanSettings(known, blacklistedSet, analyzeComponents);
+         final String id = ((null != scanCache) ? new File(scanCache.trim()).getAbsolutePath() : "") + '|' + settings;
+         synchronized (scanCaches)
+         {
+            cache = scanCaches.get(id);
+            if (null == cache)
+            {
+               cache = new ScanCache((null != scanCache) ? new File(scanCache.trim()) : null, settings, true);
+               scanCaches.put(id, cache);
+            }
+         }
+      }
+      else if (null != scanCache)
+      {
+         cache = new ScanCache(new File(scanCache.trim()), getScanSettings(known, blacklistedSet, analyzeComponents));
+      }
+
+      final DirectoryScanner directoryScanner = new DirectoryScanner(scan);
+      final List<File> fileList = new ArrayList<File>();
+      final Map<File, ScanTask> tasks = new HashMap<File, ScanTask>();
+      final Map<File, Future<Archive>> results = new HashMap<File, Future<Archive>>();
+      final ExecutorService executor = (scanThreads > 1) ? Executors.newFixedThreadPool(scanThreads) : null;
+      final ExecutorService walkers = (scanThreads > 1) ? Executors.newFixedThreadPool(scanThreads) : null;
+      final ExecutorService parsers = (parseThreads > 1) ? Executors.newFixedThreadPool(parseThreads) : null;
+
+      final Analyzer analyzer = new Analyzer();
+      if (null != parsers)
+      {
+         analyzer.setClassPipeline(new ClassPipeline(parsers, CLASS_PIPELINE_WINDOW * parseThreads,
+                                                     parallelParseThreshold));
       }
 
-      for (File file : fileList)
+      // Scan each archive as soon as the walk finds it
+      final DirectoryScanner.Listener listener =
+         createScanListener(analyzer, profileIndex, (null != blacklistedSet) ? new PrefixTrie(blacklistedSet) : null,
+                            symbols, cache, facets, analyzeComponents, executor, tasks, results);
+
+      try
       {
-         ArchiveScanner scanner = (analyzeComponents) ? analyzer.getScanner(file, extractPattern, bundlePattern) :
-             analyzer.getScanner(file, extractPattern);
+         for (String name : source.split("#"))
+         {
+            File file = new File(name);
+            if (file.isDirectory())
+            {
+               fileList.addAll(directoryScanner.scan(file, excludeSet, walkers, listener));
+            }
+            else
+            {
+               listener.found(file);
+               fileList.add(file);
+            }
+         }
+
+         if (null != walkers)
+         {
+            walkers.shutdown();
+         }
 
-         if (null != scanner)
+         final Set<File> merged = new HashSet<File>();
+
+         // Merge in file order so that the outcome doesn't depend on the number of threads
+         for (File file : fileList)
          {
-            Archive archive = scanner.scan(file, gProvides, known, blacklistedSet);
+            final ScanTask task = tasks.get(file);
+            if (null == task || !merged.add(file))
+            {
+               continue;
+            }
+
+            final Archive archive = (null != executor) ? getResult(results.get(file)) : task.call();
+
+            task.mergeProvides(gProvides);
+
             if (null != archive)
             {
                List<Archive> archs = new ArrayList<Archive>();
@@ -688,6 +1205,21 @@ public class Main
             }
          }
       }
+      finally
+      {
+         if (null != walkers)
+         {
+            walkers.shutdownNow();
+         }
+         if (null != executor)
+         {
+            executor.shutdownNow();
+         }
+         if (null != parsers)
+         {
+            parsers.shutdownNow();
+         }
+      }
 
       for (Archive a : archives)
       {
@@ -698,20 +1230,211 @@ public class Main
             a.addLocation(l);
          }
       }
+   }
 
-      // Write out report
-      if (null != archives && archives.size() > 0)
+   /**
+    * Create the listener that creates the scan task of each archive found, and
+    * submits it if the archives are scanned in parallel
+    * @param analyzer          The analyzer
+    * @param known             The index of the known profiles
+    * @param blacklist         The black listed packages; <code>null</code> if none
+    * @param symbols           The table the names are interned into
+    * @param cache             The scan cache; <code>null</code> if scan results aren't cached
+    * @param facets            The archive facets to retain; <code>null</code> if all
+    * @param analyzeComponents Analyze sub-archives if true
+    * @param executor          The executor scanning the archives; <code>null</code> if they are
+    *                          scanned when merged
+    * @param tasks             The scan tasks by file; <code>null</code> for files without a scanner
+    * @param results           The pending results by file
+    * @return The listener
+    */
+   private DirectoryScanner.Listener createScanListener(final Analyzer analyzer, final ProfileIndex known,
+                                                       final PrefixTrie blacklist, final Symbols symbols,
+                                                       final ScanCache cache,
+                                                       final Set<ArchiveFacet> facets,
+                                                       final boolean analyzeComponents,
+                                                       final ExecutorService executor,
+                                                       final Map<File, ScanTask> tasks,
+                                                       final Map<File, Future<Archive>> results)
+   {
+      return new DirectoryScanner.Listener()
       {
-         final ReportSetBuilder reportSetBuilder = new ReportSetBuilder(destination, allReports, reportSet, filters);
+         public void found(File file)
+         {
+            synchronized (tasks)
+            {
+               if (tasks.containsKey(file))
+               {
+                  return;
+               }
 
-         reportSetBuilder.addReportParameter("setCLS", classloaderStructure);
-         reportSetBuilder.addReportParameter("setKnown", known);
-         reportSetBuilder.addReportParameter("setArchives", archives);
-         reportSetBuilder.addReportParameter("setConfig", configuration);
-         reportSetBuilder.addReportParameter("setGlobalProvides", gProvides);
+               final ArchiveScanner scanner = (analyzeComponents) ?
+                  analyzer.getScanner(file, extractPattern, bundlePattern) :
+                  analyzer.getScanner(file, extractPattern);
 
-         loadCustomReports(configuration);
-         outputReport(reportSetBuilder, archives);
+               final ScanTask task = (null != scanner) ?
+                  new ScanTask(file, scanner, known, blacklist, symbols, cache, facets) : null;
+               tasks.put(file, task);
+
+               if (null != task && null != executor)
+               {
+                  results.put(file, executor.submit(task));
+               }
+            }
+         }
+      };
+   }
+
+   /**
+    * Plan which archive facets to retain after scanning: the union of the facets
+    * read by the enabled reports. Custom reports that don't declare their facets
+    * and model exports keep everything.
+    * @param allReports Are all reports enabled
+    * @param reportSet  The ids of the enabled reports
+    * @return The facets; <code>null</code> if all
+    * @throws Exception If a report can't be created
+    */
+   private Set<ArchiveFacet> planFacets(boolean allReports, Set<String> reportSet) throws Exception
+   {
+      if (null != exportModel)
+      {
+         return null;
+      }
+
+      final Set<ArchiveFacet> facets = EnumSet.noneOf(ArchiveFacet.class);
+
+      final List<Class<? extends Report>> reportDefs = new ArrayList<Class<? extends Report>>();
+      reportDefs.addAll(dependencyReports);
+      reportDefs.addAll(generalReports);
+      reportDefs.addAll(customReports);
+
+      for (Class<? extends Report> reportDef : reportDefs)
+      {
+         final Report report = reportDef.getConstructor().newInstance();
+         if (allReports || reportSet.contains(report.getId()))
+         {
+            if (!(report instanceof AbstractReport)
+                || (customReports.contains(reportDef)
+                    && AbstractReport.class == reportDef.getMethod("getFacets").getDeclaringClass()))
+            {
+               return null;
+            }
+            facets.addAll(((AbstractReport) report).getFacets());
+         }
+      }
+
+      for (ArchiveType type : ArchiveType.values())
+      {
+         if (allReports || reportSet.contains(type.toString()))
+         {
+            facets.addAll(ArchiveReport.getArchiveFacets());
+         }
+      }
+
+      return facets;
+   }
+
+   /**
+    * Export the model in the configured formats
+    * @param outputDir The output directory
+    * @param model     The model
+    * @throws IOException If the model can't be written
+    */
+   private void exportModel(String outputDir, Model model) throws IOException
+   {
+      for (String token : exportModel.split("[\\s,]+"))
+      {
+         if ("binary".equals(token))
+         {
+            model.writeBinary(new File(outputDir, Model.BINARY_FILE));
+         }
+         else if ("jsonl".equals(token))
+         {
+            model.writeJsonLines(new File(outputDir, Model.JSONL_FILE));
+         }
+         else if (!token.equals(""))
+         {
+            System.err.println("Unknown model export format: " + token);
+         }
+      }
+   }
+
+   /**
+    * Parse a number of threads
+    * @param key   The name of the setting
+    * @param value The configured value
+    * @return The number of threads; the number of available processors if not configured
+    */
+   private int parseThreads(String key, String value)
+   {
+      if (null != value && !value.trim().equals(""))
+      {
+         try
+         {
+            final int threads = Integer.parseInt(value.trim());
+            if (threads > 0)
+            {
+               return threads;
+            }
+         }
+         catch (NumberFormatException nfe)
+         {
+            System.err.println("Invalid " + key + ": " + value);
+         }
+      }
+
+      return Runtime.getRuntime().availableProcessors();
+   }
+
+   /**
+    * Describe the settings that affect the result of scanning an archive
+    * @param known             The known profiles
+    * @param blacklistedSet    The black listed packages
+    * @param analyzeComponents Are subarchives analyzed
+    * @return The description
+    */
+   private String getScanSettings(List<Profile> known, Set<String> blacklistedSet, boolean analyzeComponents)
+   {
+      final SortedSet<String> profileNames = new TreeSet<String>();
+      for (Profile p : known)
+      {
+         profileNames.add(p.getName());
+      }
+
+      final StringBuilder sb = new StringBuilder();
+      sb.append("profiles=").append(profileNames);
+      sb.append(";blacklisted=").append((null != blacklistedSet) ? new TreeSet<String>(blacklistedSet) : null);
+      sb.append(";extractPattern=").append(extractPattern);
+      sb.append(";bundlePattern=").append(bundlePattern);
+      sb.append(";analyzeComponents=").append(analyzeComponents);
+
+      return sb.toString();
+   }
+
+   /**
+    * Wait for a task to complete
+    * @param result The pending result of the task
+    * @return The result
+    * @throws Exception Thrown if the task failed
+    */
+   private <T> T getResult(Future<T> result) throws Exception
+   {
+      try
+      {
+         return result.get();
+      }
+      catch (ExecutionException ee)
+      {
+         final Throwable cause = ee.getCause();
+         if (cause instanceof Exception)
+         {
+            throw (Exception) cause;
+         }
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+         throw ee;
       }
    }
 
@@ -896,30 +1619,45 @@ public class Main
     */
    private void outputReport(ReportSetBuilder reportSetBuilder, SortedSet<Archive> archives) throws Exception
    {
-      reportSetBuilder.clear();
-      for (Class<? extends AbstractReport> reportDef : dependencyReports)
-      {
-         reportSetBuilder.addReport(reportDef);
-      }
-      final SortedSet<Report> dependencyReportSet = reportSetBuilder.getReportSet();
+      SortedSet<Report> dependencyReportSet = null;
+      SortedSet<Report> generalReportSet = null;
+      SortedSet<Report> customReportSet = null;
+      SortedSet<Report> archiveReports = null;
 
-      reportSetBuilder.clear();
-      for (Class<? extends AbstractReport> reportDef : generalReports)
+      try
       {
-         reportSetBuilder.addReport(reportDef);
-      }
-      final SortedSet<Report> generalReportSet = reportSetBuilder.getReportSet();
+         reportSetBuilder.clear();
+         for (Class<? extends AbstractReport> reportDef : dependencyReports)
+         {
+            reportSetBuilder.addReport(reportDef);
+         }
+         dependencyReportSet = reportSetBuilder.getReportSet();
+
+         reportSetBuilder.clear();
+         for (Class<? extends AbstractReport> reportDef : generalReports)
+         {
+            reportSetBuilder.addReport(reportDef);
+         }
+         generalReportSet = reportSetBuilder.getReportSet();
 
-      reportSetBuilder.clear();
-      for (Class<? extends Report> reportDef : customReports)
+         reportSetBuilder.clear();
+         for (Class<? extends Report> reportDef : customReports)
+         {
+            reportSetBuilder.addReport(reportDef);
+         }
+         customReportSet = reportSetBuilder.getReportSet();
+
+         reportSetBuilder.clear();
+         addJarReports(archives, reportSetBuilder);
+         archiveReports = reportSetBuilder.getReportSet();
+
+         // The report sets are complete once all reports are generated
+         reportSetBuilder.awaitReports();
+      }
+      finally
       {
-         reportSetBuilder.addReport(reportDef);
+         reportSetBuilder.shutdown();
       }
-      final SortedSet<Report> customReportSet = reportSetBuilder.getReportSet();
-
-      reportSetBuilder.clear();
-      addJarReports(archives, reportSetBuilder);
-      final SortedSet<Report> archiveReports = reportSetBuilder.getReportSet();
 
       final String outputDir = reportSetBuilder.getOutputDir();
       Dump.generateIndex(dependencyReportSet, generalReportSet, archiveReports, customReportSet, outputDir, title);
@@ -973,7 +1711,9 @@ public class Main
    private static void usage()
    {
       System.out.println("Usage: Tattletale [-exclude=<excludes>] [-title=<title>] [-components[=<regex>]]"
-                         + " <source>[#<source>]* [<output-directory>]");
+                         + " [-server[=<port>]] <source>[#<source>]* [<output-directory>]");
+      System.out.println("       Tattletale [-title=<title>] [-server[=<port>]] -model=<model-file>"
+                         + " [<output-directory>]");
       System.exit(0);
    }
 
@@ -1016,8 +1756,16 @@ public class Main
          String source = "";
          String destination = ".";
          boolean analyzeComponents = false;
+         String model = null;
+         int server = 0;
          for (String arg : args)
          {
+            if (arg.startsWith("-server"))
+            {
+               int index = arg.indexOf('=');
+               server = (index > 0) ? Integer.parseInt(arg.substring(index + 1)) : Server.DEFAULT_PORT;
+               continue;
+            }
             if (arg.startsWith("-components"))
             {
                analyzeComponents = true;
@@ -1038,14 +1786,20 @@ public class Main
                main.setTitle(arg.substring(arg.indexOf('=') + 1));
                continue;
             }
-            if (source.equals(""))
+            if (arg.startsWith("-model="))
+            {
+               model = arg.substring(arg.indexOf('=') + 1);
+               main.setLoadModel(model);
+               continue;
+            }
+            if (source.equals("") && null == model)
             {
                source = arg;
                continue;
             }
             destination = arg;
          }
-         if (source.equals(""))
+         if (source.equals("") && null == model)
          {
             usage();
          }
@@ -1056,7 +1810,14 @@ public class Main
          main.setFailOnError(false);
          main.setDeleteOutputDirectory(true);
 
-         main.execute(analyzeComponents);
+         if (server > 0)
+         {
+            new Client(server).execute(main, analyzeComponents);
+         }
+         else
+         {
+            main.execute(analyzeComponents);
+         }
       }
       catch (Exception e)
       {
@@ -1164,6 +1925,12 @@ public class Main
       /** Field reportParameters. */
       private final Map<String, Object> reportParameters = new HashMap<String, Object>();
 
+      /** Field executor; <code>null</code> if the reports are generated on the calling thread. */
+      private final ExecutorService executor;
+
+      /** Field pending: the reports being generated, in the order they were added. */
+      private final List<PendingReport> pending = new ArrayList<PendingReport>();
+
       /**
        * Constructor
        *
@@ -1171,15 +1938,18 @@ public class Main
        * @param allReports  Should all reports be generated?
        * @param reportSet   The set of reports that should be generated
        * @param filters     The filters
+       * @param threads     The number of threads generating reports; 1 generates them on the calling thread
        * @throws IOException
        */
-      ReportSetBuilder(String destination, boolean allReports, Set<String> reportSet, Properties filters)
+      ReportSetBuilder(String destination, boolean allReports, Set<String> reportSet, Properties filters,
+                       int threads)
          throws IOException
       {
          outputDir = setupOutputDir(destination);
          this.allReports = allReports;
          this.reportSet = reportSet;
          this.filters = filters;
+         this.executor = (threads > 1) ? Executors.newFixedThreadPool(threads) : null;
       }
 
       /**
@@ -1204,10 +1974,11 @@ public class Main
 
       /**
        * Generates the report from the definition, output goes to the output
-       * directory.
+       * directory. With more than one thread the report is only queued; it is
+       * added to the report set by {@link #awaitReports()}.
        * @param report the definition of the report to generate
        */
-      void addReport(Report report)
+      void addReport(final Report report)
       {
          if (allReports || reportSet.contains(report.getId()))
          {
@@ -1215,8 +1986,49 @@ public class Main
             {
                report.setFilter(filters.getProperty(report.getId()));
             }
-            report.generate(outputDir);
-            returnReportSet.add(report);
+
+            if (null != executor)
+            {
+               final Future<?> result = executor.submit(new Runnable()
+               {
+                  public void run()
+                  {
+                     report.generate(outputDir);
+                  }
+               });
+               pending.add(new PendingReport(report, returnReportSet, result));
+            }
+            else
+            {
+               report.generate(outputDir);
+               returnReportSet.add(report);
+            }
+         }
+      }
+
+      /**
+       * Wait for the queued reports and add them to their report sets, in the
+       * order they were added
+       * @throws Exception If a report failed
+       */
+      void awaitReports() throws Exception
+      {
+         for (PendingReport p : pending)
+         {
+            getResult(p.result);
+            p.reportSet.add(p.report);
+         }
+         pending.clear();
+      }
+
+      /**
+       * Stop the report threads; reports that are still queued are not generated
+       */
+      void shutdown()
+      {
+         if (null != executor)
+         {
+            executor.shutdownNow();
          }
       }
 
@@ -1244,7 +2056,8 @@ public class Main
 
       /**
        * Method getReportSet().
-       * @return A Set of reports generated, useful for building an index
+       * @return A Set of reports generated, useful for building an index; queued
+       *         reports are only in the set after {@link #awaitReports()}
        */
       SortedSet<Report> getReportSet()
       {
@@ -1274,12 +2087,15 @@ public class Main
          // Verify output directory exists & create if it does not
          final File outputDirFile = new File(outputDir);
 
+         final boolean current = isWorkingDirectory(outputDirFile);
+
          if (outputDirFile.exists())
          {
             if (deleteOutputDirectory)
             {
-               if (!outputDirFile.equals(new File(".")))
+               if (!current)
                {
+                  checkDeletable(outputDirFile);
                   recursiveDelete(outputDirFile);
                }
             }
@@ -1289,7 +2105,7 @@ public class Main
             }
          }
 
-         if (!outputDirFile.equals(new File(".")) && !outputDirFile.mkdirs())
+         if (!current && !outputDirFile.mkdirs())
          {
             throw new IOException("Cannot create directory: " + outputDir);
          }
@@ -1297,6 +2113,43 @@ public class Main
          return outputDir;
       }
 
+      /**
+       * Is a directory the working directory of the caller, which is written into
+       * but never deleted
+       * @param dir The directory
+       * @return True if it is; otherwise false
+       * @throws IOException If a path can't be resolved
+       */
+      private boolean isWorkingDirectory(File dir) throws IOException
+      {
+         final File cwd = new File((null != workingDirectory) ? workingDirectory : ".");
+         return dir.equals(new File(".")) || dir.getCanonicalFile().equals(cwd.getCanonicalFile());
+      }
+
+      /**
+       * Refuse to delete a directory that is or holds a source, or the working directory
+       * @param dir The directory
+       * @throws IOException If the directory must not be deleted
+       */
+      private void checkDeletable(File dir) throws IOException
+      {
+         final String path = dir.getCanonicalPath();
+         final String prefix = path.endsWith(File.separator) ? path : path + File.separator;
+
+         final List<String> kept = new ArrayList<String>();
+         kept.add((null != workingDirectory) ? workingDirectory : ".");
+         kept.addAll(Arrays.asList(source.split("#")));
+
+         for (String name : kept)
+         {
+            final String keptPath = new File(name).getCanonicalPath();
+            if (keptPath.equals(path) || keptPath.startsWith(prefix))
+            {
+               throw new IOException("Refusing to delete " + dir + ": it holds " + keptPath);
+            }
+         }
+      }
+
       /**
        * Recursive delete
        * @param f The file handler
@@ -1320,5 +2173,33 @@ public class Main
             }
          }
       }
+
+      /**
+       * A report being generated
+       */
+      private final class PendingReport
+      {
+         /** The report */
+         private final Report report;
+
+         /** The report set it belongs to */
+         private final SortedSet<Report> reportSet;
+
+         /** The pending result */
+         private final Future<?> result;
+
+         /**
+          * Constructor
+          * @param report    The report
+          * @param reportSet The report set it belongs to
+          * @param result    The pending result
+          */
+         PendingReport(Report report, SortedSet<Report> reportSet, Future<?> result)
+         {
+            this.report = report;
+            this.reportSet = reportSet;
+            this.result = result;
+         }
+      }
    }
 }
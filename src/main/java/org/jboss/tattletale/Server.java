@@ -0,0 +1,717 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.jboss.tattletale.analyzers.ScanCache;
+
+/**
+ * An analysis server. It listens on the loopback interface, and executes the requests
+ * of clients one at a time in a single process, so that the profiles and the scan results
+ * stay in memory between executions: an archive is only scanned again once it changes.
+ * <p>
+ * The server also watches the sources of the recent requests it executed, and scans the
+ * archives that change between two requests ahead of the next one. These scans take turns
+ * with the requests, so that only one execution runs at a time. Sources that weren't
+ * requested for an hour, or beyond the {@value #MAX_WATCHED} most recently requested ones,
+ * are no longer watched.
+ * <p>
+ * A request is a properties file, sent in full before the client shuts down its side of
+ * the connection. The reply is a line holding <code>OK</code>, or <code>ERROR</code>
+ * followed by the error message. Each request carries the secret token the server writes
+ * at start up into a file only its user can read, see {@link #getTokenFile(int)}, so that
+ * only that user can use or stop the server. Reports are only written into a directory
+ * that doesn't exist yet, is empty, is the working directory of the client, or already
+ * holds Tattletale reports.
+ *
+ * @see Client
+ */
+public class Server
+{
+   /** The default port */
+   public static final int DEFAULT_PORT = 9753;
+
+   /** The default interval between two looks at the watched sources, in seconds */
+   public static final int DEFAULT_INTERVAL = 2;
+
+   /** The host the server listens on */
+   static final String HOST = "127.0.0.1";
+
+   /** The encoding of the replies */
+   static final String ENCODING = "UTF-8";
+
+   /** The key of the secret token of a request */
+   static final String TOKEN = "token";
+
+   /** The key of the command of a request */
+   static final String COMMAND = "command";
+
+   /** The command that stops the server */
+   static final String STOP = "stop";
+
+   /** The status of a successful request */
+   static final String OK = "OK";
+
+   /** The status of a failed request */
+   static final String ERROR = "ERROR";
+
+   /** The time a client has to send its request, in milliseconds */
+   private static final int READ_TIMEOUT = 10000;
+
+   /** The maximum size of a request */
+   private static final int MAX_REQUEST = 1024 * 1024;
+
+   /** The maximum number of watched sources */
+   private static final int MAX_WATCHED = 16;
+
+   /** The time a source is watched after its last request, in milliseconds */
+   private static final long WATCH_EXPIRY = 60 * 60 * 1000L;
+
+   /** The port */
+   private final int port;
+
+   /** The file holding the secret token */
+   private final File tokenFile;
+
+   /** The secret token; <code>null</code> until the server is started */
+   private byte[] token;
+
+   /** The report directories written, by canonical path */
+   private final Set<String> destinations;
+
+   /** The interval between two looks at the watched sources, in milliseconds */
+   private final long interval;
+
+   /** The warm scan caches, by cache directory and scan settings */
+   private final Map<String, ScanCache> scanCaches;
+
+   /** The watched sources, least recently requested first */
+   private final Map<String, Watch> watched;
+
+   /** The lock held by the execution running */
+   private final Object executionLock;
+
+   /** The server socket */
+   private ServerSocket serverSocket;
+
+   /** Is the server running */
+   private volatile boolean running;
+
+   /**
+    * Constructor
+    * @param port     The port on the loopback interface
+    * @param interval The interval between two looks at the watched sources, in seconds;
+    *                 0 if sources aren't watched
+    */
+   public Server(int port, int interval)
+   {
+      this.port = port;
+      this.tokenFile = getTokenFile(port);
+      this.token = null;
+      this.destinations = new HashSet<String>();
+      this.interval = interval * 1000L;
+      this.scanCaches = new HashMap<String, ScanCache>();
+      this.watched = new LinkedHashMap<String, Watch>();
+      this.executionLock = new Object();
+      this.serverSocket = null;
+      this.running = false;
+   }
+
+   /**
+    * Start listening, and watching the sources
+    * @throws IOException Thrown if the port can't be bound
+    */
+   public void start() throws IOException
+   {
+      serverSocket = new ServerSocket(port, 50, InetAddress.getByName(HOST));
+      try
+      {
+         token = writeToken(tokenFile);
+      }
+      catch (IOException ioe)
+      {
+         serverSocket.close();
+         throw ioe;
+      }
+      running = true;
+
+      if (interval > 0)
+      {
+         final Thread watcher = new Thread(new Runnable()
+         {
+            public void run()
+            {
+               watch();
+            }
+         }, "tattletale-watcher");
+         watcher.setDaemon(true);
+         watcher.start();
+      }
+
+      System.out.println("Tattletale server listening on " + HOST + ":" + serverSocket.getLocalPort());
+   }
+
+   /**
+    * Serve requests until the server is stopped
+    */
+   public void run()
+   {
+      while (running)
+      {
+         Socket socket = null;
+         try
+         {
+            socket = serverSocket.accept();
+            handle(socket);
+         }
+         catch (IOException ioe)
+         {
+            if (running)
+            {
+               System.err.println("Server: " + ioe.getMessage());
+            }
+         }
+         finally
+         {
+            if (null != socket)
+            {
+               try
+               {
+                  socket.close();
+               }
+               catch (IOException ioe)
+               {
+                  // Ignore
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Stop the server
+    */
+   public void stop()
+   {
+      running = false;
+
+      if (null != token && tokenFile.exists() && !tokenFile.delete())
+      {
+         System.err.println("Server: Cannot delete " + tokenFile);
+      }
+
+      if (null != serverSocket)
+      {
+         try
+         {
+            serverSocket.close();
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Handle the request of a client
+    * @param socket The connection
+    * @throws IOException Thrown if the connection fails
+    */
+   private void handle(Socket socket) throws IOException
+   {
+      socket.setSoTimeout(READ_TIMEOUT);
+
+      final Writer writer = new OutputStreamWriter(socket.getOutputStream(), ENCODING);
+      final byte[] data = read(socket.getInputStream());
+      if (null == data)
+      {
+         writer.write(ERROR + "\nRequest too large\n");
+         writer.flush();
+         return;
+      }
+
+      final Properties request = new Properties();
+      request.load(new ByteArrayInputStream(data));
+
+      final String secret = request.getProperty(TOKEN);
+      if (null == secret || !MessageDigest.isEqual(token, secret.getBytes(ENCODING)))
+      {
+         writer.write(ERROR + "\nNot authorized\n");
+         writer.flush();
+         return;
+      }
+
+      if (STOP.equals(request.getProperty(COMMAND)))
+      {
+         writer.write(OK + "\n");
+         writer.flush();
+         stop();
+         return;
+      }
+
+      String error = null;
+      try
+      {
+         execute(request);
+      }
+      catch (Throwable t)
+      {
+         error = (null != t.getMessage()) ? t.getMessage() : t.toString();
+      }
+
+      writer.write((null == error) ? OK + "\n" : ERROR + "\n" + error + "\n");
+      writer.flush();
+   }
+
+   /**
+    * Read a request
+    * @param is The stream of the request
+    * @return The request; <code>null</code> if it is too large
+    * @throws IOException Thrown if the request can't be read in time
+    */
+   private static byte[] read(InputStream is) throws IOException
+   {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      for (int n; (n = is.read(buffer)) != -1;)
+      {
+         if (baos.size() + n > MAX_REQUEST)
+         {
+            return null;
+         }
+         baos.write(buffer, 0, n);
+      }
+      return baos.toByteArray();
+   }
+
+   /**
+    * Execute a request, and watch its sources
+    * @param request The request
+    * @throws Exception Thrown if the execution fails
+    */
+   private void execute(Properties request) throws Exception
+   {
+      final String source = request.getProperty("source", ".");
+
+      checkDestination(request);
+
+      if (null == request.getProperty("loadModel"))
+      {
+         final Watch watch = new Watch(request, getState(request));
+         synchronized (watched)
+         {
+            watched.remove(source);
+            watched.put(source, watch);
+
+            final Iterator<String> it = watched.keySet().iterator();
+            while (watched.size() > MAX_WATCHED)
+            {
+               it.next();
+               it.remove();
+            }
+         }
+      }
+
+      execute(request, false);
+   }
+
+   /**
+    * Check that the destination of a request may hold reports: it doesn't exist yet, is
+    * empty, is the working directory of the client, or already holds reports
+    * @param request The request
+    * @throws IOException Thrown if reports may not be written into the destination
+    */
+   private void checkDestination(Properties request) throws IOException
+   {
+      final File destination = new File(request.getProperty("destination", ".")).getCanonicalFile();
+      final String workingDirectory = request.getProperty("workingDirectory");
+      final String[] files = destination.list();
+
+      if (!destination.exists()
+          || destinations.contains(destination.getPath())
+          || (null != files && 0 == files.length)
+          || (null != workingDirectory && new File(workingDirectory).getCanonicalFile().equals(destination))
+          || isReportDirectory(destination))
+      {
+         destinations.add(destination.getPath());
+         return;
+      }
+
+      throw new IOException("Refusing to write reports into " + destination
+                            + ": it is neither new, empty nor a report directory");
+   }
+
+   /**
+    * Execute a request with the warm scan caches, once no other execution is running
+    * @param request  The request
+    * @param scanOnly Only scan the sources, without writing reports
+    * @throws Exception Thrown if the execution fails
+    */
+   private void execute(Properties request, boolean scanOnly) throws Exception
+   {
+      final Main main = Main.fromRequest(request);
+      main.setScanCaches(scanCaches);
+      main.setScanOnly(scanOnly);
+
+      synchronized (executionLock)
+      {
+         main.execute(Boolean.parseBoolean(request.getProperty("analyzeComponents")));
+      }
+   }
+
+   /**
+    * Watch the sources until the server is stopped, and scan them again when they change.
+    * A request that arrives during a scan waits for it, and then finds its results in the
+    * scan caches.
+    */
+   private void watch()
+   {
+      while (running)
+      {
+         try
+         {
+            Thread.sleep(interval);
+         }
+         catch (InterruptedException ie)
+         {
+            return;
+         }
+
+         final List<Watch> current = new ArrayList<Watch>();
+         synchronized (watched)
+         {
+            final long now = System.currentTimeMillis();
+            for (Iterator<Watch> it = watched.values().iterator(); it.hasNext();)
+            {
+               final Watch watch = it.next();
+               if (now - watch.requested > WATCH_EXPIRY)
+               {
+                  it.remove();
+               }
+               else
+               {
+                  current.add(watch);
+               }
+            }
+         }
+
+         for (Watch watch : current)
+         {
+            if (!running)
+            {
+               return;
+            }
+
+            final Long state = getState(watch.request);
+            if (!state.equals(watch.state))
+            {
+               watch.state = state;
+               try
+               {
+                  execute(watch.request, true);
+               }
+               catch (Throwable t)
+               {
+                  System.err.println("Server: Cannot scan " + watch.request.getProperty("source") + ": "
+                                     + t.getMessage());
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Get the state of the sources of a request: a hash of the paths, sizes and modification
+    * times of their files. The reports written into a source directory aren't part of it.
+    * @param request The request
+    * @return The state
+    */
+   private static Long getState(Properties request)
+   {
+      final File destination = new File(request.getProperty("destination", "."));
+      long state = 17;
+      for (String name : request.getProperty("source", ".").split("#"))
+      {
+         state = getState(new File(name), destination, state);
+      }
+      return Long.valueOf(state);
+   }
+
+   /**
+    * Add the state of a file, or of the files in a directory, to a hash
+    * @param file        The file or directory
+    * @param destination The report directory, which is skipped
+    * @param state       The hash so far
+    * @return The hash
+    */
+   private static long getState(File file, File destination, long state)
+   {
+      if (file.equals(destination))
+      {
+         return state;
+      }
+
+      state = 31 * state + file.getPath().hashCode();
+
+      final File[] files = file.listFiles();
+      if (null != files)
+      {
+         Arrays.sort(files);
+         for (File f : files)
+         {
+            state = getState(f, destination, state);
+         }
+         return state;
+      }
+
+      state = 31 * state + file.length();
+      return 31 * state + file.lastModified();
+   }
+
+   /**
+    * Does a directory hold Tattletale reports
+    * @param dir The directory
+    * @return True if it does; otherwise false
+    */
+   private static boolean isReportDirectory(File dir)
+   {
+      final File index = new File(dir, "index.html");
+      if (!index.isFile() || !new File(dir, "style.css").isFile())
+      {
+         return false;
+      }
+
+      InputStream is = null;
+      try
+      {
+         is = new FileInputStream(index);
+         final byte[] head = new byte[1024];
+         int length = 0;
+         for (int n; length < head.length && (n = is.read(head, length, head.length - length)) != -1;)
+         {
+            length += n;
+         }
+         return new String(head, 0, length, ENCODING).contains("<title>JBoss Tattletale");
+      }
+      catch (IOException ioe)
+      {
+         return false;
+      }
+      finally
+      {
+         if (null != is)
+         {
+            try
+            {
+               is.close();
+            }
+            catch (IOException ioe)
+            {
+               // Ignore
+            }
+         }
+      }
+   }
+
+   /**
+    * Get the file holding the secret token of the server on a port: a file in the
+    * <code>.tattletale</code> directory of the home directory of the user
+    * @param port The port
+    * @return The file
+    */
+   static File getTokenFile(int port)
+   {
+      return new File(new File(System.getProperty("user.home"), ".tattletale"), "server-" + port + ".token");
+   }
+
+   /**
+    * Create a secret token, and write it into a file only the user can read
+    * @param file The file
+    * @return The token
+    * @throws IOException Thrown if the file can't be written, or its access can't be restricted
+    */
+   private static byte[] writeToken(File file) throws IOException
+   {
+      final File dir = file.getParentFile();
+      if (!dir.isDirectory() && !dir.mkdirs())
+      {
+         throw new IOException("Cannot create directory: " + dir);
+      }
+      if (!restrict(dir) || !dir.setExecutable(false, false) || !dir.setExecutable(true, true))
+      {
+         throw new IOException("Cannot restrict access to " + dir);
+      }
+
+      if (file.exists() && !file.delete())
+      {
+         throw new IOException("Cannot delete " + file);
+      }
+      if (!file.createNewFile() || !restrict(file))
+      {
+         throw new IOException("Cannot restrict access to " + file);
+      }
+
+      final byte[] random = new byte[16];
+      new SecureRandom().nextBytes(random);
+      final StringBuilder sb = new StringBuilder(random.length * 2);
+      for (byte b : random)
+      {
+         sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+         sb.append(Character.forDigit(b & 0xf, 16));
+      }
+      final byte[] token = sb.toString().getBytes(ENCODING);
+
+      final OutputStream os = new FileOutputStream(file);
+      try
+      {
+         os.write(token);
+      }
+      finally
+      {
+         os.close();
+      }
+
+      return token;
+   }
+
+   /**
+    * Make a file readable and writable by its owner only
+    * @param file The file
+    * @return True if the access is restricted; otherwise false
+    */
+   private static boolean restrict(File file)
+   {
+      return file.setReadable(false, false) && file.setReadable(true, true)
+         && file.setWritable(false, false) && file.setWritable(true, true);
+   }
+
+   /**
+    * The usage method
+    */
+   private static void usage()
+   {
+      System.out.println("Usage: Server [-port=<port>] [-interval=<seconds>]");
+      System.out.println("       Server [-port=<port>] -stop");
+      System.exit(0);
+   }
+
+   /**
+    * The main method
+    * @param args The arguments
+    */
+   public static void main(String[] args)
+   {
+      try
+      {
+         int port = DEFAULT_PORT;
+         int interval = DEFAULT_INTERVAL;
+         boolean stop = false;
+         for (String arg : args)
+         {
+            if (arg.startsWith("-port="))
+            {
+               port = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            }
+            else if (arg.startsWith("-interval="))
+            {
+               interval = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            }
+            else if (arg.equals("-stop"))
+            {
+               stop = true;
+            }
+            else
+            {
+               usage();
+            }
+         }
+
+         if (stop)
+         {
+            new Client(port).stop();
+            return;
+         }
+
+         final Server server = new Server(port, interval);
+         server.start();
+         server.run();
+      }
+      catch (Exception e)
+      {
+         System.err.println("Exception: " + e.getMessage());
+         e.printStackTrace(System.err);
+      }
+   }
+
+   /**
+    * A watched source
+    */
+   private static final class Watch
+   {
+      /** The last request for the source */
+      private final Properties request;
+
+      /** The time of the request */
+      private final long requested;
+
+      /** The state of the source when last scanned; only used by the watcher */
+      private Long state;
+
+      /**
+       * Constructor
+       * @param request The request
+       * @param state   The state of the source
+       */
+      Watch(Properties request, Long state)
+      {
+         this.request = request;
+         this.requested = System.currentTimeMillis();
+         this.state = state;
+      }
+   }
+}
@@ -24,27 +24,27 @@ package org.jboss.tattletale.analyzers;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
-
-import javassist.ClassPool;
-import javassist.CtClass;
-import javassist.CtField;
-import javassist.NotFoundException;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.PrefixTrie;
 import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.profiles.ProfileIndex;
 
 /**
  * Abstract class that contains utility methods that other scanner extensions can use.
@@ -53,6 +53,27 @@ import org.jboss.tattletale.profiles.Profile;
  */
 public abstract class AbstractScanner implements ArchiveScanner
 {
+   /** The pipeline parsing the classes */
+   private ClassPipeline classPipeline = ClassPipeline.INLINE;
+
+   /**
+    * Get the pipeline parsing the classes
+    * @return The value
+    */
+   public ClassPipeline getClassPipeline()
+   {
+      return classPipeline;
+   }
+
+   /**
+    * Set the pipeline parsing the classes
+    * @param classPipeline The value; <code>null</code> parses the classes on the scanning thread
+    */
+   public void setClassPipeline(ClassPipeline classPipeline)
+   {
+      this.classPipeline = (null != classPipeline) ? classPipeline : ClassPipeline.INLINE;
+   }
+
    /**
     * Read the manifest
     * @param manifest The manifest
@@ -129,6 +150,51 @@ public abstract class AbstractScanner implements ArchiveScanner
       return version;
    }
 
+   /**
+    * Get the location of an archive nested in another archive. Nested archives are
+    * read in place, but keep the location below java.io.tmpdir that they had when
+    * the enclosing archive was extracted there.
+    * @param path      The canonical path of the enclosing archive
+    * @param entryName The name of the entry holding the nested archive
+    * @return The canonical path of the nested archive
+    * @throws IOException If the path can't be resolved
+    */
+   protected String getNestedPath(String path, String entryName) throws IOException
+   {
+      final String basedir = new File(System.getProperty("java.io.tmpdir")).getCanonicalPath();
+      String dir = path;
+
+      if (!path.startsWith(basedir))
+      {
+         if (path.indexOf(':') != -1 &&
+             System.getProperty("os.name").toLowerCase(Locale.US).contains("windows"))
+         {
+            dir = path.substring(path.indexOf(':') + 1);
+         }
+         dir = new File(basedir, dir).getCanonicalPath();
+      }
+
+      return new File(dir, entryName).getCanonicalPath();
+   }
+
+   /**
+    * Compile the pattern selecting the nested archives to scan
+    * @param extractPattern The pattern
+    * @return The compiled pattern; everything matches if the pattern is invalid
+    */
+   protected Pattern compileExtractPattern(String extractPattern)
+   {
+      try
+      {
+         return Pattern.compile(extractPattern);
+      }
+      catch (PatternSyntaxException pse)
+      {
+         System.err.println("Incorrect extraction pattern: " + extractPattern);
+         return Pattern.compile(".*");
+      }
+   }
+
    /**
     * Method that will add a set of profiles (Strings) to the archive.
     *
@@ -146,7 +212,7 @@ public abstract class AbstractScanner implements ArchiveScanner
    /**
     * Static method called to scan class files within an input stream and populate the data structure parameters.
     * @param is - input stream
-    * @param blacklisted The set of black listed packages
+    * @param blacklisted The black listed packages
     * @param known       The set of known archives
     * @param classVersion - the version of the class file
     * @param provides - the map of provides
@@ -156,56 +222,67 @@ public abstract class AbstractScanner implements ArchiveScanner
     * @param packageDependencies - the map of package dependencies
     * @param blacklistedDependencies - the map of blacklisted dependencies
     * @return An {@link Integer} representing the class version.
-    * @throws IOException - if the Javassist ClassPool cannot make the CtClass based on the input stream.
+    * @throws IOException - if the class file cannot be read, neither directly nor by Javassist.
     */
-   public Integer scanClasses(InputStream is, Set<String> blacklisted, List<Profile> known, Integer classVersion,
+   public Integer scanClasses(InputStream is, PrefixTrie blacklisted, List<Profile> known, Integer classVersion,
                               SortedMap<String, Long> provides, SortedSet<String> requires,
                               SortedSet<String> profiles, SortedMap<String, SortedSet<String>> classDependencies,
                               SortedMap<String, SortedSet<String>> packageDependencies,
                               SortedMap<String, SortedSet<String>> blacklistedDependencies)
       throws IOException
    {
-      final ClassPool classPool = new ClassPool();
-      final CtClass ctClz = classPool.makeClass(is);
+      final ProfileIndex index = (null != known) ? new ProfileIndex(known) : null;
+      return addClass(ParsedClass.parse(readClass(is)), blacklisted, index, classVersion, provides, requires,
+                      profiles, classDependencies, packageDependencies, blacklistedDependencies);
+   }
 
+   /**
+    * Add a parsed class to the data structure parameters
+    * @param clz - the class
+    * @param blacklisted The black listed packages
+    * @param known       The known profiles; <code>null</code> if none
+    * @param classVersion - the version of the class file
+    * @param provides - the map of provides
+    * @param requires - the set of requires
+    * @param profiles - the set of profiles
+    * @param classDependencies - the map of class dependencies
+    * @param packageDependencies - the map of package dependencies
+    * @param blacklistedDependencies - the map of blacklisted dependencies
+    * @return An {@link Integer} representing the class version.
+    */
+   static Integer addClass(ParsedClass clz, PrefixTrie blacklisted, ProfileIndex known, Integer classVersion,
+                           SortedMap<String, Long> provides, SortedSet<String> requires,
+                           SortedSet<String> profiles, SortedMap<String, SortedSet<String>> classDependencies,
+                           SortedMap<String, SortedSet<String>> packageDependencies,
+                           SortedMap<String, SortedSet<String>> blacklistedDependencies)
+   {
       if (null == classVersion)
       {
-         classVersion = ctClz.getClassFile2().getMajorVersion();
+         classVersion = clz.getMajorVersion();
       }
 
-      Long serialVersionUID = null;
-      try
-      {
-         final CtField field = ctClz.getField("serialVersionUID");
-         serialVersionUID = (Long) field.getConstantValue();
-      }
-      catch (NotFoundException nfe)
-      {
-         // Ignore - not serializable
-      }
-
-      provides.put(ctClz.getName(), serialVersionUID);
+      final String name = clz.getName();
+      provides.put(name, clz.getSerialVersionUID());
 
-      final int pkgIdx = ctClz.getName().lastIndexOf('.');
+      final int pkgIdx = name.lastIndexOf('.');
       String pkg = null;
 
       if (pkgIdx != -1)
       {
-         pkg = ctClz.getName().substring(0, pkgIdx);
+         pkg = name.substring(0, pkgIdx);
       }
 
-      for (Object c : ctClz.getRefClasses())
+      for (String clzName : clz.getRefClasses())
       {
-         String clzName = (String) c;
          requires.add(clzName);
 
-         SortedSet<String> cd = classDependencies.get(ctClz.getName());
+         SortedSet<String> cd = classDependencies.get(name);
          if (null == cd)
          {
             cd = new TreeSet<String>();
          }
          cd.add(clzName);
-         classDependencies.put(ctClz.getName(), cd);
+         classDependencies.put(name, cd);
 
          int rPkgIdx = clzName.lastIndexOf('.');
          String rPkg = null;
@@ -218,14 +295,11 @@ public abstract class AbstractScanner implements ArchiveScanner
 
          if (null != known)
          {
-            for (Profile p : known)
+            final Profile p = known.getProfile(clzName);
+            if (null != p)
             {
-               if (p.doesProvide(clzName))
-               {
-                  profiles.add(p.getName());
-                  include = false;
-                  break;
-               }
+               profiles.add(p.getName());
+               include = false;
             }
          }
 
@@ -240,41 +314,46 @@ public abstract class AbstractScanner implements ArchiveScanner
             packageDependencies.put(pkg, pd);
          }
 
-         if (null != blacklisted)
+         if (null != blacklisted && blacklisted.hasPrefixOf(clzName))
          {
-            boolean bl = false;
+            String key = pkg;
 
-            for (String blp : blacklisted)
+            if (null == key)
             {
-               if (clzName.startsWith(blp))
-               {
-                  bl = true;
-                  break;
-               }
+               key = "";
             }
 
-            if (bl)
+            SortedSet<String> bld = blacklistedDependencies.get(key);
+            if (null == bld)
             {
-               String key = pkg;
-
-               if (null == key)
-               {
-                  key = "";
-               }
-
-               SortedSet<String> bld = blacklistedDependencies.get(key);
-               if (null == bld)
-               {
-                  bld = new TreeSet<String>();
-               }
-               bld.add(rPkg);
-               blacklistedDependencies.put(key, bld);
+               bld = new TreeSet<String>();
             }
+            bld.add(rPkg);
+            blacklistedDependencies.put(key, bld);
          }
       }
       return classVersion;
    }
 
+   /**
+    * Read a class file into memory
+    * @param is The input stream
+    * @return The bytes of the class file
+    * @throws IOException If the stream cannot be read
+    */
+   static byte[] readClass(InputStream is) throws IOException
+   {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream(8192);
+      final byte[] buffer = new byte[8192];
+
+      for (int n; (n = is.read(buffer)) != -1;)
+      {
+         baos.write(buffer, 0, n);
+      }
+
+      return baos.toByteArray();
+   }
+
    /**
     * Method addDependencies.
     * @param allDependencies SortedMap&lt;String,SortedSet&lt;String&gt;&gt;
@@ -34,6 +34,18 @@ public class Analyzer
    /** Field placeholder */
    private boolean placeholder = false;
 
+   /** The pipeline parsing the classes; null if classes are parsed on the scanning thread */
+   private ClassPipeline classPipeline = null;
+
+   /**
+    * Set the pipeline parsing the classes of the archives scanned by the scanners
+    * @param classPipeline The value; <code>null</code> parses the classes on the scanning thread
+    */
+   public void setClassPipeline(ClassPipeline classPipeline)
+   {
+      this.classPipeline = classPipeline;
+   }
+
    /**
     * Returns the appropriate scanner implementation based on the extension of file that is passed as a parameter.
     * @param file - the .jar, .war file etc.
@@ -67,20 +79,26 @@ public class Analyzer
    public ArchiveScanner getScanner(File file, String extractPattern, String bundlePattern)
    {
       final String fileName = file.getName();
+      AbstractScanner scanner = null;
 
       if (fileName.endsWith(".jar"))
       {
-         return new JarScanner();
+         scanner = new JarScanner();
       }
       else if (fileName.endsWith(".war") || fileName.endsWith(".rar"))
       {
-         return (placeholder) ? new WarScanner(extractPattern) : new WarScanner(extractPattern, bundlePattern);
+         scanner = (placeholder) ? new WarScanner(extractPattern) : new WarScanner(extractPattern, bundlePattern);
       }
       else if (fileName.endsWith(".ear"))
       {
-         return (placeholder) ? new EarScanner(extractPattern) : new EarScanner(extractPattern, bundlePattern);
+         scanner = (placeholder) ? new EarScanner(extractPattern) : new EarScanner(extractPattern, bundlePattern);
+      }
+
+      if (null != scanner)
+      {
+         scanner.setClassPipeline(classPipeline);
       }
 
-      return null;
+      return scanner;
    }
 }
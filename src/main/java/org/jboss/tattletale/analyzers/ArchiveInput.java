@@ -0,0 +1,774 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The entries of an archive being scanned. The central directory of a file is read
+ * directly, without the signature verification and bookkeeping of {@link JarFile},
+ * which is only used for files this reading can't handle. An archive nested in another one is read as a stream straight from the
+ * entry of the enclosing archive, so it never has to be extracted.
+ */
+abstract class ArchiveInput
+{
+   /**
+    * Open an archive file
+    * @param file The file
+    * @return The input
+    * @throws IOException If the file isn't an archive
+    */
+   static ArchiveInput open(File file) throws IOException
+   {
+      final ArchiveInput input = ChannelInput.open(file);
+      return (null != input) ? input : new FileInput(new JarFile(file));
+   }
+
+   /**
+    * Open a nested archive
+    * @param is The content of the archive; it isn't closed by {@link #close()}
+    * @return The input
+    */
+   static ArchiveInput open(InputStream is)
+   {
+      return new StreamInput(is);
+   }
+
+   /**
+    * Move to the next entry
+    * @return The name of the entry; <code>null</code> if there are no more entries
+    * @throws IOException If the archive can't be read
+    */
+   abstract String nextEntry() throws IOException;
+
+   /**
+    * Get the content of the current entry. Closing the stream doesn't close the archive.
+    * @return The stream
+    * @throws IOException If the entry can't be read
+    */
+   abstract InputStream getInputStream() throws IOException;
+
+   /**
+    * Get the manifest; for a nested archive it is only known once all entries were read
+    * @return The manifest; <code>null</code> if there is none
+    * @throws IOException If the manifest can't be read
+    */
+   abstract Manifest getManifest() throws IOException;
+
+   /**
+    * Close the archive
+    * @throws IOException If an error occurs
+    */
+   abstract void close() throws IOException;
+
+   /**
+    * An archive file
+    */
+   private static final class FileInput extends ArchiveInput
+   {
+      /** The file */
+      private final JarFile jarFile;
+
+      /** The entries */
+      private final Enumeration<JarEntry> entries;
+
+      /** The current entry */
+      private JarEntry current;
+
+      /**
+       * Constructor
+       * @param jarFile The file
+       */
+      FileInput(JarFile jarFile)
+      {
+         this.jarFile = jarFile;
+         this.entries = jarFile.entries();
+      }
+
+      /**
+       * Move to the next entry
+       * @return The name of the entry; <code>null</code> if there are no more entries
+       */
+      String nextEntry()
+      {
+         current = entries.hasMoreElements() ? entries.nextElement() : null;
+         return (null != current) ? current.getName() : null;
+      }
+
+      /**
+       * Get the content of the current entry
+       * @return The stream
+       * @throws IOException If an error occurs
+       */
+      InputStream getInputStream() throws IOException
+      {
+         return jarFile.getInputStream(current);
+      }
+
+      /**
+       * Get the manifest
+       * @return The manifest; <code>null</code> if there is none
+       * @throws IOException If an error occurs
+       */
+      Manifest getManifest() throws IOException
+      {
+         return jarFile.getManifest();
+      }
+
+      /**
+       * Close the archive
+       * @throws IOException If an error occurs
+       */
+      void close() throws IOException
+      {
+         jarFile.close();
+      }
+   }
+
+   /**
+    * An archive file read through its channel. The central directory is read into
+    * memory, and each entry is read from the file when it is opened. The file isn't
+    * mapped, as a mapping is only released when it is garbage collected, which keeps
+    * the file locked on some platforms; it is closed by {@link #close()}.
+    */
+   private static final class ChannelInput extends ArchiveInput
+   {
+      /** The signature of the end of central directory record */
+      private static final int END_SIGNATURE = 0x06054b50;
+
+      /** The signature of a central directory header */
+      private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+      /** The signature of a local file header */
+      private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+      /** The size of the end of central directory record without comment */
+      private static final int END_SIZE = 22;
+
+      /** The size of a central directory header without name, extra field and comment */
+      private static final int CENTRAL_SIZE = 46;
+
+      /** The size of a local file header without name and extra field */
+      private static final int LOCAL_SIZE = 30;
+
+      /** The size of the buffer entries are read with */
+      private static final int BUFFER_SIZE = 8192;
+
+      /** The inflaters of closed archives, for reuse */
+      private static final List<Inflater> INFLATERS = new ArrayList<Inflater>();
+
+      /** The maximum number of pooled inflaters */
+      private static final int MAX_INFLATERS = 16;
+
+      /** The file */
+      private final RandomAccessFile raf;
+
+      /** The channel of the file */
+      private final FileChannel channel;
+
+      /** The central directory */
+      private final ByteBuffer directory;
+
+      /** The position of the next central directory header */
+      private int next;
+
+      /** The number of entries left */
+      private int remaining;
+
+      /** The central directory header of the current entry */
+      private int current;
+
+      /** The offset of the manifest header; -1 if there is none */
+      private int manifestHeader = -1;
+
+      /** The inflater; created when the first compressed entry is read */
+      private Inflater inflater;
+
+      /** The buffer entries are read with */
+      private final byte[] buffer = new byte[BUFFER_SIZE];
+
+      /** The buffer for local file headers */
+      private final ByteBuffer localHeader = ByteBuffer.allocate(LOCAL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+      /** The buffer for entry names */
+      private byte[] nameBuffer = new byte[256];
+
+      /**
+       * Constructor
+       * @param raf       The file
+       * @param directory The central directory
+       * @param entries   The number of entries
+       */
+      private ChannelInput(RandomAccessFile raf, ByteBuffer directory, int entries)
+      {
+         this.raf = raf;
+         this.channel = raf.getChannel();
+         this.directory = directory;
+         this.next = 0;
+         this.remaining = entries;
+      }
+
+      /**
+       * Open an archive file
+       * @param file The file
+       * @return The input; <code>null</code> if the file has to be read by {@link JarFile}
+       * @throws IOException If the file can't be read
+       */
+      static ChannelInput open(File file) throws IOException
+      {
+         final RandomAccessFile raf = new RandomAccessFile(file, "r");
+         ChannelInput input = null;
+         try
+         {
+            input = open(raf);
+            return input;
+         }
+         finally
+         {
+            if (null == input)
+            {
+               raf.close();
+            }
+         }
+      }
+
+      /**
+       * Read the central directory of an archive file
+       * @param raf The file
+       * @return The input; <code>null</code> if the file has to be read by {@link JarFile}
+       * @throws IOException If the file can't be read
+       */
+      private static ChannelInput open(RandomAccessFile raf) throws IOException
+      {
+         final FileChannel channel = raf.getChannel();
+         final long length = channel.size();
+         if (length < END_SIZE || length > Integer.MAX_VALUE)
+         {
+            return null;
+         }
+
+         // The end of central directory record is followed by a comment of at most 64k
+         final int tailSize = (int) Math.min(length, END_SIZE + 0xffff);
+         final long tailStart = length - tailSize;
+         final ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+         readFully(channel, tail, tailStart);
+
+         for (int end = tailSize - END_SIZE; end >= 0; end--)
+         {
+            if (END_SIGNATURE == tail.getInt(end))
+            {
+               final int entries = tail.getShort(end + 10) & 0xffff;
+               final long size = tail.getInt(end + 12) & 0xffffffffL;
+               final long offset = tail.getInt(end + 16) & 0xffffffffL;
+
+               // Zip64 archives and archives with data in front are left to JarFile
+               if (0xffff == entries || offset + size != tailStart + end)
+               {
+                  return null;
+               }
+
+               final ByteBuffer directory = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+               readFully(channel, directory, offset);
+               return new ChannelInput(raf, directory, entries);
+            }
+         }
+         return null;
+      }
+
+      /**
+       * Fill a buffer from a position of a channel
+       * @param channel  The channel
+       * @param buffer   The buffer
+       * @param position The position
+       * @throws IOException If the channel ends too early
+       */
+      private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+      {
+         while (buffer.hasRemaining())
+         {
+            final int n = channel.read(buffer, position);
+            if (n < 0)
+            {
+               throw new EOFException("Unexpected end of archive");
+            }
+            position += n;
+         }
+         buffer.clear();
+      }
+
+      /**
+       * Move to the next entry
+       * @return The name of the entry; <code>null</code> if there are no more entries
+       * @throws IOException If an error occurs
+       */
+      String nextEntry() throws IOException
+      {
+         if (0 == remaining)
+         {
+            return null;
+         }
+
+         if (next + CENTRAL_SIZE > directory.limit() || CENTRAL_SIGNATURE != directory.getInt(next))
+         {
+            throw new ZipException("Invalid central directory header");
+         }
+
+         if (-1 == directory.getInt(next + 20) || -1 == directory.getInt(next + 42))
+         {
+            throw new ZipException("Zip64 entries are not supported");
+         }
+
+         final int nameLength = directory.getShort(next + 28) & 0xffff;
+         final int extraLength = directory.getShort(next + 30) & 0xffff;
+         final int commentLength = directory.getShort(next + 32) & 0xffff;
+         if (nameBuffer.length < nameLength)
+         {
+            nameBuffer = new byte[nameLength];
+         }
+         final ByteBuffer name = directory.duplicate();
+         name.position(next + CENTRAL_SIZE);
+         name.get(nameBuffer, 0, nameLength);
+         final String entryName = new String(nameBuffer, 0, nameLength, "UTF-8");
+
+         if (-1 == manifestHeader && JarFile.MANIFEST_NAME.equalsIgnoreCase(entryName))
+         {
+            manifestHeader = next;
+         }
+
+         current = next;
+         next += CENTRAL_SIZE + nameLength + extraLength + commentLength;
+         remaining--;
+         return entryName;
+      }
+
+      /**
+       * Get the content of the current entry
+       * @return The stream
+       * @throws IOException If an error occurs
+       */
+      InputStream getInputStream() throws IOException
+      {
+         return getInputStream(current);
+      }
+
+      /**
+       * Get the content of an entry
+       * @param header The central directory header of the entry
+       * @return The stream
+       * @throws IOException If an error occurs
+       */
+      private InputStream getInputStream(int header) throws IOException
+      {
+         final int method = directory.getShort(header + 10) & 0xffff;
+         final long compressedSize = directory.getInt(header + 20) & 0xffffffffL;
+         final long localOffset = directory.getInt(header + 42) & 0xffffffffL;
+
+         readFully(channel, localHeader, localOffset);
+         if (LOCAL_SIGNATURE != localHeader.getInt(0))
+         {
+            throw new ZipException("Invalid local file header");
+         }
+
+         final long start = localOffset + LOCAL_SIZE + (localHeader.getShort(26) & 0xffff)
+                            + (localHeader.getShort(28) & 0xffff);
+         final EntryInputStream data = new EntryInputStream(start, compressedSize);
+
+         if (ZipEntry.STORED == method)
+         {
+            return data;
+         }
+         if (ZipEntry.DEFLATED == method)
+         {
+            if (null == inflater)
+            {
+               inflater = acquireInflater();
+            }
+            inflater.reset();
+            return new ChannelInflaterInputStream(data);
+         }
+         throw new ZipException("Unsupported compression method " + method);
+      }
+
+      /**
+       * Get the manifest
+       * @return The manifest; <code>null</code> if there is none
+       * @throws IOException If an error occurs
+       */
+      Manifest getManifest() throws IOException
+      {
+         if (-1 == manifestHeader)
+         {
+            return null;
+         }
+
+         final InputStream is = getInputStream(manifestHeader);
+         try
+         {
+            return new Manifest(is);
+         }
+         finally
+         {
+            is.close();
+         }
+      }
+
+      /**
+       * Close the archive
+       * @throws IOException If the file can't be closed
+       */
+      void close() throws IOException
+      {
+         if (null != inflater)
+         {
+            releaseInflater(inflater);
+            inflater = null;
+         }
+         raf.close();
+      }
+
+      /**
+       * Take an inflater from the pool
+       * @return The inflater
+       */
+      private static Inflater acquireInflater()
+      {
+         synchronized (INFLATERS)
+         {
+            if (!INFLATERS.isEmpty())
+            {
+               return INFLATERS.remove(INFLATERS.size() - 1);
+            }
+         }
+         return new Inflater(true);
+      }
+
+      /**
+       * Return an inflater to the pool
+       * @param inflater The inflater
+       */
+      private static void releaseInflater(Inflater inflater)
+      {
+         synchronized (INFLATERS)
+         {
+            if (INFLATERS.size() < MAX_INFLATERS)
+            {
+               inflater.reset();
+               INFLATERS.add(inflater);
+               return;
+            }
+         }
+         inflater.end();
+      }
+
+      /**
+       * The raw content of an entry, read from the file
+       */
+      private final class EntryInputStream extends InputStream
+      {
+         /** The position of the next byte in the file */
+         private long position;
+
+         /** The number of bytes left */
+         private long left;
+
+         /** A single byte */
+         private final byte[] single = new byte[1];
+
+         /**
+          * Constructor
+          * @param position The position of the content in the file
+          * @param size     The size of the content
+          */
+         EntryInputStream(long position, long size)
+         {
+            this.position = position;
+            this.left = size;
+         }
+
+         /**
+          * Read a byte
+          * @return The byte; -1 at the end of the entry
+          * @throws IOException If the file can't be read
+          */
+         public int read() throws IOException
+         {
+            return (-1 != read(single, 0, 1)) ? single[0] & 0xff : -1;
+         }
+
+         /**
+          * Read bytes
+          * @param b   The buffer
+          * @param off The offset
+          * @param len The maximum number of bytes
+          * @return The number of bytes read; -1 at the end of the entry
+          * @throws IOException If the file can't be read
+          */
+         public int read(byte[] b, int off, int len) throws IOException
+         {
+            if (0 == left)
+            {
+               return -1;
+            }
+            if (0 == len)
+            {
+               return 0;
+            }
+
+            final int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, left)), position);
+            if (n < 0)
+            {
+               throw new EOFException("Unexpected end of archive");
+            }
+            position += n;
+            left -= n;
+            return n;
+         }
+
+         /**
+          * Get the number of bytes left
+          * @return The value
+          */
+         public int available()
+         {
+            return (int) Math.min(left, Integer.MAX_VALUE);
+         }
+      }
+
+      /**
+       * The content of a compressed entry, inflated with the inflater of the archive
+       */
+      private final class ChannelInflaterInputStream extends InputStream
+      {
+         /** The compressed content */
+         private final EntryInputStream data;
+
+         /** The dummy byte the inflater needs after the data has been given */
+         private boolean dummy = true;
+
+         /** A single byte */
+         private final byte[] single = new byte[1];
+
+         /**
+          * Constructor
+          * @param data The compressed content
+          */
+         ChannelInflaterInputStream(EntryInputStream data)
+         {
+            this.data = data;
+         }
+
+         /**
+          * Read a byte
+          * @return The byte; -1 at the end of the entry
+          * @throws IOException If the entry is corrupt
+          */
+         public int read() throws IOException
+         {
+            return (-1 != read(single, 0, 1)) ? single[0] & 0xff : -1;
+         }
+
+         /**
+          * Read bytes
+          * @param b   The buffer
+          * @param off The offset
+          * @param len The maximum number of bytes
+          * @return The number of bytes read; -1 at the end of the entry
+          * @throws IOException If the entry is corrupt
+          */
+         public int read(byte[] b, int off, int len) throws IOException
+         {
+            if (0 == len)
+            {
+               return 0;
+            }
+
+            try
+            {
+               int n;
+               while (0 == (n = inflater.inflate(b, off, len)))
+               {
+                  if (inflater.finished() || inflater.needsDictionary())
+                  {
+                     return -1;
+                  }
+                  if (inflater.needsInput())
+                  {
+                     fill();
+                  }
+               }
+               return n;
+            }
+            catch (DataFormatException dfe)
+            {
+               throw new ZipException(dfe.getMessage());
+            }
+         }
+
+         /**
+          * Give the inflater the next part of the compressed content
+          * @throws IOException If the content ends too early
+          */
+         private void fill() throws IOException
+         {
+            final int n = data.read(buffer, 0, buffer.length);
+            if (n > 0)
+            {
+               inflater.setInput(buffer, 0, n);
+            }
+            else if (dummy)
+            {
+               dummy = false;
+               buffer[0] = 0;
+               inflater.setInput(buffer, 0, 1);
+            }
+            else
+            {
+               throw new EOFException("Unexpected end of compressed entry");
+            }
+         }
+      }
+   }
+
+   /**
+    * A nested archive
+    */
+   private static final class StreamInput extends ArchiveInput
+   {
+      /** The archive */
+      private final ZipInputStream zis;
+
+      /** The content of the manifest entry */
+      private byte[] manifest;
+
+      /** The current entry holds the manifest */
+      private boolean atManifest;
+
+      /**
+       * Constructor
+       * @param is The content of the archive
+       */
+      StreamInput(InputStream is)
+      {
+         this.zis = new ZipInputStream(new UnclosableInputStream(is));
+      }
+
+      /**
+       * Move to the next entry
+       * @return The name of the entry; <code>null</code> if there are no more entries
+       * @throws IOException If an error occurs
+       */
+      String nextEntry() throws IOException
+      {
+         final ZipEntry entry = zis.getNextEntry();
+         if (null == entry)
+         {
+            return null;
+         }
+
+         atManifest = false;
+         if (null == manifest && JarFile.MANIFEST_NAME.equalsIgnoreCase(entry.getName()))
+         {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            for (int n; (n = zis.read(buffer)) != -1;)
+            {
+               out.write(buffer, 0, n);
+            }
+            manifest = out.toByteArray();
+            atManifest = true;
+         }
+         return entry.getName();
+      }
+
+      /**
+       * Get the content of the current entry
+       * @return The stream
+       */
+      InputStream getInputStream()
+      {
+         return atManifest ? new ByteArrayInputStream(manifest) : new UnclosableInputStream(zis);
+      }
+
+      /**
+       * Get the manifest
+       * @return The manifest; <code>null</code> if there is none
+       * @throws IOException If an error occurs
+       */
+      Manifest getManifest() throws IOException
+      {
+         return (null != manifest) ? new Manifest(new ByteArrayInputStream(manifest)) : null;
+      }
+
+      /**
+       * Close the archive
+       * @throws IOException If an error occurs
+       */
+      void close() throws IOException
+      {
+         zis.close();
+      }
+   }
+
+   /**
+    * A stream whose close() leaves the underlying stream open
+    */
+   private static final class UnclosableInputStream extends FilterInputStream
+   {
+      /**
+       * Constructor
+       * @param is The stream
+       */
+      UnclosableInputStream(InputStream is)
+      {
+         super(is);
+      }
+
+      /**
+       * Does nothing
+       */
+      public void close()
+      {
+         // The entry is closed by the archive
+      }
+   }
+}
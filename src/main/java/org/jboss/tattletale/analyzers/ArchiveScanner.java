@@ -24,13 +24,13 @@ package org.jboss.tattletale.analyzers;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedSet;
 
 import org.jboss.tattletale.core.Archive;
-import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.ProfileIndex;
 
 /**
  * Interface that will be used on the top level in order to scan different archive types (.jar, .war/.rar, .ear).
@@ -52,10 +52,11 @@ public interface ArchiveScanner
     * @param file        The File to be scanned
     * @param gProvides   The global provides map
     * @param known       The set of known archives
-    * @param blacklisted The set of black listed packages
+    * @param blacklisted The black listed packages
+    * @param symbols     The table the names are interned into
     * @return The archive
     * @throws IOException - If there is an error with the input streams.
     */
    Archive scan(File file, Map<String, SortedSet<String>> gProvides,
-                List<Profile> known, Set<String> blacklisted) throws IOException;
+                ProfileIndex known, PrefixTrie blacklisted, Symbols symbols) throws IOException;
 }
@@ -0,0 +1,766 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A lightweight class file reader that extracts the class name, the major version,
+ * the <code>serialVersionUID</code> constant and the referenced class names straight
+ * from the bytes of a class file.
+ * <p>
+ * The referenced classes are the same ones that Javassist reports through
+ * <code>CtClass.getRefClasses()</code>: the class entries, name-and-type and method type
+ * descriptors of the constant pool, the field and method descriptors, and the types
+ * used in annotations. Any class file that can't be read is rejected with an exception,
+ * in which case the caller is expected to fall back to Javassist.
+ */
+public final class ClassFileReader
+{
+   /** The name of the serialVersionUID field */
+   private static final String SERIAL_VERSION_UID = "serialVersionUID";
+
+   /** ACC_STATIC */
+   private static final int ACC_STATIC = 0x0008;
+
+   /** CONSTANT_Utf8 */
+   private static final int CONSTANT_UTF8 = 1;
+
+   /** CONSTANT_Integer */
+   private static final int CONSTANT_INTEGER = 3;
+
+   /** CONSTANT_Float */
+   private static final int CONSTANT_FLOAT = 4;
+
+   /** CONSTANT_Long */
+   private static final int CONSTANT_LONG = 5;
+
+   /** CONSTANT_Double */
+   private static final int CONSTANT_DOUBLE = 6;
+
+   /** CONSTANT_Class */
+   private static final int CONSTANT_CLASS = 7;
+
+   /** CONSTANT_String */
+   private static final int CONSTANT_STRING = 8;
+
+   /** CONSTANT_Fieldref */
+   private static final int CONSTANT_FIELDREF = 9;
+
+   /** CONSTANT_Methodref */
+   private static final int CONSTANT_METHODREF = 10;
+
+   /** CONSTANT_InterfaceMethodref */
+   private static final int CONSTANT_INTERFACEMETHODREF = 11;
+
+   /** CONSTANT_NameAndType */
+   private static final int CONSTANT_NAMEANDTYPE = 12;
+
+   /** CONSTANT_MethodHandle */
+   private static final int CONSTANT_METHODHANDLE = 15;
+
+   /** CONSTANT_MethodType */
+   private static final int CONSTANT_METHODTYPE = 16;
+
+   /** CONSTANT_InvokeDynamic */
+   private static final int CONSTANT_INVOKEDYNAMIC = 18;
+
+   /** CONSTANT_Module */
+   private static final int CONSTANT_MODULE = 19;
+
+   /** CONSTANT_Package */
+   private static final int CONSTANT_PACKAGE = 20;
+
+   /** The class file */
+   private final byte[] b;
+
+   /** The tag of each constant pool entry */
+   private byte[] tags;
+
+   /** The offset of each constant pool entry, just after its tag */
+   private int[] offsets;
+
+   /** The decoded UTF-8 constants */
+   private String[] strings;
+
+   /** The class name */
+   private String name;
+
+   /** The major version */
+   private int majorVersion;
+
+   /** The serialVersionUID */
+   private Long serialVersionUID;
+
+   /** The referenced classes */
+   private final Set<String> refClasses;
+
+   /** The constant pool index of the ConstantValue of the last field read; -1 if it doesn't have one */
+   private int constantValue;
+
+   /**
+    * Constructor
+    * @param b The class file
+    */
+   private ClassFileReader(byte[] b)
+   {
+      this.b = b;
+      this.refClasses = new HashSet<String>();
+   }
+
+   /**
+    * Read a class file
+    * @param b The class file
+    * @return The reader
+    * @throws IOException If the class file can't be read
+    */
+   public static ClassFileReader read(byte[] b) throws IOException
+   {
+      final ClassFileReader reader = new ClassFileReader(b);
+
+      try
+      {
+         reader.parse();
+      }
+      catch (IndexOutOfBoundsException ioobe)
+      {
+         throw new IOException("Truncated class file");
+      }
+
+      return reader;
+   }
+
+   /**
+    * Get the class name
+    * @return The value
+    */
+   public String getName()
+   {
+      return name;
+   }
+
+   /**
+    * Get the major version
+    * @return The value
+    */
+   public int getMajorVersion()
+   {
+      return majorVersion;
+   }
+
+   /**
+    * Get the serialVersionUID
+    * @return The value, or <code>null</code> if the class doesn't declare one
+    */
+   public Long getSerialVersionUID()
+   {
+      return serialVersionUID;
+   }
+
+   /**
+    * Get the names of the classes referenced by the class, including the class itself
+    * @return The value
+    */
+   public Set<String> getRefClasses()
+   {
+      return refClasses;
+   }
+
+   /**
+    * Parse the class file
+    * @throws IOException If the class file can't be read
+    */
+   private void parse() throws IOException
+   {
+      if (readInt(0) != 0xCAFEBABE)
+      {
+         throw new IOException("Bad magic number");
+      }
+
+      majorVersion = u2(6);
+
+      final int count = u2(8);
+      tags = new byte[count];
+      offsets = new int[count];
+      strings = new String[count];
+
+      int pos = 10;
+      for (int i = 1; i < count; i++)
+      {
+         final int tag = b[pos] & 0xff;
+         tags[i] = (byte) tag;
+         offsets[i] = pos + 1;
+
+         switch (tag)
+         {
+            case CONSTANT_UTF8:
+               final int length = u2(pos + 1);
+               checkUtf8(pos + 3, length);
+               pos += 3 + length;
+               break;
+            case CONSTANT_INTEGER:
+            case CONSTANT_FLOAT:
+            case CONSTANT_FIELDREF:
+            case CONSTANT_METHODREF:
+            case CONSTANT_INTERFACEMETHODREF:
+            case CONSTANT_NAMEANDTYPE:
+            case CONSTANT_INVOKEDYNAMIC:
+               pos += 5;
+               break;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+               pos += 9;
+               i++;
+               break;
+            case CONSTANT_CLASS:
+            case CONSTANT_STRING:
+            case CONSTANT_METHODTYPE:
+            case CONSTANT_MODULE:
+            case CONSTANT_PACKAGE:
+               pos += 3;
+               break;
+            case CONSTANT_METHODHANDLE:
+               pos += 4;
+               break;
+            default:
+               throw new IOException("Invalid constant type: " + tag);
+         }
+      }
+
+      if (pos + 8 > b.length)
+      {
+         throw new IOException("Truncated class file");
+      }
+
+      final int thisClass = u2(pos + 2);
+      if (tag(thisClass) != CONSTANT_CLASS)
+      {
+         throw new IOException("Invalid this class: " + thisClass);
+      }
+      name = utf8(u2(offsets[thisClass])).replace('/', '.');
+
+      for (int i = 1; i < count; i++)
+      {
+         switch (tags[i])
+         {
+            case CONSTANT_CLASS:
+               final String className = utf8(u2(offsets[i]));
+               if (className.charAt(0) == '[')
+               {
+                  addDescriptor(className);
+               }
+               else
+               {
+                  addClass(className);
+               }
+               break;
+            case CONSTANT_NAMEANDTYPE:
+               addDescriptor(utf8(u2(offsets[i] + 2)));
+               break;
+            case CONSTANT_METHODTYPE:
+               addDescriptor(utf8(u2(offsets[i])));
+               break;
+            default:
+               break;
+         }
+      }
+
+      pos += 6;
+      pos += 2 + 2 * u2(pos);
+
+      boolean serialVersionUIDSeen = false;
+      final int fields = u2(pos);
+      pos += 2;
+      for (int i = 0; i < fields; i++)
+      {
+         final int access = u2(pos);
+         final String fieldName = utf8(u2(pos + 2));
+         addDescriptor(utf8(u2(pos + 4)));
+
+         constantValue = -1;
+         pos = readAttributes(pos + 6, true);
+
+         if (!serialVersionUIDSeen && SERIAL_VERSION_UID.equals(fieldName))
+         {
+            serialVersionUIDSeen = true;
+            if ((access & ACC_STATIC) != 0 && constantValue > 0)
+            {
+               if (tag(constantValue) != CONSTANT_LONG)
+               {
+                  throw new IOException("serialVersionUID is not a long");
+               }
+               final int offset = offsets[constantValue];
+               serialVersionUID = Long.valueOf(((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xffffffffL));
+            }
+         }
+      }
+
+      final int methods = u2(pos);
+      pos += 2;
+      for (int i = 0; i < methods; i++)
+      {
+         utf8(u2(pos + 2));
+         addDescriptor(utf8(u2(pos + 4)));
+         pos = readAttributes(pos + 6, false);
+      }
+
+      readAttributes(pos, false);
+   }
+
+   /**
+    * Read a list of attributes, recording the classes referenced by annotations
+    * @param pos The offset of the attribute count
+    * @param field Are these the attributes of a field
+    * @return The offset just after the attributes
+    * @throws IOException If an attribute can't be read
+    */
+   private int readAttributes(int pos, boolean field) throws IOException
+   {
+      final int count = u2(pos);
+      pos += 2;
+      for (int i = 0; i < count; i++)
+      {
+         final String attributeName = utf8(u2(pos));
+         final int length = readInt(pos + 2);
+         if (attributeName.length() == 0 || length < 0)
+         {
+            throw new IOException("Invalid attribute");
+         }
+
+         final int start = pos + 6;
+         if ("Code".equals(attributeName))
+         {
+            // The code attribute is read by its structure, not by its length
+            final int codeLength = readInt(start + 4);
+            if (codeLength < 0)
+            {
+               throw new IOException("Invalid code attribute");
+            }
+            pos = start + 8 + codeLength;
+            pos += 2 + 8 * u2(pos);
+            pos = readAttributes(pos, false);
+         }
+         else
+         {
+            pos = start + length;
+            if (pos > b.length)
+            {
+               throw new IOException("Truncated attribute: " + attributeName);
+            }
+
+            if (field && constantValue < 0 && "ConstantValue".equals(attributeName))
+            {
+               if (length < 2)
+               {
+                  throw new IOException("Invalid ConstantValue attribute");
+               }
+               constantValue = u2(start);
+            }
+            else if ("RuntimeVisibleAnnotations".equals(attributeName)
+                || "RuntimeInvisibleAnnotations".equals(attributeName))
+            {
+               new AnnotationWalker(start, pos, false).annotationArray(start);
+            }
+            else if ("RuntimeVisibleParameterAnnotations".equals(attributeName)
+                     || "RuntimeInvisibleParameterAnnotations".equals(attributeName))
+            {
+               new AnnotationWalker(start, pos, false).parameters();
+            }
+            else if ("RuntimeVisibleTypeAnnotations".equals(attributeName)
+                     || "RuntimeInvisibleTypeAnnotations".equals(attributeName))
+            {
+               new AnnotationWalker(start, pos, true).annotationArray(start);
+            }
+         }
+      }
+      return pos;
+   }
+
+   /**
+    * Record a class by its internal name
+    * @param internalName The name
+    */
+   private void addClass(String internalName)
+   {
+      refClasses.add(internalName.replace('/', '.'));
+   }
+
+   /**
+    * Record the classes of a descriptor; the descriptor is scanned the same way as
+    * Javassist's <code>Descriptor.rename()</code> does
+    * @param desc The descriptor
+    */
+   private void addDescriptor(String desc)
+   {
+      int i = 0;
+      for (;;)
+      {
+         final int j = desc.indexOf('L', i);
+         if (j < 0)
+         {
+            break;
+         }
+
+         final int k = desc.indexOf(';', j);
+         if (k < 0)
+         {
+            break;
+         }
+
+         i = k + 1;
+         addClass(desc.substring(j + 1, k));
+      }
+   }
+
+   /**
+    * Get the tag of a constant pool entry
+    * @param index The index
+    * @return The tag
+    * @throws IOException If the index is invalid
+    */
+   private int tag(int index) throws IOException
+   {
+      if (index <= 0 || index >= tags.length)
+      {
+         throw new IOException("Invalid constant pool index: " + index);
+      }
+      return tags[index];
+   }
+
+   /**
+    * Get a UTF-8 constant
+    * @param index The index
+    * @return The value
+    * @throws IOException If the constant isn't a UTF-8 constant
+    */
+   private String utf8(int index) throws IOException
+   {
+      if (tag(index) != CONSTANT_UTF8)
+      {
+         throw new IOException("Not a UTF-8 constant: " + index);
+      }
+
+      String s = strings[index];
+      if (null == s)
+      {
+         final int start = offsets[index] + 2;
+         final int end = start + u2(offsets[index]);
+         final char[] chars = new char[end - start];
+         int length = 0;
+         int pos = start;
+         while (pos < end)
+         {
+            final int c = b[pos] & 0xff;
+            if (c < 0x80)
+            {
+               chars[length++] = (char) c;
+               pos++;
+            }
+            else if ((c >> 5) == 0x06)
+            {
+               chars[length++] = (char) (((c & 0x1f) << 6) | (b[pos + 1] & 0x3f));
+               pos += 2;
+            }
+            else
+            {
+               chars[length++] = (char) (((c & 0x0f) << 12) | ((b[pos + 1] & 0x3f) << 6) | (b[pos + 2] & 0x3f));
+               pos += 3;
+            }
+         }
+         s = new String(chars, 0, length);
+         strings[index] = s;
+      }
+      return s;
+   }
+
+   /**
+    * Check that a UTF-8 constant uses the modified UTF-8 encoding of class files
+    * @param start The offset of the first byte
+    * @param length The number of bytes
+    * @throws IOException If the encoding is malformed
+    */
+   private void checkUtf8(int start, int length) throws IOException
+   {
+      final int end = start + length;
+      if (end > b.length)
+      {
+         throw new IOException("Truncated UTF-8 constant");
+      }
+
+      int pos = start;
+      while (pos < end)
+      {
+         final int c = b[pos] & 0xff;
+         switch (c >> 4)
+         {
+            case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+               pos++;
+               break;
+            case 12: case 13:
+               if (pos + 2 > end || (b[pos + 1] & 0xc0) != 0x80)
+               {
+                  throw new IOException("Malformed UTF-8 constant");
+               }
+               pos += 2;
+               break;
+            case 14:
+               if (pos + 3 > end || (b[pos + 1] & 0xc0) != 0x80 || (b[pos + 2] & 0xc0) != 0x80)
+               {
+                  throw new IOException("Malformed UTF-8 constant");
+               }
+               pos += 3;
+               break;
+            default:
+               throw new IOException("Malformed UTF-8 constant");
+         }
+      }
+   }
+
+   /**
+    * Read an unsigned short
+    * @param pos The offset
+    * @return The value
+    */
+   private int u2(int pos)
+   {
+      return ((b[pos] & 0xff) << 8) | (b[pos + 1] & 0xff);
+   }
+
+   /**
+    * Read an int
+    * @param pos The offset
+    * @return The value
+    */
+   private int readInt(int pos)
+   {
+      return ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16) | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff);
+   }
+
+   /**
+    * Walks the annotations of an annotation attribute and records the classes used
+    * as annotation types, enum types and class values
+    */
+   private class AnnotationWalker
+   {
+      /** The first byte of the attribute */
+      private final int start;
+
+      /** The end of the attribute */
+      private final int end;
+
+      /** Is this a type annotation attribute */
+      private final boolean typeAnnotations;
+
+      /**
+       * Constructor
+       * @param start The first byte of the attribute
+       * @param end The end of the attribute
+       * @param typeAnnotations Is this a type annotation attribute
+       */
+      AnnotationWalker(int start, int end, boolean typeAnnotations)
+      {
+         this.start = start;
+         this.end = end;
+         this.typeAnnotations = typeAnnotations;
+      }
+
+      /**
+       * Walk the annotations of each parameter
+       * @throws IOException If the attribute is malformed
+       */
+      void parameters() throws IOException
+      {
+         final int count = u1(start);
+         int pos = start + 1;
+         for (int i = 0; i < count; i++)
+         {
+            pos = annotationArray(pos);
+         }
+      }
+
+      /**
+       * Walk an array of annotations
+       * @param pos The offset of the array
+       * @return The offset just after the array
+       * @throws IOException If the attribute is malformed
+       */
+      int annotationArray(int pos) throws IOException
+      {
+         final int count = u2(pos, 0);
+         pos += 2;
+         for (int i = 0; i < count; i++)
+         {
+            if (typeAnnotations)
+            {
+               pos = typePath(targetInfo(pos + 1, u1(pos)));
+            }
+            pos = annotation(pos);
+         }
+         return pos;
+      }
+
+      /**
+       * Walk an annotation
+       * @param pos The offset of the annotation
+       * @return The offset just after the annotation
+       * @throws IOException If the attribute is malformed
+       */
+      int annotation(int pos) throws IOException
+      {
+         addDescriptor(utf8(u2(pos, 0)));
+         final int pairs = u2(pos, 2);
+         pos += 4;
+         for (int i = 0; i < pairs; i++)
+         {
+            pos = memberValue(pos + 2);
+         }
+         return pos;
+      }
+
+      /**
+       * Walk an element value
+       * @param pos The offset of the value
+       * @return The offset just after the value
+       * @throws IOException If the attribute is malformed
+       */
+      int memberValue(int pos) throws IOException
+      {
+         final int tag = u1(pos);
+         if (tag == 'e' || tag == 'c')
+         {
+            addDescriptor(utf8(u2(pos, 1)));
+            if (tag == 'e')
+            {
+               u2(pos, 3);
+               return pos + 5;
+            }
+            return pos + 3;
+         }
+         else if (tag == '@')
+         {
+            return annotation(pos + 1);
+         }
+         else if (tag == '[')
+         {
+            final int count = u2(pos, 1);
+            pos += 3;
+            for (int i = 0; i < count; i++)
+            {
+               pos = memberValue(pos);
+            }
+            return pos;
+         }
+         u2(pos, 1);
+         return pos + 3;
+      }
+
+      /**
+       * Skip the target of a type annotation
+       * @param pos The offset of the target
+       * @param type The target type
+       * @return The offset just after the target
+       * @throws IOException If the attribute is malformed
+       */
+      int targetInfo(int pos, int type) throws IOException
+      {
+         switch (type)
+         {
+            case 0x00: case 0x01: case 0x16:
+               u1(pos);
+               return pos + 1;
+            case 0x10: case 0x17: case 0x42:
+            case 0x43: case 0x44: case 0x45: case 0x46:
+               u2(pos, 0);
+               return pos + 2;
+            case 0x11: case 0x12:
+               u1(pos + 1);
+               return pos + 2;
+            case 0x13: case 0x14: case 0x15:
+               return pos;
+            case 0x40: case 0x41:
+               final int length = u2(pos, 0);
+               pos += 2 + 6 * length;
+               if (length > 0)
+               {
+                  u1(pos - 1);
+               }
+               return pos;
+            case 0x47: case 0x48: case 0x49: case 0x4a: case 0x4b:
+               u1(pos + 2);
+               return pos + 3;
+            default:
+               throw new IOException("Invalid target type: " + type);
+         }
+      }
+
+      /**
+       * Skip the type path of a type annotation
+       * @param pos The offset of the type path
+       * @return The offset just after the type path
+       * @throws IOException If the attribute is malformed
+       */
+      int typePath(int pos) throws IOException
+      {
+         final int length = u1(pos);
+         pos += 1 + 2 * length;
+         if (length > 0)
+         {
+            u1(pos - 1);
+         }
+         return pos;
+      }
+
+      /**
+       * Read an unsigned byte of the attribute
+       * @param pos The offset
+       * @return The value
+       * @throws IOException If the offset is outside of the attribute
+       */
+      int u1(int pos) throws IOException
+      {
+         if (pos < start || pos >= end)
+         {
+            throw new IOException("Malformed annotation attribute");
+         }
+         return b[pos] & 0xff;
+      }
+
+      /**
+       * Read an unsigned short of the attribute
+       * @param pos The offset
+       * @param delta The distance from the offset
+       * @return The value
+       * @throws IOException If the value is outside of the attribute
+       */
+      int u2(int pos, int delta) throws IOException
+      {
+         pos += delta;
+         if (pos < start || pos + 2 > end)
+         {
+            throw new IOException("Malformed annotation attribute");
+         }
+         return ClassFileReader.this.u2(pos);
+      }
+   }
+}
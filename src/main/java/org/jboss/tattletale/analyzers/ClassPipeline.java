@@ -0,0 +1,246 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.profiles.ProfileIndex;
+
+/**
+ * The stages between reading an archive and assembling its data. The scanner reads
+ * the bytes of the class entries. Once an archive has more classes than the
+ * threshold, its classes are split into chunks, a pool of parser workers parses
+ * each chunk into a partial result, and the scanner merges the partial results in
+ * entry order. The number of chunks of an archive that are read but not merged yet
+ * is bounded, so a reader that gets ahead of the parsers waits instead of buffering
+ * the whole archive. Smaller archives are parsed on the reading thread.
+ */
+public class ClassPipeline
+{
+   /** Parse each class on the reading thread */
+   public static final ClassPipeline INLINE = new ClassPipeline(null, 1, 0);
+
+   /** The number of classes in a chunk */
+   private static final int CHUNK_SIZE = 256;
+
+   /** The parser workers; null if classes are parsed on the reading thread */
+   private final ExecutorService parsers;
+
+   /** The maximum number of chunks per archive that are read but not merged yet */
+   private final int window;
+
+   /** The number of classes from which an archive is parsed in parallel */
+   private final int threshold;
+
+   /**
+    * Constructor
+    * @param parsers   The parser workers; <code>null</code> to parse on the reading thread
+    * @param window    The maximum number of chunks per archive that are read but not merged yet
+    * @param threshold The number of classes from which an archive is parsed in parallel
+    */
+   public ClassPipeline(ExecutorService parsers, int window, int threshold)
+   {
+      this.parsers = parsers;
+      this.window = Math.max(1, window);
+      this.threshold = Math.max(1, threshold);
+   }
+
+   /**
+    * Start the classes of an archive
+    * @param results     The results of the archive
+    * @param known       The known profiles; <code>null</code> if none
+    * @param blacklisted The black listed packages; <code>null</code> if none
+    * @return The stage
+    */
+   Stage open(ClassResults results, ProfileIndex known, PrefixTrie blacklisted)
+   {
+      return new Stage(results, known, blacklisted);
+   }
+
+   /**
+    * The classes of one archive on their way from the reader to the results
+    */
+   class Stage
+   {
+      /** The results */
+      private final ClassResults results;
+
+      /** The known profiles */
+      private final ProfileIndex known;
+
+      /** The black listed packages */
+      private final PrefixTrie blacklisted;
+
+      /** The classes read but not submitted yet */
+      private List<byte[]> chunk;
+
+      /** Is the archive parsed in parallel */
+      private boolean parallel;
+
+      /** The partial results being parsed, in entry order */
+      private final LinkedList<Future<ClassResults>> queue;
+
+      /**
+       * Constructor
+       * @param results     The results
+       * @param known       The known profiles
+       * @param blacklisted The black listed packages
+       */
+      Stage(ClassResults results, ProfileIndex known, PrefixTrie blacklisted)
+      {
+         this.results = results;
+         this.known = known;
+         this.blacklisted = blacklisted;
+         this.chunk = new ArrayList<byte[]>();
+         this.parallel = false;
+         this.queue = new LinkedList<Future<ClassResults>>();
+      }
+
+      /**
+       * Add the next class of the archive. Waits for the oldest chunk to be parsed
+       * and merges it if the window is full.
+       * @param data The bytes of the class file
+       * @throws InterruptedException If interrupted while waiting
+       */
+      void submit(byte[] data) throws InterruptedException
+      {
+         if (null == parsers)
+         {
+            add(results, data);
+            return;
+         }
+
+         chunk.add(data);
+
+         if (chunk.size() >= (parallel ? CHUNK_SIZE : threshold))
+         {
+            parallel = true;
+            flush();
+         }
+      }
+
+      /**
+       * Add the classes that are still being parsed
+       * @throws InterruptedException If interrupted while waiting
+       */
+      void finish() throws InterruptedException
+      {
+         if (parallel)
+         {
+            flush();
+            while (!queue.isEmpty())
+            {
+               mergeNext();
+            }
+         }
+         else
+         {
+            for (byte[] data : chunk)
+            {
+               add(results, data);
+            }
+            chunk.clear();
+         }
+      }
+
+      /**
+       * Submit the classes read so far, in chunks
+       * @throws InterruptedException If interrupted while waiting
+       */
+      private void flush() throws InterruptedException
+      {
+         for (int i = 0; i < chunk.size(); i += CHUNK_SIZE)
+         {
+            if (queue.size() >= window)
+            {
+               mergeNext();
+            }
+
+            final List<byte[]> classes = chunk.subList(i, Math.min(chunk.size(), i + CHUNK_SIZE));
+            queue.add(parsers.submit(new Callable<ClassResults>()
+            {
+               public ClassResults call()
+               {
+                  final ClassResults partial = new ClassResults();
+                  for (byte[] data : classes)
+                  {
+                     add(partial, data);
+                  }
+                  return partial;
+               }
+            }));
+         }
+         chunk = new ArrayList<byte[]>();
+      }
+
+      /**
+       * Wait for the oldest chunk to be parsed and merge it
+       * @throws InterruptedException If interrupted while waiting
+       */
+      private void mergeNext() throws InterruptedException
+      {
+         try
+         {
+            results.merge(queue.removeFirst().get());
+         }
+         catch (ExecutionException ee)
+         {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException)
+            {
+               throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+               throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+         }
+      }
+
+      /**
+       * Parse a class file and add it to results; a class file that can't be read
+       * is reported and skipped
+       * @param target The results
+       * @param data   The bytes of the class file
+       */
+      private void add(ClassResults target, byte[] data)
+      {
+         try
+         {
+            target.add(ParsedClass.parse(data), known, blacklisted);
+         }
+         catch (IOException ioe)
+         {
+            ioe.printStackTrace();
+         }
+      }
+   }
+}
@@ -0,0 +1,183 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.profiles.ProfileIndex;
+
+/**
+ * The data collected from the classes of an archive, or of a consecutive part of
+ * them. Classes, and the results of the parts, are added in entry order, so that the
+ * class version is the one of the first class.
+ */
+class ClassResults
+{
+   /** The version of the first class; null if none */
+   private Integer classVersion;
+
+   /** The requires */
+   private final SortedSet<String> requires = new TreeSet<String>();
+
+   /** The provides */
+   private final SortedMap<String, Long> provides = new TreeMap<String, Long>();
+
+   /** The profiles */
+   private final SortedSet<String> profiles = new TreeSet<String>();
+
+   /** The class dependencies */
+   private final SortedMap<String, SortedSet<String>> classDependencies = new TreeMap<String, SortedSet<String>>();
+
+   /** The package dependencies */
+   private final SortedMap<String, SortedSet<String>> packageDependencies = new TreeMap<String, SortedSet<String>>();
+
+   /** The blacklisted dependencies */
+   private final SortedMap<String, SortedSet<String>> blacklistedDependencies =
+      new TreeMap<String, SortedSet<String>>();
+
+   /** Constructor */
+   ClassResults()
+   {
+      classVersion = null;
+   }
+
+   /**
+    * Add a class
+    * @param clz         The class
+    * @param known       The known profiles; <code>null</code> if none
+    * @param blacklisted The black listed packages; <code>null</code> if none
+    */
+   void add(ParsedClass clz, ProfileIndex known, PrefixTrie blacklisted)
+   {
+      classVersion = AbstractScanner.addClass(clz, blacklisted, known, classVersion, provides, requires, profiles,
+                                              classDependencies, packageDependencies, blacklistedDependencies);
+   }
+
+   /**
+    * Add the results of the classes that follow the ones added so far
+    * @param partial The results
+    */
+   void merge(ClassResults partial)
+   {
+      if (null == classVersion)
+      {
+         classVersion = partial.classVersion;
+      }
+
+      provides.putAll(partial.provides);
+      requires.addAll(partial.requires);
+      profiles.addAll(partial.profiles);
+      merge(classDependencies, partial.classDependencies);
+      merge(packageDependencies, partial.packageDependencies);
+      merge(blacklistedDependencies, partial.blacklistedDependencies);
+   }
+
+   /**
+    * Get the version of the first class
+    * @return The value; <code>null</code> if there are no classes
+    */
+   Integer getClassVersion()
+   {
+      return classVersion;
+   }
+
+   /**
+    * Get the requires
+    * @return The value
+    */
+   SortedSet<String> getRequires()
+   {
+      return requires;
+   }
+
+   /**
+    * Get the provides
+    * @return The value
+    */
+   SortedMap<String, Long> getProvides()
+   {
+      return provides;
+   }
+
+   /**
+    * Get the profiles
+    * @return The value
+    */
+   SortedSet<String> getProfiles()
+   {
+      return profiles;
+   }
+
+   /**
+    * Get the class dependencies
+    * @return The value
+    */
+   SortedMap<String, SortedSet<String>> getClassDependencies()
+   {
+      return classDependencies;
+   }
+
+   /**
+    * Get the package dependencies
+    * @return The value
+    */
+   SortedMap<String, SortedSet<String>> getPackageDependencies()
+   {
+      return packageDependencies;
+   }
+
+   /**
+    * Get the blacklisted dependencies
+    * @return The value
+    */
+   SortedMap<String, SortedSet<String>> getBlacklistedDependencies()
+   {
+      return blacklistedDependencies;
+   }
+
+   /**
+    * Add dependencies to a dependency map
+    * @param dependencies The dependency map
+    * @param partial      The dependencies to add
+    */
+   private static void merge(SortedMap<String, SortedSet<String>> dependencies,
+                             SortedMap<String, SortedSet<String>> partial)
+   {
+      for (Map.Entry<String, SortedSet<String>> entry : partial.entrySet())
+      {
+         final SortedSet<String> ss = dependencies.get(entry.getKey());
+         if (null == ss)
+         {
+            dependencies.put(entry.getKey(), entry.getValue());
+         }
+         else
+         {
+            ss.addAll(entry.getValue());
+         }
+      }
+   }
+}
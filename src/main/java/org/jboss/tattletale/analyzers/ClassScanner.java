@@ -26,16 +26,14 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
-import java.util.TreeSet;
 
 import org.jboss.tattletale.core.Archive;
-import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.ProfileIndex;
 
 /**
  * ClassScanner scans individual class files and collects the scan results
@@ -51,27 +49,11 @@ public class ClassScanner extends AbstractScanner
    /** Field validate */
    private boolean validate = false;
 
-   /** Field classVersion. */
-   private Integer classVersion = null;
+   /** The results */
+   private final ClassResults results = new ClassResults();
 
-   /** Field requires. */
-   private final SortedSet<String> requires = new TreeSet<String>();
-
-   /** Field provides. */
-   private final SortedMap<String, Long> provides = new TreeMap<String, Long>();
-
-   /** Field profiles. */
-   private final SortedSet<String> profiles = new TreeSet<String>();
-
-   /** Field classDependencies. */
-   private final SortedMap<String, SortedSet<String>> classDependencies = new TreeMap<String, SortedSet<String>>();
-
-   /** Field packageDependencies. */
-   private final SortedMap<String, SortedSet<String>> packageDependencies = new TreeMap<String, SortedSet<String>>();
-
-   /** Field blacklistedDependencies. */
-   private final SortedMap<String, SortedSet<String>> blacklistedDependencies =
-           new TreeMap<String, SortedSet<String>>();
+   /** The stage parsing the classes submitted; null if none */
+   private ClassPipeline.Stage stage = null;
 
    /**
     * Constructor
@@ -102,7 +84,7 @@ public class ClassScanner extends AbstractScanner
     */
    public Archive scan(File file) throws IOException
    {
-      return scan(file, null, null, null);
+      return scan(file, null, null, null, null);
    }
 
    /**
@@ -110,13 +92,14 @@ public class ClassScanner extends AbstractScanner
     * @param file        The file
     * @param gProvides   The global provides map (ignored)
     * @param known       The set of known archives
-    * @param blacklisted The set of black listed packages   
+    * @param blacklisted The black listed packages   
+    * @param symbols     The table the names are interned into (ignored)
     * @return The archive (always null)
     * @throws IOException rethrown from scanClasses() or when file URL does not match location
-    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, List, Set)
+    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, ProfileIndex, PrefixTrie, Symbols)
     */
    public Archive scan(File file, Map<String, SortedSet<String>> gProvides,
-                       List<Profile> known, Set<String> blacklisted) throws IOException
+                       ProfileIndex known, PrefixTrie blacklisted, Symbols symbols) throws IOException
    {
       final String filename = file.getName();
       if (validate && !filename.matches(".*" + location + ".*"))
@@ -153,19 +136,48 @@ public class ClassScanner extends AbstractScanner
     * Scan a class stream
     * @param stream      The stream
     * @param known       The set of known archives
-    * @param blacklisted The set of black listed packages
+    * @param blacklisted The black listed packages
     * @return class version
     * @throws IOException rethrown from scanClasses()
     */
-   public int scan(InputStream stream, List<Profile> known, Set<String> blacklisted) throws IOException
+   public int scan(InputStream stream, ProfileIndex known, PrefixTrie blacklisted) throws IOException
+   {
+      results.add(ParsedClass.parse(readClass(stream)), known, blacklisted);
+      results.getRequires().removeAll(results.getProvides().keySet());
+      return results.getClassVersion();
+   }
+
+   /**
+    * Submit a class stream to the class pipeline; the results are complete after
+    * {@link #finish()}
+    * @param stream      The stream
+    * @param known       The set of known archives
+    * @param blacklisted The black listed packages
+    * @throws IOException If the stream can't be read
+    * @throws InterruptedException If interrupted while waiting for the pipeline
+    */
+   void submit(InputStream stream, ProfileIndex known, PrefixTrie blacklisted)
+      throws IOException, InterruptedException
+   {
+      if (null == stage)
+      {
+         stage = getClassPipeline().open(results, known, blacklisted);
+      }
+      stage.submit(readClass(stream));
+   }
+
+   /**
+    * Complete the classes submitted to the class pipeline
+    * @throws InterruptedException If interrupted while waiting for the pipeline
+    */
+   void finish() throws InterruptedException
    {
-      classVersion = scanClasses(stream, blacklisted, known, classVersion, provides, requires,
-                                 profiles, classDependencies, packageDependencies, blacklistedDependencies);
-      for (String provide : provides.keySet())
+      if (null != stage)
       {
-         requires.remove(provide);
+         stage.finish();
+         stage = null;
       }
-      return classVersion;
+      results.getRequires().removeAll(results.getProvides().keySet());
    }
 
    /**
@@ -174,7 +186,7 @@ public class ClassScanner extends AbstractScanner
     */
    public SortedMap<String, SortedSet<String>> getBlacklistedDependencies()
    {
-      return blacklistedDependencies;
+      return results.getBlacklistedDependencies();
    }
 
    /**
@@ -183,7 +195,7 @@ public class ClassScanner extends AbstractScanner
     */
    public SortedMap<String, SortedSet<String>> getClassDependencies()
    {
-      return classDependencies;
+      return results.getClassDependencies();
    }
 
    /**
@@ -192,7 +204,7 @@ public class ClassScanner extends AbstractScanner
     */
    public int getClassVersion()
    {
-      return classVersion;
+      return results.getClassVersion();
    }
 
    /**
@@ -219,7 +231,7 @@ public class ClassScanner extends AbstractScanner
     */
    public SortedMap<String, SortedSet<String>> getPackageDependencies()
    {
-      return packageDependencies;
+      return results.getPackageDependencies();
    }
 
    /**
@@ -228,7 +240,7 @@ public class ClassScanner extends AbstractScanner
     */
    public SortedSet<String> getProfiles()
    {
-      return profiles;
+      return results.getProfiles();
    }
 
    /**
@@ -237,7 +249,7 @@ public class ClassScanner extends AbstractScanner
     */
    public SortedMap<String, Long> getProvides()
    {
-      return provides;
+      return results.getProvides();
    }
 
    /**
@@ -246,6 +258,6 @@ public class ClassScanner extends AbstractScanner
     */
    public SortedSet<String> getRequires()
    {
-      return requires;
+      return results.getRequires();
    }
 }
@@ -28,35 +28,46 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
- * Directory scanner
+ * Directory scanner. With an executor the subdirectories are listed in parallel,
+ * and each archive can be handed to a listener as soon as it is found, so that
+ * scanning starts before the walk finishes.
  *
  * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
  */
 public class DirectoryScanner
 {
    /** Archive types that should be scanned */
-   private static final Set<String> ARCHIVES = new HashSet<String>();
+   private final Set<String> archives;
 
-   static
+   /**
+    * Receives the archives found by a walk
+    */
+   public interface Listener
    {
-      ARCHIVES.add(".jar");
-      ARCHIVES.add(".war");
+      /**
+       * An archive was found; called from the walking threads
+       * @param file The archive
+       */
+      void found(File file);
    }
 
    /** Constructor */
-   private DirectoryScanner()
+   public DirectoryScanner()
    {
+      this(null);
    }
 
    /**
-    * Set archives
-    * @param scan The archives
+    * Constructor
+    * @param scan The archive types that should be scanned, e.g. <code>*.jar, *.war</code>;
+    *             <code>null</code> for JAR and WAR files
     */
-   public static void setArchives(String scan)
+   public DirectoryScanner(String scan)
    {
-      ARCHIVES.clear();
+      archives = new HashSet<String>();
 
       if (null != scan)
       {
@@ -67,14 +78,14 @@ public class DirectoryScanner
                token = token.substring(1);
             }
 
-            ARCHIVES.add(token.toLowerCase(Locale.US));
+            archives.add(token.toLowerCase(Locale.US));
          }
       }
 
-      if (ARCHIVES.isEmpty())
+      if (archives.isEmpty())
       {
-         ARCHIVES.add(".jar");
-         ARCHIVES.add(".war");
+         archives.add(".jar");
+         archives.add(".war");
       }
    }
 
@@ -83,7 +94,7 @@ public class DirectoryScanner
     * @param file The root directory
     * @return The list of JAR files
     */
-   public static List<File> scan(File file)
+   public List<File> scan(File file)
    {
       return scan(file, null);
    }
@@ -94,82 +105,255 @@ public class DirectoryScanner
     * @param excludes The set of excludes
     * @return The list of files
     */
-   public static List<File> scan(File file, Set<String> excludes)
+   public List<File> scan(File file, Set<String> excludes)
    {
-      return getFileListing(file, excludes);
+      final Walk walk = new Walk(excludes, null, null);
+      walk.list(file);
+      return walk.getResult();
    }
 
    /**
-    * Recursively walk a directory tree and return a List of all Files found;
-    * the List is sorted using File.compareTo().
-    * @param aStartingDir is a valid directory, which can be read.
-    * @param excludes     The set of excludes
-    * @return The list of the files without the specific exclusions
+    * Scan a directory for JAR files, listing subdirectories in parallel
+    * @param file     The root directory
+    * @param excludes The set of excludes
+    * @param executor The executor listing the subdirectories; <code>null</code> to list them
+    *                 on the calling thread
+    * @param listener The listener for the files found; may be <code>null</code>
+    * @return The list of files, sorted using File.compareTo()
+    * @throws InterruptedException If interrupted while waiting for the walk
     */
-   private static List<File> getFileListing(File aStartingDir, Set<String> excludes)
+   public List<File> scan(File file, Set<String> excludes, ExecutorService executor, Listener listener)
+      throws InterruptedException
    {
-      final List<File> result = getFileListingNoSort(aStartingDir, excludes);
-      Collections.sort(result);
-      return result;
+      final Walk walk = new Walk(excludes, executor, listener);
+      if (null == executor)
+      {
+         walk.list(file);
+      }
+      else
+      {
+         walk.submit(file);
+         walk.await();
+      }
+      return walk.getResult();
    }
 
    /**
-    * Method getFileListingNoSort.
-    * @param aStartingDir File
-    * @param excludes Set<String>
-    * @return List<File>
+    * Is a file an archive that should be scanned
+    * @param file     The file
+    * @param excludes The set of excludes
+    * @return True if the file should be scanned; otherwise false
     */
-   private static List<File> getFileListingNoSort(File aStartingDir, Set<String> excludes)
+   private boolean include(File file, Set<String> excludes)
    {
-      final File[] filesAndDirs = aStartingDir.listFiles();
+      final String name = file.getName();
+      final int dot = name.lastIndexOf('.');
 
-      if (filesAndDirs == null)
+      if (-1 == dot || !archives.contains(name.substring(dot)))
       {
-         return Collections.emptyList();
+         return false;
       }
 
-      final List<File> result = new ArrayList<File>();
+      if (null != excludes)
+      {
+         for (String exclude : excludes)
+         {
+            if (name.equals(exclude) || file.getAbsolutePath().contains(exclude))
+            {
+               return false;
+            }
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * A walk over a directory tree
+    */
+   private class Walk
+   {
+      /** The set of excludes */
+      private final Set<String> excludes;
+
+      /** The executor; null if the walk runs on the calling thread */
+      private final ExecutorService executor;
+
+      /** The listener; may be null */
+      private final Listener listener;
+
+      /** The files found */
+      private final List<File> result;
+
+      /** The number of directories submitted but not listed yet */
+      private int pending;
+
+      /** The first failure */
+      private RuntimeException failure;
+
+      /** The first error */
+      private Error error;
 
-      for (File file : filesAndDirs)
+      /**
+       * Constructor
+       * @param excludes The set of excludes
+       * @param executor The executor; <code>null</code> if the walk runs on the calling thread
+       * @param listener The listener; may be <code>null</code>
+       */
+      Walk(Set<String> excludes, ExecutorService executor, Listener listener)
       {
-         if (file.isFile())
+         this.excludes = excludes;
+         this.executor = executor;
+         this.listener = listener;
+         this.result = new ArrayList<File>();
+      }
+
+      /**
+       * List a directory: report the archives it holds and walk its subdirectories
+       * @param directory The directory
+       */
+      void list(File directory)
+      {
+         final File[] filesAndDirs = directory.listFiles();
+
+         if (null == filesAndDirs)
          {
-            String extension = null;
+            return;
+         }
 
-            if (file.getName().lastIndexOf('.') != -1)
+         for (File file : filesAndDirs)
+         {
+            if (file.isFile())
             {
-               extension = file.getName().substring(file.getName().lastIndexOf('.'));
+               if (include(file, excludes))
+               {
+                  synchronized (this)
+                  {
+                     result.add(file);
+                  }
+
+                  if (null != listener)
+                  {
+                     listener.found(file);
+                  }
+               }
             }
+            else if (file.isDirectory())
+            {
+               if (null != executor)
+               {
+                  submit(file);
+               }
+               else
+               {
+                  list(file);
+               }
+            }
+         }
+      }
 
-            if (null != extension && ARCHIVES.contains(extension))
+      /**
+       * List a directory on the executor; nothing is submitted once a listing has failed
+       * @param directory The directory
+       */
+      void submit(final File directory)
+      {
+         synchronized (this)
+         {
+            if (null != failure || null != error)
             {
-               boolean include = true;
+               return;
+            }
+            pending++;
+         }
 
-               if (null != excludes)
+         try
+         {
+            executor.execute(new Runnable()
+            {
+               public void run()
                {
-                  for (String exclude : excludes)
+                  try
+                  {
+                     list(directory);
+                  }
+                  catch (RuntimeException re)
+                  {
+                     fail(re, null);
+                  }
+                  catch (Error e)
                   {
-                     if (file.getName().equals(exclude) || file.getAbsolutePath().contains(exclude))
-                     {
-                        include = false;
-                        break;
-                     }
+                     fail(null, e);
+                  }
+                  finally
+                  {
+                     done();
                   }
                }
+            });
+         }
+         catch (RuntimeException re)
+         {
+            fail(re, null);
+            done();
+         }
+      }
 
-               if (include)
-               {
-                  result.add(file);
-               }
-            }
+      /**
+       * Record that a submitted directory has been listed
+       */
+      synchronized void done()
+      {
+         pending--;
+         notifyAll();
+      }
+
+      /**
+       * Wait for all submitted directories to be listed. The first failure is only
+       * thrown once no listing is running any more, so nothing is added to the result
+       * or submitted to the executor afterwards.
+       * @throws InterruptedException If interrupted while waiting
+       */
+      synchronized void await() throws InterruptedException
+      {
+         while (pending > 0)
+         {
+            wait();
+         }
+
+         if (null != error)
+         {
+            throw error;
+         }
+
+         if (null != failure)
+         {
+            throw failure;
          }
-         else if (file.isDirectory())
+      }
+
+      /**
+       * Record the first failure of a directory listing
+       * @param re The exception; may be <code>null</code>
+       * @param e  The error; may be <code>null</code>
+       */
+      synchronized void fail(RuntimeException re, Error e)
+      {
+         if (null == failure && null == error)
          {
-            List<File> deeperList = getFileListingNoSort(file, excludes);
-            result.addAll(deeperList);
+            failure = re;
+            error = e;
          }
       }
 
-      return result;
+      /**
+       * Get the files found
+       * @return The files, sorted using File.compareTo()
+       */
+      synchronized List<File> getResult()
+      {
+         Collections.sort(result);
+         return result;
+      }
    }
 }
@@ -28,17 +28,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,7 +44,9 @@ import org.jboss.tattletale.core.ClassesArchive;
 import org.jboss.tattletale.core.EarArchive;
 import org.jboss.tattletale.core.JarArchive;
 import org.jboss.tattletale.core.Location;
-import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.ProfileIndex;
 
 /**
  * Scanner for .ear files.
@@ -125,7 +123,7 @@ public class EarScanner extends AbstractScanner
     */
    public Archive scan(File ear)
    {
-      return this.scan(ear, null, null, null);
+      return this.scan(ear, null, null, null, new Symbols());
    }
 
    /**
@@ -133,12 +131,13 @@ public class EarScanner extends AbstractScanner
     * @param ear         The ear file
     * @param gProvides   The global provides map
     * @param known       The set of known archives
-    * @param blacklisted The set of black listed packages
+    * @param blacklisted The black listed packages
+    * @param symbols     The table the names are interned into
     * @return The archive
-    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, List, Set)
+    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, ProfileIndex, PrefixTrie, Symbols)
     */
-   public Archive scan(File ear, Map<String, SortedSet<String>> gProvides, List<Profile> known,
-                       Set<String> blacklisted)
+   public Archive scan(File ear, Map<String, SortedSet<String>> gProvides, ProfileIndex known,
+                       PrefixTrie blacklisted, Symbols symbols)
    {
       if (null == ear || !ear.exists())
       {
@@ -147,28 +146,26 @@ public class EarScanner extends AbstractScanner
 
       EarArchive earArchive = null;
       final List<Archive> subArchiveList = new ArrayList<Archive>();
-      final ArchiveScanner jarScanner = new JarScanner();
-      final ArchiveScanner warScanner = (null == bundlePattern) ? new WarScanner(extractPattern) :
+      final JarScanner jarScanner = new JarScanner();
+      jarScanner.setClassPipeline(getClassPipeline());
+      final WarScanner warScanner = (null == bundlePattern) ? new WarScanner(extractPattern) :
           new WarScanner(extractPattern, pattern);
-      JarFile earFile = null;
+      warScanner.setClassPipeline(getClassPipeline());
+      final Pattern extract = compileExtractPattern(extractPattern);
+      ArchiveInput input = null;
       final String name = ear.getName();
       try
       {
-         final Extractor xt = new Extractor(ear, extractPattern);
-         xt.extract();
-         earFile = xt.getArchive();
-         final File extractedDir = xt.getTarget();
+         final String canonicalPath = ear.getCanonicalPath();
+         input = ArchiveInput.open(ear);
 
          Integer classVersion = null;
          List<String> lSign = null;
          final Map<String, ClassScanner> classBundles = new HashMap<String, ClassScanner>();
+         ClassScanner lastBundle = null;
 
-         final Enumeration<JarEntry> earEntries = earFile.entries();
-
-         while (earEntries.hasMoreElements())
+         for (String entryName; (entryName = input.nextEntry()) != null;)
          {
-            JarEntry earEntry = earEntries.nextElement();
-            String entryName = earEntry.getName();
             InputStream entryStream = null;
 
             if (entryName.endsWith(".class"))
@@ -184,13 +181,18 @@ public class EarScanner extends AbstractScanner
                   bundleName = "unmatched_" + name;
                }
 
-               ClassScanner cs = (!classBundles.isEmpty() && classBundles.containsKey(bundleName)) ?
-                   classBundles.get(bundleName) : new ClassScanner(bundleName);
+               ClassScanner cs = classBundles.get(bundleName);
+               if (null == cs)
+               {
+                  cs = new ClassScanner(bundleName);
+                  cs.setClassPipeline(getClassPipeline());
+               }
 
                try
                {
-                  entryStream = earFile.getInputStream(earEntry);
-                  classVersion = cs.scan(entryStream, known, blacklisted);
+                  entryStream = input.getInputStream();
+                  cs.submit(entryStream, known, blacklisted);
+                  lastBundle = cs;
                }
                catch (IOException openException)
                {
@@ -211,7 +213,7 @@ public class EarScanner extends AbstractScanner
                InputStream is = null;
                try
                {
-                  is = earFile.getInputStream(earEntry);
+                  is = input.getInputStream();
 
                   InputStreamReader isr = new InputStreamReader(is);
                   LineNumberReader lnr = new LineNumberReader(isr);
@@ -245,29 +247,63 @@ public class EarScanner extends AbstractScanner
                   }
                }
             }
-            else if (entryName.endsWith(".jar"))
+            else if (entryName.endsWith(".jar") && extract.matcher(entryName).matches())
             {
-               File jarFile = new File(extractedDir.getCanonicalPath(), entryName);
-               Archive jarArchive = jarScanner.scan(jarFile, gProvides, known, blacklisted);
-               if (null != jarArchive)
+               try
+               {
+                  entryStream = input.getInputStream();
+                  String jarPath = getNestedPath(canonicalPath, entryName);
+                  Archive jarArchive = jarScanner.scan(entryStream, jarPath, gProvides, known, blacklisted, symbols);
+                  if (null != jarArchive)
+                  {
+                     subArchiveList.add(jarArchive);
+                  }
+               }
+               finally
                {
-                  subArchiveList.add(jarArchive);
+                  if (null != entryStream)
+                  {
+                     entryStream.close();
+                  }
                }
             }
-            else if (entryName.endsWith(".war") || entryName.endsWith(".rar"))
+            else if ((entryName.endsWith(".war") || entryName.endsWith(".rar"))
+                     && extract.matcher(entryName).matches())
             {
-               File warFile = new File(extractedDir.getCanonicalPath(), entryName);
-               Archive warArchive = warScanner.scan(warFile, gProvides, known, blacklisted);
-               if (null != warArchive)
+               try
+               {
+                  entryStream = input.getInputStream();
+                  String warPath = getNestedPath(canonicalPath, entryName);
+                  Archive warArchive = warScanner.scan(entryStream, warPath, gProvides, known, blacklisted, symbols);
+                  if (null != warArchive)
+                  {
+                     subArchiveList.add(warArchive);
+                  }
+               }
+               finally
                {
-                  subArchiveList.add(warArchive);
+                  if (null != entryStream)
+                  {
+                     entryStream.close();
+                  }
                }
             }
          }
 
+         for (ClassScanner cs : classBundles.values())
+         {
+            cs.finish();
+         }
+
+         // The class version of the bundle of the last class
+         if (null != lastBundle)
+         {
+            classVersion = lastBundle.getClassVersion();
+         }
+
          String version = null;
          List<String> lManifest = null;
-         final Manifest manifest = earFile.getManifest();
+         final Manifest manifest = input.getManifest();
 
          if (null != manifest)
          {
@@ -284,7 +320,7 @@ public class EarScanner extends AbstractScanner
 
          for (ClassScanner cs : classBundles.values())
          {
-            final Location location = new Location(ear.getCanonicalPath() + cs.getLocation(), version);
+            final Location location = new Location(canonicalPath + cs.getLocation(), version);
             if (placeholderClasses)
             {
                // ClassesArchive is a placeholder that is excluded from analysis
@@ -293,7 +329,7 @@ public class EarScanner extends AbstractScanner
                                                                         cs.getRequires(), cs.getProvides(),
                                                                         cs.getClassDependencies(),
                                                                         cs.getPackageDependencies(),
-                                                                        cs.getBlacklistedDependencies(), location);
+                                                                        cs.getBlacklistedDependencies(), location, symbols);
                subArchiveList.add(classesArchive);
             }
             else
@@ -302,7 +338,7 @@ public class EarScanner extends AbstractScanner
                                                                 cs.getRequires(), cs.getProvides(),
                                                                 cs.getClassDependencies(),
                                                                 cs.getPackageDependencies(),
-                                                                cs.getBlacklistedDependencies(), location);
+                                                                cs.getBlacklistedDependencies(), location, symbols);
                subArchiveList.add(classesArchive);
             }
 
@@ -363,7 +399,7 @@ public class EarScanner extends AbstractScanner
 
          earArchive = new EarArchive(name, classVersion, lManifest, lSign, requires, provides,
                                      classDependencies, packageDependencies, blacklistedDependencies,
-                                     new Location(ear.getCanonicalPath(), version), subArchiveList);
+                                     new Location(canonicalPath, version), subArchiveList, symbols);
          super.addProfilesToArchive(earArchive, profiles);
       }
       catch (IOException ioe)
@@ -371,13 +407,17 @@ public class EarScanner extends AbstractScanner
          System.err.println("Scan: " + ioe.getMessage());
          ioe.printStackTrace(System.err);
       }
+      catch (InterruptedException ie)
+      {
+         Thread.currentThread().interrupt();
+      }
       finally
       {
          try
          {
-            if (null != earFile)
+            if (null != input)
             {
-               earFile.close();
+               input.close();
             }
          }
          catch (IOException ioe)
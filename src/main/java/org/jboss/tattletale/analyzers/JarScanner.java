@@ -27,22 +27,19 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
 import org.jboss.tattletale.core.Archive;
 import org.jboss.tattletale.core.JarArchive;
 import org.jboss.tattletale.core.Location;
-import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.ProfileIndex;
 
 /**
  * Java archive scanner
@@ -60,7 +57,7 @@ public class JarScanner extends AbstractScanner
     */
    public Archive scan(File file)
    {
-      return scan(file, null, null, null);
+      return scan(file, null, null, null, new Symbols());
    }
 
    /**
@@ -68,42 +65,109 @@ public class JarScanner extends AbstractScanner
     * @param file        The file
     * @param gProvides   The global provides map
     * @param known       The set of known archives
-    * @param blacklisted The set of black listed packages
+    * @param blacklisted The black listed packages
+    * @param symbols     The table the names are interned into
     * @return The archive
-    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, List, Set)
+    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, ProfileIndex, PrefixTrie, Symbols)
     */
-   public Archive scan(File file, Map<String, SortedSet<String>> gProvides, List<Profile> known,
-                       Set<String> blacklisted)
+   public Archive scan(File file, Map<String, SortedSet<String>> gProvides, ProfileIndex known,
+                       PrefixTrie blacklisted, Symbols symbols)
    {
-      Archive archive = null;
-      JarFile jarFile = null;
-      final String name = file.getName();
+      ArchiveInput input = null;
       try
       {
          final String canonicalPath = file.getCanonicalPath();
-         jarFile = new JarFile(file);
-         Integer classVersion = null;
-         final SortedSet<String> requires = new TreeSet<String>();
-         final SortedMap<String, Long> provides = new TreeMap<String, Long>();
-         final SortedSet<String> profiles = new TreeSet<String>();
-         final SortedMap<String, SortedSet<String>> classDependencies = new TreeMap<String, SortedSet<String>>();
-         final SortedMap<String, SortedSet<String>> packageDependencies = new TreeMap<String, SortedSet<String>>();
-         final SortedMap<String, SortedSet<String>> blacklistedDependencies = new TreeMap<String, SortedSet<String>>();
+         input = ArchiveInput.open(file);
+         return scan(input, file.getName(), canonicalPath, gProvides, known, blacklisted, symbols);
+      }
+      catch (IOException ioe)
+      {
+         ioe.printStackTrace();
+         // Probably not a JAR archive
+         return null;
+      }
+      finally
+      {
+         try
+         {
+            if (null != input)
+            {
+               input.close();
+            }
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Scan an archive nested in another archive
+    * @param is          The content of the archive
+    * @param path        The location of the archive
+    * @param gProvides   The global provides map
+    * @param known       The set of known archives
+    * @param blacklisted The black listed packages
+    * @param symbols     The table the names are interned into
+    * @return The archive
+    */
+   Archive scan(InputStream is, String path, Map<String, SortedSet<String>> gProvides, ProfileIndex known,
+                PrefixTrie blacklisted, Symbols symbols)
+   {
+      ArchiveInput input = null;
+      try
+      {
+         input = ArchiveInput.open(is);
+         return scan(input, new File(path).getName(), path, gProvides, known, blacklisted, symbols);
+      }
+      finally
+      {
+         try
+         {
+            if (null != input)
+            {
+               input.close();
+            }
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Scan the entries of an archive
+    * @param input         The archive
+    * @param name          The name of the archive
+    * @param canonicalPath The location of the archive
+    * @param gProvides     The global provides map
+    * @param known         The set of known archives
+    * @param blacklisted   The black listed packages
+    * @param symbols       The table the names are interned into
+    * @return The archive
+    */
+   private Archive scan(ArchiveInput input, String name, String canonicalPath,
+                        Map<String, SortedSet<String>> gProvides, ProfileIndex known, PrefixTrie blacklisted,
+                        Symbols symbols)
+   {
+      Archive archive = null;
+      try
+      {
+         final ClassResults classes = new ClassResults();
+         final ClassPipeline.Stage stage = getClassPipeline().open(classes, known, blacklisted);
          List<String> lSign = null;
-         final Enumeration<JarEntry> jarEntries = jarFile.entries();
 
-         while (jarEntries.hasMoreElements())
+         for (String entryName; (entryName = input.nextEntry()) != null;)
          {
-            JarEntry jarEntry = jarEntries.nextElement();
-            String entryName = jarEntry.getName();
             InputStream entryStream = null;
             if (entryName.endsWith(".class"))
             {
                try
                {
-                  entryStream = jarFile.getInputStream(jarEntry);
-                  classVersion = scanClasses(entryStream, blacklisted, known, classVersion, provides, requires,
-                                             profiles, classDependencies, packageDependencies, blacklistedDependencies);
+                  entryStream = input.getInputStream();
+                  stage.submit(readClass(entryStream));
                }
                catch (IOException ioe)
                {
@@ -122,7 +186,7 @@ public class JarScanner extends AbstractScanner
                InputStream is = null;
                try
                {
-                  is = jarFile.getInputStream(jarEntry);
+                  is = input.getInputStream();
 
                   InputStreamReader isr = new InputStreamReader(is);
                   LineNumberReader lnr = new LineNumberReader(isr);
@@ -158,6 +222,11 @@ public class JarScanner extends AbstractScanner
             }
          }
 
+         stage.finish();
+
+         final SortedMap<String, Long> provides = classes.getProvides();
+         final SortedSet<String> requires = classes.getRequires();
+
          if (0 == provides.size())
          {
             return null;
@@ -165,7 +234,7 @@ public class JarScanner extends AbstractScanner
 
          String version = null;
          List<String> lManifest = null;
-         final Manifest manifest = jarFile.getManifest();
+         final Manifest manifest = input.getManifest();
          if (null != manifest)
          {
             version = versionFromManifest(manifest);
@@ -173,18 +242,18 @@ public class JarScanner extends AbstractScanner
          }
          final Location location = new Location(canonicalPath, version);
 
-         if (null == classVersion)
-         {
-            classVersion = 0;
-         }
+         final Integer classVersion = classes.getClassVersion();
 
-         archive = new JarArchive(name, classVersion, lManifest, lSign, requires, provides,
-                                  classDependencies, packageDependencies, blacklistedDependencies, location);
-         addProfilesToArchive(archive, profiles);
+         requires.removeAll(provides.keySet());
 
-         for (String provide : provides.keySet())
+         archive = new JarArchive(name, (null != classVersion) ? classVersion : 0, lManifest, lSign, requires,
+                                  provides, classes.getClassDependencies(), classes.getPackageDependencies(),
+                                  classes.getBlacklistedDependencies(), location, symbols);
+         addProfilesToArchive(archive, classes.getProfiles());
+
+         if (null != gProvides)
          {
-            if (null != gProvides)
+            for (String provide : archive.getProvides().keySet())
             {
                SortedSet<String> ss = gProvides.get(provide);
                if (null == ss)
@@ -195,8 +264,6 @@ public class JarScanner extends AbstractScanner
                ss.add(archive.getName());
                gProvides.put(provide, ss);
             }
-
-            requires.remove(provide);
          }
       }
       catch (IOException ioe)
@@ -209,20 +276,6 @@ public class JarScanner extends AbstractScanner
          System.err.println("Scan: " + e.getMessage());
          e.printStackTrace(System.err);
       }
-      finally
-      {
-         try
-         {
-            if (null != jarFile)
-            {
-               jarFile.close();
-            }
-         }
-         catch (IOException ioe)
-         {
-            // Ignore
-         }
-      }
       return archive;
    }
 }
@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collection;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.NotFoundException;
+
+/**
+ * What the scanners need from a class file: its name, major version,
+ * <code>serialVersionUID</code> and referenced classes. Parsing only depends on the
+ * bytes of the class, so it can run on any thread.
+ */
+final class ParsedClass
+{
+   /** The class name */
+   private final String name;
+
+   /** The major version */
+   private final int majorVersion;
+
+   /** The serialVersionUID; null if none */
+   private final Long serialVersionUID;
+
+   /** The referenced classes */
+   private final Collection<String> refClasses;
+
+   /**
+    * Constructor
+    * @param name             The class name
+    * @param majorVersion     The major version
+    * @param serialVersionUID The serialVersionUID; <code>null</code> if none
+    * @param refClasses       The referenced classes
+    */
+   private ParsedClass(String name, int majorVersion, Long serialVersionUID, Collection<String> refClasses)
+   {
+      this.name = name;
+      this.majorVersion = majorVersion;
+      this.serialVersionUID = serialVersionUID;
+      this.refClasses = refClasses;
+   }
+
+   /**
+    * Parse a class file
+    * @param data The bytes of the class file
+    * @return The class
+    * @throws IOException If the class file can't be read, neither directly nor by Javassist
+    */
+   static ParsedClass parse(byte[] data) throws IOException
+   {
+      try
+      {
+         final ClassFileReader reader = ClassFileReader.read(data);
+         return new ParsedClass(reader.getName(), reader.getMajorVersion(), reader.getSerialVersionUID(),
+                                reader.getRefClasses());
+      }
+      catch (IOException ioe)
+      {
+         // Let Javassist have a go at it, it will report the problem if there is one
+         final ClassPool classPool = new ClassPool();
+         final CtClass ctClz = classPool.makeClass(new ByteArrayInputStream(data));
+
+         Long serialVersionUID = null;
+         try
+         {
+            final CtField field = ctClz.getField("serialVersionUID");
+            serialVersionUID = (Long) field.getConstantValue();
+         }
+         catch (NotFoundException nfe)
+         {
+            // Ignore - not serializable
+         }
+
+         return new ParsedClass(ctClz.getName(), ctClz.getClassFile2().getMajorVersion(), serialVersionUID,
+                                ctClz.getRefClasses());
+      }
+   }
+
+   /**
+    * Get the class name
+    * @return The value
+    */
+   String getName()
+   {
+      return name;
+   }
+
+   /**
+    * Get the major version
+    * @return The value
+    */
+   int getMajorVersion()
+   {
+      return majorVersion;
+   }
+
+   /**
+    * Get the serialVersionUID
+    * @return The value; <code>null</code> if none
+    */
+   Long getSerialVersionUID()
+   {
+      return serialVersionUID;
+   }
+
+   /**
+    * Get the referenced classes
+    * @return The value
+    */
+   Collection<String> getRefClasses()
+   {
+      return refClasses;
+   }
+}
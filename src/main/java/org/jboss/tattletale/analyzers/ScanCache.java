@@ -0,0 +1,511 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.SymbolInputStream;
+import org.jboss.tattletale.core.Symbols;
+
+/**
+ * An on-disk cache of scan results. Each top level file has one entry, which holds the
+ * archive and the provides found by the scan. An entry is only used if the canonical path,
+ * size, modification time and SHA-1 digest of the file are unchanged, and if it was written
+ * with the same scan settings (profiles, black listed packages, extract and bundle patterns).
+ * <p>
+ * A warm cache also keeps its entries in memory, for a process that analyzes the same
+ * sources repeatedly. Entries are kept serialized, so that each load returns archives of
+ * its own. A warm cache trusts the size and modification time of a file it has already
+ * digested, and may have no directory at all.
+ */
+public class ScanCache
+{
+   /** The version of the entry format */
+   private static final int FORMAT = 2;
+
+   /** The digest algorithm */
+   private static final String ALGORITHM = "SHA-1";
+
+   /** The cache directory */
+   private final File directory;
+
+   /** The scan settings */
+   private final String settings;
+
+   /** The serialized entries by canonical path; <code>null</code> unless the cache is warm */
+   private final Map<String, byte[]> entries;
+
+   /** The keys of the files digested by canonical path; <code>null</code> unless the cache is warm */
+   private final Map<String, Key> keys;
+
+   /**
+    * Constructor
+    * @param directory The cache directory
+    * @param settings  A description of the scan settings; entries written with other settings are ignored
+    */
+   public ScanCache(File directory, String settings)
+   {
+      this(directory, settings, false);
+   }
+
+   /**
+    * Constructor
+    * @param directory The cache directory; <code>null</code> if the entries are only kept in memory
+    * @param settings  A description of the scan settings; entries written with other settings are ignored
+    * @param warm      Keep the entries in memory
+    */
+   public ScanCache(File directory, String settings, boolean warm)
+   {
+      this.directory = directory;
+      this.settings = settings;
+      this.entries = (warm) ? new ConcurrentHashMap<String, byte[]>() : null;
+      this.keys = (warm) ? new ConcurrentHashMap<String, Key>() : null;
+   }
+
+   /**
+    * Create the key of a file
+    * @param file The file
+    * @return The key; <code>null</code> if the file can't be cached
+    */
+   public Key createKey(File file)
+   {
+      if (!file.isFile())
+      {
+         return null;
+      }
+
+      try
+      {
+         final String path = file.getCanonicalPath();
+         final long size = file.length();
+         final long lastModified = file.lastModified();
+
+         Key key = (null != keys) ? keys.get(path) : null;
+         if (null == key || size != key.size || lastModified != key.lastModified)
+         {
+            key = new Key(path, size, lastModified, digest(file));
+            if (null != keys)
+            {
+               keys.put(path, key);
+            }
+         }
+         return key;
+      }
+      catch (IOException ioe)
+      {
+         System.err.println("Scan cache: " + ioe.getMessage());
+         return null;
+      }
+   }
+
+   /**
+    * Load the entry of a file
+    * @param key     The key of the file
+    * @param symbols The table the names of the archive are interned into
+    * @return The entry; <code>null</code> if there is no valid entry for the file
+    */
+   public Entry load(Key key, Symbols symbols)
+   {
+      byte[] data = (null != entries) ? entries.get(key.path) : null;
+      final boolean loaded = null == data;
+
+      if (loaded && null != directory)
+      {
+         data = read(getEntryFile(key));
+      }
+
+      if (null == data)
+      {
+         return null;
+      }
+
+      try
+      {
+         final ObjectInputStream ois = new SymbolInputStream(new ByteArrayInputStream(data), symbols);
+
+         if (FORMAT != ois.readInt() || !settings.equals(ois.readUTF()))
+         {
+            return null;
+         }
+
+         final Entry entry = (Entry) ois.readObject();
+         if (!key.equals(entry.key))
+         {
+            return null;
+         }
+
+         if (loaded && null != entries)
+         {
+            entries.put(key.path, data);
+         }
+         return entry;
+      }
+      catch (Exception e)
+      {
+         // Written by an incompatible version; it will be replaced
+         return null;
+      }
+   }
+
+   /**
+    * Store the entry of a file
+    * @param key      The key of the file
+    * @param archive  The archive; may be <code>null</code>
+    * @param provides The provides found by the scan
+    */
+   public void store(Key key, Archive archive, SortedMap<String, SortedSet<String>> provides)
+   {
+      final byte[] data;
+      try
+      {
+         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+         final ObjectOutputStream oos = new ObjectOutputStream(baos);
+         oos.writeInt(FORMAT);
+         oos.writeUTF(settings);
+         oos.writeObject(new Entry(key, archive, provides));
+         oos.close();
+         data = baos.toByteArray();
+      }
+      catch (IOException ioe)
+      {
+         System.err.println("Scan cache: " + ioe.getMessage());
+         return;
+      }
+
+      if (null != entries)
+      {
+         entries.put(key.path, data);
+      }
+
+      if (null != directory)
+      {
+         write(getEntryFile(key), data);
+      }
+   }
+
+   /**
+    * Read an entry file
+    * @param entryFile The entry file
+    * @return The content; <code>null</code> if the file can't be read
+    */
+   private static byte[] read(File entryFile)
+   {
+      if (!entryFile.isFile())
+      {
+         return null;
+      }
+
+      InputStream is = null;
+      try
+      {
+         is = new FileInputStream(entryFile);
+         final ByteArrayOutputStream baos = new ByteArrayOutputStream((int) entryFile.length());
+         final byte[] buffer = new byte[65536];
+         for (int n; (n = is.read(buffer)) != -1;)
+         {
+            baos.write(buffer, 0, n);
+         }
+         return baos.toByteArray();
+      }
+      catch (IOException ioe)
+      {
+         return null;
+      }
+      finally
+      {
+         try
+         {
+            if (null != is)
+            {
+               is.close();
+            }
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Write an entry file, replacing it only once it is complete
+    * @param entryFile The entry file
+    * @param data      The content
+    */
+   private void write(File entryFile, byte[] data)
+   {
+      if (!directory.isDirectory() && !directory.mkdirs())
+      {
+         System.err.println("Scan cache: Cannot create directory: " + directory);
+         return;
+      }
+
+      File tmpFile = null;
+      OutputStream os = null;
+      boolean written = false;
+      try
+      {
+         // A temporary file of its own, as other processes may write the same entry
+         tmpFile = File.createTempFile(entryFile.getName(), ".tmp", directory);
+         os = new FileOutputStream(tmpFile);
+         os.write(data);
+         os.close();
+         os = null;
+         written = true;
+      }
+      catch (IOException ioe)
+      {
+         System.err.println("Scan cache: " + ioe.getMessage());
+      }
+      finally
+      {
+         try
+         {
+            if (null != os)
+            {
+               os.close();
+            }
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+
+      if (null == tmpFile)
+      {
+         return;
+      }
+
+      // Platforms that can't rename over an existing file get a second try; if another
+      // writer gets there first the file simply isn't cached this time
+      if (written && (tmpFile.renameTo(entryFile) || (entryFile.delete() && tmpFile.renameTo(entryFile))))
+      {
+         return;
+      }
+
+      if (tmpFile.exists() && !tmpFile.delete())
+      {
+         System.err.println("Scan cache: Cannot delete " + tmpFile);
+      }
+   }
+
+   /**
+    * Get the file holding the entry of a file
+    * @param key The key of the file
+    * @return The entry file
+    */
+   private File getEntryFile(Key key)
+   {
+      try
+      {
+         final MessageDigest md = MessageDigest.getInstance(ALGORITHM);
+         return new File(directory, toHex(md.digest(key.path.getBytes("UTF-8"))) + ".ser");
+      }
+      catch (Exception e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Compute the digest of a file
+    * @param file The file
+    * @return The digest as a hex string
+    * @throws IOException If the file can't be read
+    */
+   private static String digest(File file) throws IOException
+   {
+      final MessageDigest md;
+      try
+      {
+         md = MessageDigest.getInstance(ALGORITHM);
+      }
+      catch (NoSuchAlgorithmException nsae)
+      {
+         throw new IOException(nsae.getMessage());
+      }
+
+      InputStream is = null;
+      try
+      {
+         is = new FileInputStream(file);
+         final byte[] buffer = new byte[65536];
+         for (int n; (n = is.read(buffer)) != -1;)
+         {
+            md.update(buffer, 0, n);
+         }
+      }
+      finally
+      {
+         if (null != is)
+         {
+            is.close();
+         }
+      }
+
+      return toHex(md.digest());
+   }
+
+   /**
+    * Convert bytes to a hex string
+    * @param bytes The bytes
+    * @return The hex string
+    */
+   private static String toHex(byte[] bytes)
+   {
+      final StringBuilder sb = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes)
+      {
+         sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+         sb.append(Character.forDigit(b & 0xf, 16));
+      }
+      return sb.toString();
+   }
+
+   /**
+    * The identity of a file: canonical path, size, modification time and digest
+    */
+   public static final class Key implements Serializable
+   {
+      /** SerialVersionUID */
+      static final long serialVersionUID = 1L;
+
+      /** The canonical path */
+      private final String path;
+
+      /** The size */
+      private final long size;
+
+      /** The modification time */
+      private final long lastModified;
+
+      /** The digest */
+      private final String digest;
+
+      /**
+       * Constructor
+       * @param path         The canonical path
+       * @param size         The size
+       * @param lastModified The modification time
+       * @param digest       The digest
+       */
+      Key(String path, long size, long lastModified, String digest)
+      {
+         this.path = path;
+         this.size = size;
+         this.lastModified = lastModified;
+         this.digest = digest;
+      }
+
+      /**
+       * Equals
+       * @param obj The other object
+       * @return True if equals; otherwise false
+       */
+      public boolean equals(Object obj)
+      {
+         if (!(obj instanceof Key))
+         {
+            return false;
+         }
+
+         final Key k = (Key) obj;
+         return path.equals(k.path) && size == k.size && lastModified == k.lastModified && digest.equals(k.digest);
+      }
+
+      /**
+       * Hash code
+       * @return The hash code
+       */
+      public int hashCode()
+      {
+         return 7 + 31 * digest.hashCode();
+      }
+   }
+
+   /**
+    * A cached scan result
+    */
+   public static final class Entry implements Serializable
+   {
+      /** SerialVersionUID */
+      static final long serialVersionUID = 1L;
+
+      /** The key */
+      private final Key key;
+
+      /** The archive */
+      private final Archive archive;
+
+      /** The provides */
+      private final SortedMap<String, SortedSet<String>> provides;
+
+      /**
+       * Constructor
+       * @param key      The key
+       * @param archive  The archive
+       * @param provides The provides
+       */
+      Entry(Key key, Archive archive, SortedMap<String, SortedSet<String>> provides)
+      {
+         this.key = key;
+         this.archive = archive;
+         this.provides = provides;
+      }
+
+      /**
+       * Get the archive
+       * @return The value; <code>null</code> if the file didn't provide anything
+       */
+      public Archive getArchive()
+      {
+         return archive;
+      }
+
+      /**
+       * Get the provides
+       * @return The value
+       */
+      public SortedMap<String, SortedSet<String>> getProvides()
+      {
+         return provides;
+      }
+   }
+}
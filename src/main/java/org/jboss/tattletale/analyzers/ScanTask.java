@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.analyzers;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
+import org.jboss.tattletale.profiles.ProfileIndex;
+
+/**
+ * A unit of work that scans a single top level file. The provides found by the
+ * scan are collected in a map private to the task, so that several tasks can run
+ * concurrently and have their results merged into the global provides afterwards.
+ * If a {@link ScanCache} is given, unchanged files are loaded from the cache instead.
+ * The cache always gets the complete archive; the facets that aren't retained are
+ * dropped from the archive the task returns.
+ */
+public class ScanTask implements Callable<Archive>
+{
+   /** The file */
+   private final File file;
+
+   /** The scanner */
+   private final ArchiveScanner scanner;
+
+   /** The known profiles */
+   private final ProfileIndex known;
+
+   /** The black listed packages */
+   private final PrefixTrie blacklisted;
+
+   /** The table the names are interned into */
+   private final Symbols symbols;
+
+   /** The scan cache; may be null */
+   private final ScanCache cache;
+
+   /** The facets to retain; null if all */
+   private final Set<ArchiveFacet> facets;
+
+   /** The provides found by this task */
+   private SortedMap<String, SortedSet<String>> provides;
+
+   /**
+    * Constructor
+    * @param file        The file to be scanned
+    * @param scanner     The scanner for the file
+    * @param known       The known profiles; must not be modified while the task runs
+    * @param blacklisted The black listed packages; <code>null</code> if none
+    * @param symbols     The table the names are interned into
+    */
+   public ScanTask(File file, ArchiveScanner scanner, ProfileIndex known, PrefixTrie blacklisted, Symbols symbols)
+   {
+      this(file, scanner, known, blacklisted, symbols, null, null);
+   }
+
+   /**
+    * Constructor
+    * @param file        The file to be scanned
+    * @param scanner     The scanner for the file
+    * @param known       The known profiles; must not be modified while the task runs
+    * @param blacklisted The black listed packages; <code>null</code> if none
+    * @param symbols     The table the names are interned into
+    * @param cache       The scan cache; <code>null</code> if scan results aren't cached
+    */
+   public ScanTask(File file, ArchiveScanner scanner, ProfileIndex known, PrefixTrie blacklisted, Symbols symbols,
+                   ScanCache cache)
+   {
+      this(file, scanner, known, blacklisted, symbols, cache, null);
+   }
+
+   /**
+    * Constructor
+    * @param file        The file to be scanned
+    * @param scanner     The scanner for the file
+    * @param known       The known profiles; must not be modified while the task runs
+    * @param blacklisted The black listed packages; <code>null</code> if none
+    * @param symbols     The table the names are interned into
+    * @param cache       The scan cache; <code>null</code> if scan results aren't cached
+    * @param facets      The facets to retain; <code>null</code> if all
+    */
+   public ScanTask(File file, ArchiveScanner scanner, ProfileIndex known, PrefixTrie blacklisted, Symbols symbols,
+                   ScanCache cache, Set<ArchiveFacet> facets)
+   {
+      this.file = file;
+      this.scanner = scanner;
+      this.known = known;
+      this.blacklisted = blacklisted;
+      this.symbols = symbols;
+      this.cache = cache;
+      this.facets = facets;
+      this.provides = new TreeMap<String, SortedSet<String>>();
+   }
+
+   /**
+    * Get the file
+    * @return The value
+    */
+   public File getFile()
+   {
+      return file;
+   }
+
+   /**
+    * Get the provides found by the scan
+    * @return The class name to archive names map
+    */
+   public SortedMap<String, SortedSet<String>> getProvides()
+   {
+      return provides;
+   }
+
+   /**
+    * Scan the file, or load the result of an earlier scan from the cache
+    * @return The archive, or <code>null</code> if the file doesn't provide anything
+    * @throws Exception If the scan fails
+    */
+   public Archive call() throws Exception
+   {
+      if (null == cache)
+      {
+         return retain(scanner.scan(file, provides, known, blacklisted, symbols));
+      }
+
+      final ScanCache.Key key = cache.createKey(file);
+      if (null != key)
+      {
+         final ScanCache.Entry entry = cache.load(key, symbols);
+         if (null != entry)
+         {
+            provides = entry.getProvides();
+            return retain(entry.getArchive());
+         }
+      }
+
+      final Archive archive = scanner.scan(file, provides, known, blacklisted, symbols);
+
+      if (null != key)
+      {
+         cache.store(key, archive, provides);
+      }
+
+      return retain(archive);
+   }
+
+   /**
+    * Drop the facets that aren't retained from an archive
+    * @param archive The archive; may be <code>null</code>
+    * @return The archive
+    */
+   private Archive retain(Archive archive)
+   {
+      if (null != archive && null != facets)
+      {
+         archive.retain(facets);
+      }
+      return archive;
+   }
+
+   /**
+    * Merge the provides found by this task into a global provides map
+    * @param gProvides The global provides map
+    */
+   public void mergeProvides(SortedMap<String, SortedSet<String>> gProvides)
+   {
+      for (Map.Entry<String, SortedSet<String>> entry : provides.entrySet())
+      {
+         final SortedSet<String> archiveNames = gProvides.get(entry.getKey());
+         if (null == archiveNames)
+         {
+            gProvides.put(entry.getKey(), entry.getValue());
+         }
+         else
+         {
+            archiveNames.addAll(entry.getValue());
+         }
+      }
+   }
+}
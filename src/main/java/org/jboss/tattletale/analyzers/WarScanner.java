@@ -28,17 +28,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -47,8 +43,10 @@ import org.jboss.tattletale.core.Archive;
 import org.jboss.tattletale.core.ClassesArchive;
 import org.jboss.tattletale.core.JarArchive;
 import org.jboss.tattletale.core.Location;
+import org.jboss.tattletale.core.PrefixTrie;
+import org.jboss.tattletale.core.Symbols;
 import org.jboss.tattletale.core.WarArchive;
-import org.jboss.tattletale.profiles.Profile;
+import org.jboss.tattletale.profiles.ProfileIndex;
 
 /**
  * Scanner for .war (and .rar) files.
@@ -117,7 +115,7 @@ public class WarScanner extends AbstractScanner
     */
    public Archive scan(File war)
    {
-      return this.scan(war, null, null, null);
+      return this.scan(war, null, null, null, new Symbols());
    }
 
    /**
@@ -125,42 +123,113 @@ public class WarScanner extends AbstractScanner
     * @param war         The war file
     * @param gProvides   The global provides map
     * @param known       The set of known archives
-    * @param blacklisted The set of black listed packages
+    * @param blacklisted The black listed packages
+    * @param symbols     The table the names are interned into
     * @return The archive
-    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, List, Set)
+    * @see org.jboss.tattletale.analyzers.ArchiveScanner#scan(File, Map, ProfileIndex, PrefixTrie, Symbols)
     */
-   public Archive scan(File war, Map<String, SortedSet<String>> gProvides, List<Profile> known,
-                       Set<String> blacklisted)
+   public Archive scan(File war, Map<String, SortedSet<String>> gProvides, ProfileIndex known,
+                       PrefixTrie blacklisted, Symbols symbols)
    {
       if (null == war || !war.exists())
       {
          return null;
       }
 
+      ArchiveInput input = null;
+      try
+      {
+         final String canonicalPath = war.getCanonicalPath();
+         input = ArchiveInput.open(war);
+         return scan(input, war.getName(), canonicalPath, gProvides, known, blacklisted, symbols);
+      }
+      catch (IOException ioe)
+      {
+         System.err.println("Scan: " + ioe.getMessage());
+         ioe.printStackTrace(System.err);
+         return null;
+      }
+      finally
+      {
+         try
+         {
+            if (null != input)
+            {
+               input.close();
+            }
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Scan a .war archive nested in another archive
+    * @param is          The content of the war
+    * @param path        The location of the war
+    * @param gProvides   The global provides map
+    * @param known       The set of known archives
+    * @param blacklisted The black listed packages
+    * @param symbols     The table the names are interned into
+    * @return The archive
+    */
+   Archive scan(InputStream is, String path, Map<String, SortedSet<String>> gProvides, ProfileIndex known,
+                PrefixTrie blacklisted, Symbols symbols)
+   {
+      ArchiveInput input = null;
+      try
+      {
+         input = ArchiveInput.open(is);
+         return scan(input, new File(path).getName(), path, gProvides, known, blacklisted, symbols);
+      }
+      finally
+      {
+         try
+         {
+            if (null != input)
+            {
+               input.close();
+            }
+         }
+         catch (IOException ioe)
+         {
+            // Ignore
+         }
+      }
+   }
+
+   /**
+    * Scan the entries of a .war archive
+    * @param input         The war
+    * @param name          The name of the war
+    * @param canonicalPath The location of the war
+    * @param gProvides     The global provides map
+    * @param known         The set of known archives
+    * @param blacklisted   The black listed packages
+    * @param symbols       The table the names are interned into
+    * @return The archive
+    */
+   private Archive scan(ArchiveInput input, String name, String canonicalPath,
+                        Map<String, SortedSet<String>> gProvides, ProfileIndex known, PrefixTrie blacklisted,
+                        Symbols symbols)
+   {
       WarArchive warArchive = null;
       final List<Archive> subArchiveList = new ArrayList<Archive>();
-      final ArchiveScanner jarScanner = new JarScanner();
-      JarFile warFile = null;
-      final String name = war.getName();
-      Extractor xt = null;
+      final JarScanner jarScanner = new JarScanner();
+      jarScanner.setClassPipeline(getClassPipeline());
+      final Pattern extract = compileExtractPattern(extractPattern);
 
       try
       {
-         xt = new Extractor(war, extractPattern);
-         xt.extract();
-         warFile = xt.getArchive();
-         final File extractedDir = xt.getTarget();
-
          Integer classVersion = null;
          List<String> lSign = null;
          final Map<String, ClassScanner> classBundles = new HashMap<String, ClassScanner>();
+         ClassScanner lastBundle = null;
 
-         final Enumeration<JarEntry> warEntries = warFile.entries();
-
-         while (warEntries.hasMoreElements())
+         for (String entryName; (entryName = input.nextEntry()) != null;)
          {
-            JarEntry warEntry = warEntries.nextElement();
-            String entryName = warEntry.getName();
             InputStream entryStream = null;
             if (entryName.endsWith(".class"))
             {
@@ -175,13 +244,18 @@ public class WarScanner extends AbstractScanner
                   bundleName = "unmatched_" + name;
                }
 
-               ClassScanner cs = (!classBundles.isEmpty() && classBundles.containsKey(bundleName)) ?
-                   classBundles.get(bundleName) : new ClassScanner(bundleName);
+               ClassScanner cs = classBundles.get(bundleName);
+               if (null == cs)
+               {
+                  cs = new ClassScanner(bundleName);
+                  cs.setClassPipeline(getClassPipeline());
+               }
 
                try
                {
-                  entryStream = warFile.getInputStream(warEntry);
-                  classVersion = cs.scan(entryStream, known, blacklisted);
+                  entryStream = input.getInputStream();
+                  cs.submit(entryStream, known, blacklisted);
+                  lastBundle = cs;
                }
                catch (IOException openException)
                {
@@ -202,7 +276,7 @@ public class WarScanner extends AbstractScanner
                InputStream is = null;
                try
                {
-                  is = warFile.getInputStream(warEntry);
+                  is = input.getInputStream();
 
                   InputStreamReader isr = new InputStreamReader(is);
                   LineNumberReader lnr = new LineNumberReader(isr);
@@ -236,20 +310,42 @@ public class WarScanner extends AbstractScanner
                   }
                }
             }
-            else if (entryName.endsWith(".jar"))
+            else if (entryName.endsWith(".jar") && extract.matcher(entryName).matches())
             {
-               File jarFile = new File(extractedDir.getCanonicalPath(), entryName);
-               Archive jarArchive = jarScanner.scan(jarFile, gProvides, known, blacklisted);
-               if (null != jarArchive)
+               try
+               {
+                  entryStream = input.getInputStream();
+                  String jarPath = getNestedPath(canonicalPath, entryName);
+                  Archive jarArchive = jarScanner.scan(entryStream, jarPath, gProvides, known, blacklisted, symbols);
+                  if (null != jarArchive)
+                  {
+                     subArchiveList.add(jarArchive);
+                  }
+               }
+               finally
                {
-                  subArchiveList.add(jarArchive);
+                  if (null != entryStream)
+                  {
+                     entryStream.close();
+                  }
                }
             }
          }
 
+         for (ClassScanner cs : classBundles.values())
+         {
+            cs.finish();
+         }
+
+         // The class version of the bundle of the last class
+         if (null != lastBundle)
+         {
+            classVersion = lastBundle.getClassVersion();
+         }
+
          String version = null;
          List<String> lManifest = null;
-         final Manifest manifest = warFile.getManifest();
+         final Manifest manifest = input.getManifest();
 
          if (null != manifest)
          {
@@ -266,7 +362,7 @@ public class WarScanner extends AbstractScanner
 
          for (ClassScanner cs : classBundles.values())
          {
-            final Location location = new Location(war.getCanonicalPath() + cs.getLocation(), version);
+            final Location location = new Location(canonicalPath + cs.getLocation(), version);
             if (placeholderClasses)
             {
                // ClassesArchive is a placeholder that is excluded from analysis
@@ -275,7 +371,7 @@ public class WarScanner extends AbstractScanner
                                                                         cs.getRequires(), cs.getProvides(),
                                                                         cs.getClassDependencies(),
                                                                         cs.getPackageDependencies(),
-                                                                        cs.getBlacklistedDependencies(), location);
+                                                                        cs.getBlacklistedDependencies(), location, symbols);
                subArchiveList.add(classesArchive);
             }
             else
@@ -284,7 +380,7 @@ public class WarScanner extends AbstractScanner
                                                                 cs.getRequires(), cs.getProvides(),
                                                                 cs.getClassDependencies(),
                                                                 cs.getPackageDependencies(),
-                                                                cs.getBlacklistedDependencies(), location);
+                                                                cs.getBlacklistedDependencies(), location, symbols);
                subArchiveList.add(classesArchive);
             }
 
@@ -345,7 +441,7 @@ public class WarScanner extends AbstractScanner
 
          warArchive = new WarArchive(name, classVersion, lManifest, lSign, requires, provides,
                                      classDependencies, packageDependencies, blacklistedDependencies,
-                                     new Location(war.getCanonicalPath(), version), subArchiveList);
+                                     new Location(canonicalPath, version), subArchiveList, symbols);
          super.addProfilesToArchive(warArchive, profiles);
       }
       catch (IOException ioe)
@@ -353,20 +449,9 @@ public class WarScanner extends AbstractScanner
          System.err.println("Scan: " + ioe.getMessage());
          ioe.printStackTrace(System.err);
       }
-      finally
+      catch (InterruptedException ie)
       {
-         try
-         {
-            if (null != warFile)
-            {
-               warFile.close();
-               xt.deleteTempTarget();
-            }
-         }
-         catch (IOException ioe)
-         {
-            // Ignore
-         }
+         Thread.currentThread().interrupt();
       }
       return warArchive;
    }
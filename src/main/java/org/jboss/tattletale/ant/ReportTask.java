@@ -27,6 +27,7 @@ import java.util.Properties;
 
 import org.apache.tools.ant.BuildException;
 
+import org.jboss.tattletale.Client;
 import org.jboss.tattletale.Main;
 
 /**
@@ -82,6 +83,9 @@ public class ReportTask extends AbstractReportTask
    /** Tattletale-specific Ant property prefix */
    private String propertyPrefix;
 
+   /** Port of the analysis server */
+   private int server;
+
    /** Constructor */
    public ReportTask()
    {
@@ -100,6 +104,7 @@ public class ReportTask extends AbstractReportTask
       bundlePattern = null;
       analyzeComponents = false;
       propertyPrefix = "tattletale";
+      server = 0;
    }
 
    /**
@@ -372,6 +377,24 @@ public class ReportTask extends AbstractReportTask
       this.propertyPrefix = propertyPrefix;
    }
 
+   /**
+    * Get the port of the analysis server
+    * @return The value; 0 if the reports are generated in process
+    */
+   public int getServer()
+   {
+      return server;
+   }
+
+   /**
+    * Set the port of the analysis server
+    * @param server The value; 0 if the reports are generated in process
+    */
+   public void setServer(int server)
+   {
+      this.server = server;
+   }
+
    /**
     * Extract tattletale-related properties from Ant project
     * @return Properties
@@ -426,7 +449,14 @@ public class ReportTask extends AbstractReportTask
 
          System.out.println("Scanning: " + getSource());
 
-         main.execute(analyzeComponents);
+         if (server > 0)
+         {
+            new Client(server).execute(main, analyzeComponents);
+         }
+         else
+         {
+            main.execute(analyzeComponents);
+         }
       }
       catch (Throwable t)
       {
@@ -23,6 +23,7 @@ package org.jboss.tattletale.core;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -47,28 +48,28 @@ public abstract class Archive implements Serializable, Comparable<Archive>
    private final int version;
 
    /** Manifest */
-   private final List<String> manifest;
+   private List<String> manifest;
 
    /** Signing information */
-   private final List<String> sign;
+   private List<String> sign;
 
    /** Requires */
-   private final SortedSet<String> requires;
+   private final SymbolSet requires;
 
    /** Provides */
-   private final SortedMap<String, Long> provides;
+   private SymbolMap<Long> provides;
 
    /** Profiles */
    private final SortedSet<String> profiles;
 
    /** Class dependencies */
-   private final SortedMap<String, SortedSet<String>> classDependencies;
+   private SymbolMap<SortedSet<String>> classDependencies;
 
    /** Package dependencies */
-   private final SortedMap<String, SortedSet<String>> packageDependencies;
+   private SymbolMap<SortedSet<String>> packageDependencies;
 
    /** Blacklisted dependencies */
-   private final SortedMap<String, SortedSet<String>> blacklistedDependencies;
+   private SymbolMap<SortedSet<String>> blacklistedDependencies;
 
    /** Locations */
    private final SortedSet<Location> locations;
@@ -83,7 +84,8 @@ public abstract class Archive implements Serializable, Comparable<Archive>
    private Archive parentArchive = null;
 
    /**
-    * Constructor
+    * Constructor. The names are copied into the {@link Symbols} table, so the
+    * given collections can be discarded once the archive is created.
     * @param type                    The type
     * @param name                    The name
     * @param version                 The version number
@@ -95,24 +97,25 @@ public abstract class Archive implements Serializable, Comparable<Archive>
     * @param packageDependencies     The package dependencies
     * @param blacklistedDependencies The blacklisted dependencies
     * @param location                The location
+    * @param symbols                 The table the names are interned into
     */
    protected Archive(ArchiveType type, String name, int version, List<String> manifest,
                      List<String> sign, SortedSet<String> requires, SortedMap<String, Long> provides,
                      SortedMap<String, SortedSet<String>> classDependencies,
                      SortedMap<String, SortedSet<String>> packageDependencies,
                      SortedMap<String, SortedSet<String>> blacklistedDependencies,
-                     Location location)
+                     Location location, Symbols symbols)
    {
       this.type = type;
       this.name = name;
       this.version = version;
       this.manifest = manifest;
       this.sign = sign;
-      this.requires = requires;
-      this.provides = provides;
-      this.classDependencies = classDependencies;
-      this.packageDependencies = packageDependencies;
-      this.blacklistedDependencies = blacklistedDependencies;
+      this.requires = SymbolSet.of(symbols, requires);
+      this.provides = SymbolMap.of(symbols, provides);
+      this.classDependencies = SymbolMap.ofSets(symbols, classDependencies);
+      this.packageDependencies = SymbolMap.ofSets(symbols, packageDependencies);
+      this.blacklistedDependencies = SymbolMap.ofSets(symbols, blacklistedDependencies);
       profiles = new TreeSet<String>();
       locations = new TreeSet<Location>();
       osgi = null;
@@ -230,7 +233,7 @@ public abstract class Archive implements Serializable, Comparable<Archive>
 
    /**
     * Get the requires
-    * @return The value
+    * @return The value; it can't be modified
     */
    public SortedSet<String> getRequires()
    {
@@ -239,7 +242,7 @@ public abstract class Archive implements Serializable, Comparable<Archive>
 
    /**
     * Get the provides
-    * @return The value
+    * @return The value; it can't be modified
     */
    public SortedMap<String, Long> getProvides()
    {
@@ -266,7 +269,7 @@ public abstract class Archive implements Serializable, Comparable<Archive>
 
    /**
     * Get the class dependencies
-    * @return The value
+    * @return The value; it can't be modified
     */
    public SortedMap<String, SortedSet<String>> getClassDependencies()
    {
@@ -275,7 +278,7 @@ public abstract class Archive implements Serializable, Comparable<Archive>
 
    /**
     * Get the package dependencies
-    * @return The value
+    * @return The value; it can't be modified
     */
    public SortedMap<String, SortedSet<String>> getPackageDependencies()
    {
@@ -284,7 +287,7 @@ public abstract class Archive implements Serializable, Comparable<Archive>
 
    /**
     * Get the blacklisted dependencies
-    * @return The value
+    * @return The value; it can't be modified
     */
    public SortedMap<String, SortedSet<String>> getBlackListedDependencies()
    {
@@ -352,6 +355,39 @@ public abstract class Archive implements Serializable, Comparable<Archive>
       return moduleIdentifier;
    }
 
+   /**
+    * Drop the facets that aren't needed; the archive is then only good for the
+    * reports that use the retained facets
+    * @param facets The facets to keep
+    */
+   public void retain(Set<ArchiveFacet> facets)
+   {
+      if (!facets.contains(ArchiveFacet.CLASS_DEPENDENCIES))
+      {
+         classDependencies = SymbolMap.empty();
+      }
+      if (!facets.contains(ArchiveFacet.PACKAGE_DEPENDENCIES))
+      {
+         packageDependencies = SymbolMap.empty();
+      }
+      if (!facets.contains(ArchiveFacet.BLACKLISTED_DEPENDENCIES))
+      {
+         blacklistedDependencies = SymbolMap.empty();
+      }
+      if (!facets.contains(ArchiveFacet.SERIAL_VERSION_UIDS))
+      {
+         provides = SymbolMap.ofKeys(provides.keySet());
+      }
+      if (!facets.contains(ArchiveFacet.MANIFEST))
+      {
+         manifest = null;
+      }
+      if (!facets.contains(ArchiveFacet.SIGN))
+      {
+         sign = null;
+      }
+   }
+
    /**
     *  Init OSGi
     */
@@ -1,6 +1,6 @@
 /*
  * JBoss, Home of Professional Open Source.
- * Copyright 2010, Red Hat Middleware LLC, and individual contributors
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
  * as indicated by the @author tags. See the copyright.txt file in the
  * distribution for a full listing of individual contributors.
  *
@@ -19,43 +19,37 @@
  * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
  * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
  */
-package org.jboss.tattletale.reporting;
-
-import java.io.Serializable;
-import java.util.Comparator;
+package org.jboss.tattletale.core;
 
 /**
- * Size comparator
- *
- * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
+ * The parts of an archive that only some reports use. The names of the classes
+ * an archive provides and requires, its profiles and its locations are always kept;
+ * the facets can be dropped after scanning when no report needs them.
  */
-@SuppressWarnings("serial")
-public class SizeComparator implements Comparator<String>, Serializable
+public enum ArchiveFacet
 {
-   /** Constructor */
-   public SizeComparator()
-   {
-   }
-
    /**
-    * Compare two objects
-    * @param sa String
-    * @param sb String
-    * @return Positive if sb greater than sa; zero if equal; otherwise negative
+    * The classes each class depends on
+    */
+   CLASS_DEPENDENCIES,
+   /**
+    * The packages each package depends on
+    */
+   PACKAGE_DEPENDENCIES,
+   /**
+    * The black listed packages each package depends on
+    */
+   BLACKLISTED_DEPENDENCIES,
+   /**
+    * The serialVersionUID of each provided class
+    */
+   SERIAL_VERSION_UIDS,
+   /**
+    * The manifest
+    */
+   MANIFEST,
+   /**
+    * The signing information
     */
-   public int compare(String sa, String sb)
-   {
-      if (sa.length() < sb.length())
-      {
-         return 1;
-      }
-      else if (sa.length() == sb.length())
-      {
-         return sa.compareTo(sb);
-      }
-      else
-      {
-         return -1;
-      }
-   }
+   SIGN
 }
@@ -49,14 +49,16 @@ public class ClassesArchive extends Archive
     * @param packageDependencies     The package dependencies
     * @param blacklistedDependencies The blacklisted dependencies
     * @param location                The location
+    * @param symbols                 The table the names are interned into
     */
    public ClassesArchive(String name, int version, List<String> manifest,
                          List<String> sign, SortedSet<String> requires,
                          SortedMap<String, Long> provides, SortedMap<String, SortedSet<String>> classDependencies,
                          SortedMap<String, SortedSet<String>> packageDependencies,
-                         SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location)
+                         SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location,
+                         Symbols symbols)
    {
       super(ArchiveType.CLASS, name, version, manifest, sign, requires, provides, classDependencies,
-            packageDependencies, blacklistedDependencies, location);
+            packageDependencies, blacklistedDependencies, location, symbols);
    }
 }
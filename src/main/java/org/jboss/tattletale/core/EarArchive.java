@@ -49,6 +49,7 @@ public class EarArchive extends NestableArchive
     * @param blacklistedDependencies The blacklisted dependencies
     * @param location                The location
     * @param subArchives             The list of subsidiary archives as prescribed by {@link NestableArchive}
+    * @param symbols                 The table the names are interned into
     */
 
    public EarArchive(String name, int version, List<String> manifest,
@@ -56,9 +57,9 @@ public class EarArchive extends NestableArchive
                      SortedMap<String, SortedSet<String>> classDependencies,
                      SortedMap<String, SortedSet<String>> packageDependencies,
                      SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location,
-                     List<Archive> subArchives)
+                     List<Archive> subArchives, Symbols symbols)
    {
       super(ArchiveType.EAR, name, version, manifest, sign, requires, provides, classDependencies, packageDependencies,
-            blacklistedDependencies, location, subArchives);
+            blacklistedDependencies, location, subArchives, symbols);
    }
 }
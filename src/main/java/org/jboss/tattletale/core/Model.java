@@ -0,0 +1,943 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.core;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The result of a scan: the archives, the globally provides map and the archive
+ * dependants graph. It can be written in two formats, so that other tools and report
+ * only runs can use the result without scanning again; the binary format can be read
+ * back with {@link #readBinary(File)}:
+ * <ul>
+ * <li>binary: a string table followed by one column per archive property, with all
+ * strings replaced by their position in the table</li>
+ * <li>JSON Lines: one JSON object per archive, per provided class and per node of the
+ * dependants graph, written as a stream</li>
+ * </ul>
+ */
+public class Model
+{
+   /** The binary file name */
+   public static final String BINARY_FILE = "tattletale-model.bin";
+
+   /** The JSON Lines file name */
+   public static final String JSONL_FILE = "tattletale-model.jsonl";
+
+   /** The magic number of the binary format: "TTMD" */
+   private static final int MAGIC = 0x54544d44;
+
+   /** The version of the formats */
+   private static final int FORMAT = 1;
+
+   /** The encoding */
+   private static final String UTF8 = "UTF-8";
+
+   /** The archives */
+   private final SortedSet<Archive> archives;
+
+   /** Globally provides */
+   private final SortedMap<String, SortedSet<String>> gProvides;
+
+   /** Archive name to the names of its dependants */
+   private final SortedMap<String, SortedSet<String>> dependants;
+
+   /**
+    * Constructor
+    * @param archives   The archives
+    * @param gProvides  The globally provides map
+    * @param dependants The dependants graph
+    */
+   public Model(SortedSet<Archive> archives, SortedMap<String, SortedSet<String>> gProvides,
+                SortedMap<String, SortedSet<String>> dependants)
+   {
+      this.archives = archives;
+      this.gProvides = gProvides;
+      this.dependants = dependants;
+   }
+
+   /**
+    * Get the archives
+    * @return The value
+    */
+   public SortedSet<Archive> getArchives()
+   {
+      return archives;
+   }
+
+   /**
+    * Get the globally provides map
+    * @return The value
+    */
+   public SortedMap<String, SortedSet<String>> getGlobalProvides()
+   {
+      return gProvides;
+   }
+
+   /**
+    * Get the dependants graph
+    * @return The archive name to dependant archive names map
+    */
+   public SortedMap<String, SortedSet<String>> getDependants()
+   {
+      return dependants;
+   }
+
+   /**
+    * Write the binary format
+    * @param file The file
+    * @throws IOException If the file can't be written
+    */
+   public void writeBinary(File file) throws IOException
+   {
+      final List<Archive> all = flatten();
+      final Map<Archive, Integer> positions = new IdentityHashMap<Archive, Integer>();
+      for (Archive a : all)
+      {
+         positions.put(a, positions.size());
+      }
+
+      final StringTable strings = new StringTable();
+      for (Archive a : all)
+      {
+         strings.add(a.getName());
+         strings.add(a.getModuleIdentifier());
+         strings.addAll(a.getManifest());
+         strings.addAll(a.getSign());
+         strings.addAll(a.getRequires());
+         strings.addAll(a.getProvides().keySet());
+         strings.addAll(a.getProfiles());
+         strings.addAll(a.getClassDependencies());
+         strings.addAll(a.getPackageDependencies());
+         strings.addAll(a.getBlackListedDependencies());
+         for (Location l : a.getLocations())
+         {
+            strings.add(l.getFilename());
+            strings.add(l.getVersion());
+         }
+      }
+      strings.addAll(gProvides);
+      strings.addAll(dependants);
+
+      final DataOutputStream out =
+         new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 65536));
+      try
+      {
+         out.writeInt(MAGIC);
+         out.writeInt(FORMAT);
+
+         writeVarInt(out, strings.size());
+         for (String s : strings.values)
+         {
+            final byte[] b = s.getBytes(UTF8);
+            writeVarInt(out, b.length);
+            out.write(b);
+         }
+
+         writeVarInt(out, all.size());
+         for (Archive a : all)
+         {
+            out.writeByte(a.getType().ordinal());
+         }
+         for (Archive a : all)
+         {
+            writeVarInt(out, strings.ref(a.getName()));
+         }
+         for (Archive a : all)
+         {
+            writeVarInt(out, a.getVersion());
+         }
+         for (Archive a : all)
+         {
+            writeVarInt(out, strings.ref(a.getModuleIdentifier()));
+         }
+         for (Archive a : all)
+         {
+            writeList(out, strings, a.getManifest());
+         }
+         for (Archive a : all)
+         {
+            writeList(out, strings, a.getSign());
+         }
+         for (Archive a : all)
+         {
+            writeList(out, strings, a.getRequires());
+         }
+         for (Archive a : all)
+         {
+            writeList(out, strings, a.getProvides().keySet());
+         }
+         for (Archive a : all)
+         {
+            for (Long uid : a.getProvides().values())
+            {
+               out.writeBoolean(null != uid);
+               if (null != uid)
+               {
+                  out.writeLong(uid.longValue());
+               }
+            }
+         }
+         for (Archive a : all)
+         {
+            writeList(out, strings, a.getProfiles());
+         }
+         for (Archive a : all)
+         {
+            writeMap(out, strings, a.getClassDependencies());
+         }
+         for (Archive a : all)
+         {
+            writeMap(out, strings, a.getPackageDependencies());
+         }
+         for (Archive a : all)
+         {
+            writeMap(out, strings, a.getBlackListedDependencies());
+         }
+         for (Archive a : all)
+         {
+            writeVarInt(out, a.getLocations().size());
+            for (Location l : a.getLocations())
+            {
+               writeVarInt(out, strings.ref(l.getFilename()));
+               writeVarInt(out, strings.ref(l.getVersion()));
+            }
+         }
+         for (Archive a : all)
+         {
+            final List<Archive> subArchives = getSubArchives(a);
+            writeVarInt(out, subArchives.size());
+            for (Archive sa : subArchives)
+            {
+               writeVarInt(out, positions.get(sa).intValue());
+            }
+         }
+
+         writeVarInt(out, archives.size());
+         for (Archive a : archives)
+         {
+            writeVarInt(out, positions.get(a).intValue());
+         }
+
+         writeMap(out, strings, gProvides);
+         writeMap(out, strings, dependants);
+
+         out.flush();
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   /**
+    * Read the binary format, with the names interned into a table of their own
+    * @param file The file
+    * @return The model
+    * @throws IOException If the file can't be read or isn't a model
+    */
+   public static Model readBinary(File file) throws IOException
+   {
+      return readBinary(file, new Symbols());
+   }
+
+   /**
+    * Read the binary format. The file is read into a buffer through its channel
+    * instead of through a stream.
+    * @param file    The file
+    * @param symbols The table the names of the archives are interned into
+    * @return The model
+    * @throws IOException If the file can't be read or isn't a model
+    */
+   public static Model readBinary(File file, Symbols symbols) throws IOException
+   {
+      final ByteBuffer in;
+      final RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try
+      {
+         final FileChannel channel = raf.getChannel();
+         if (channel.size() > Integer.MAX_VALUE)
+         {
+            throw new IOException("Model too large: " + file);
+         }
+         in = ByteBuffer.allocate((int) channel.size());
+         while (in.hasRemaining())
+         {
+            if (channel.read(in) < 0)
+            {
+               throw new IOException("Truncated model: " + file);
+            }
+         }
+         in.flip();
+      }
+      finally
+      {
+         raf.close();
+      }
+
+      try
+      {
+         if (in.remaining() < 8 || MAGIC != in.getInt())
+         {
+            throw new IOException("Not a model: " + file);
+         }
+         final int format = in.getInt();
+         if (FORMAT != format)
+         {
+            throw new IOException("Unsupported model format " + format + ": " + file);
+         }
+
+         final String[] strings = new String[readVarInt(in)];
+         byte[] buffer = new byte[256];
+         for (int i = 0; i < strings.length; i++)
+         {
+            final int length = readVarInt(in);
+            if (buffer.length < length)
+            {
+               buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            in.get(buffer, 0, length);
+            strings[i] = new String(buffer, 0, length, UTF8);
+         }
+
+         final int count = readVarInt(in);
+         final ArchiveType[] types = new ArchiveType[count];
+         for (int i = 0; i < count; i++)
+         {
+            types[i] = ArchiveType.values()[in.get()];
+         }
+         final String[] names = new String[count];
+         for (int i = 0; i < count; i++)
+         {
+            names[i] = readString(in, strings);
+         }
+         final int[] versions = new int[count];
+         for (int i = 0; i < count; i++)
+         {
+            versions[i] = readVarInt(in);
+         }
+         final String[] moduleIdentifiers = new String[count];
+         for (int i = 0; i < count; i++)
+         {
+            moduleIdentifiers[i] = readString(in, strings);
+         }
+         final List<List<String>> manifests = new ArrayList<List<String>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            manifests.add(readList(in, strings));
+         }
+         final List<List<String>> signs = new ArrayList<List<String>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            signs.add(readList(in, strings));
+         }
+         final List<List<String>> requires = new ArrayList<List<String>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            requires.add(readList(in, strings));
+         }
+         final List<List<String>> provides = new ArrayList<List<String>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            provides.add(readList(in, strings));
+         }
+         final List<SortedMap<String, Long>> providesMaps = new ArrayList<SortedMap<String, Long>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            final SortedMap<String, Long> map = new TreeMap<String, Long>();
+            for (String clz : provides.get(i))
+            {
+               map.put(clz, (0 != in.get()) ? Long.valueOf(in.getLong()) : null);
+            }
+            providesMaps.add(map);
+         }
+         final List<List<String>> profiles = new ArrayList<List<String>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            profiles.add(readList(in, strings));
+         }
+         final List<SortedMap<String, SortedSet<String>>> classDependencies =
+            new ArrayList<SortedMap<String, SortedSet<String>>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            classDependencies.add(readMap(in, strings));
+         }
+         final List<SortedMap<String, SortedSet<String>>> packageDependencies =
+            new ArrayList<SortedMap<String, SortedSet<String>>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            packageDependencies.add(readMap(in, strings));
+         }
+         final List<SortedMap<String, SortedSet<String>>> blacklistedDependencies =
+            new ArrayList<SortedMap<String, SortedSet<String>>>(count);
+         for (int i = 0; i < count; i++)
+         {
+            blacklistedDependencies.add(readMap(in, strings));
+         }
+
+         final Archive[] all = new Archive[count];
+         for (int i = 0; i < count; i++)
+         {
+            final SortedSet<String> req = new TreeSet<String>(requires.get(i));
+            switch (types[i])
+            {
+               case CLASS:
+                  all[i] = new ClassesArchive(names[i], versions[i], manifests.get(i), signs.get(i), req,
+                                              providesMaps.get(i), classDependencies.get(i),
+                                              packageDependencies.get(i), blacklistedDependencies.get(i), null,
+                                              symbols);
+                  break;
+               case WAR:
+                  all[i] = new WarArchive(names[i], versions[i], manifests.get(i), signs.get(i), req,
+                                          providesMaps.get(i), classDependencies.get(i),
+                                          packageDependencies.get(i), blacklistedDependencies.get(i), null, null,
+                                          symbols);
+                  break;
+               case EAR:
+                  all[i] = new EarArchive(names[i], versions[i], manifests.get(i), signs.get(i), req,
+                                          providesMaps.get(i), classDependencies.get(i),
+                                          packageDependencies.get(i), blacklistedDependencies.get(i), null, null,
+                                          symbols);
+                  break;
+               default:
+                  all[i] = new JarArchive(names[i], versions[i], manifests.get(i), signs.get(i), req,
+                                          providesMaps.get(i), classDependencies.get(i),
+                                          packageDependencies.get(i), blacklistedDependencies.get(i), null, symbols);
+                  break;
+            }
+            all[i].setModuleIdentifier(moduleIdentifiers[i]);
+            for (String profile : profiles.get(i))
+            {
+               all[i].addProfile(profile);
+            }
+         }
+
+         for (int i = 0; i < count; i++)
+         {
+            for (int n = readVarInt(in); n > 0; n--)
+            {
+               all[i].addLocation(new Location(readString(in, strings), readString(in, strings)));
+            }
+         }
+         for (int i = 0; i < count; i++)
+         {
+            for (int n = readVarInt(in); n > 0; n--)
+            {
+               final Archive sa = all[readVarInt(in)];
+               ((NestableArchive) all[i]).addSubArchive(sa);
+               sa.setParentArchive(all[i]);
+            }
+         }
+
+         final SortedSet<Archive> archives = new TreeSet<Archive>();
+         for (int n = readVarInt(in); n > 0; n--)
+         {
+            archives.add(all[readVarInt(in)]);
+         }
+
+         final SortedMap<String, SortedSet<String>> gProvides = readMap(in, strings);
+         final SortedMap<String, SortedSet<String>> dependants = readMap(in, strings);
+
+         return new Model(archives, gProvides, dependants);
+      }
+      catch (BufferUnderflowException bue)
+      {
+         throw new IOException("Truncated model: " + file);
+      }
+      catch (RuntimeException re)
+      {
+         throw new IOException("Corrupt model: " + file + " (" + re + ")");
+      }
+   }
+
+   /**
+    * Write the JSON Lines format. The first line describes the format; it is followed
+    * by a line of type <code>archive</code> for each archive, <code>provides</code> for
+    * each class and <code>dependants</code> for each node of the dependants graph.
+    * @param file The file
+    * @throws IOException If the file can't be written
+    */
+   public void writeJsonLines(File file) throws IOException
+   {
+      final BufferedWriter out =
+         new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8), 65536);
+      try
+      {
+         out.write("{\"type\":\"model\",\"format\":" + FORMAT + "}");
+         out.newLine();
+
+         for (Archive a : flatten())
+         {
+            out.write("{\"type\":\"archive\",\"name\":");
+            writeJson(out, a.getName());
+            out.write(",\"archiveType\":");
+            writeJson(out, a.getType().toString());
+            out.write(",\"version\":" + a.getVersion());
+            out.write(",\"top\":" + archives.contains(a));
+            out.write(",\"parent\":");
+            writeJson(out, (null != a.getParentArchive()) ? a.getParentArchive().getName() : null);
+            out.write(",\"moduleIdentifier\":");
+            writeJson(out, a.getModuleIdentifier());
+            out.write(",\"manifest\":");
+            writeJson(out, a.getManifest());
+            out.write(",\"sign\":");
+            writeJson(out, a.getSign());
+            out.write(",\"requires\":");
+            writeJson(out, a.getRequires());
+            out.write(",\"provides\":{");
+            boolean first = true;
+            for (Map.Entry<String, Long> entry : a.getProvides().entrySet())
+            {
+               if (!first)
+               {
+                  out.write(',');
+               }
+               writeJson(out, entry.getKey());
+               out.write(':');
+               out.write(String.valueOf(entry.getValue()));
+               first = false;
+            }
+            out.write("},\"profiles\":");
+            writeJson(out, a.getProfiles());
+            out.write(",\"classDependencies\":");
+            writeJson(out, a.getClassDependencies());
+            out.write(",\"packageDependencies\":");
+            writeJson(out, a.getPackageDependencies());
+            out.write(",\"blacklistedDependencies\":");
+            writeJson(out, a.getBlackListedDependencies());
+            out.write(",\"locations\":[");
+            first = true;
+            for (Location l : a.getLocations())
+            {
+               if (!first)
+               {
+                  out.write(',');
+               }
+               out.write("{\"filename\":");
+               writeJson(out, l.getFilename());
+               out.write(",\"version\":");
+               writeJson(out, l.getVersion());
+               out.write('}');
+               first = false;
+            }
+            out.write("],\"subArchives\":[");
+            first = true;
+            for (Archive sa : getSubArchives(a))
+            {
+               if (!first)
+               {
+                  out.write(',');
+               }
+               writeJson(out, sa.getName());
+               first = false;
+            }
+            out.write("]}");
+            out.newLine();
+         }
+
+         for (Map.Entry<String, SortedSet<String>> entry : gProvides.entrySet())
+         {
+            out.write("{\"type\":\"provides\",\"class\":");
+            writeJson(out, entry.getKey());
+            out.write(",\"archives\":");
+            writeJson(out, entry.getValue());
+            out.write('}');
+            out.newLine();
+         }
+
+         for (Map.Entry<String, SortedSet<String>> entry : dependants.entrySet())
+         {
+            out.write("{\"type\":\"dependants\",\"archive\":");
+            writeJson(out, entry.getKey());
+            out.write(",\"dependants\":");
+            writeJson(out, entry.getValue());
+            out.write('}');
+            out.newLine();
+         }
+
+         out.flush();
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   /**
+    * Get the archives and all their sub-archives; each archive is listed once,
+    * before its sub-archives
+    * @return The archives
+    */
+   private List<Archive> flatten()
+   {
+      final List<Archive> all = new ArrayList<Archive>(archives.size());
+      final Map<Archive, Boolean> seen = new IdentityHashMap<Archive, Boolean>();
+      for (Archive a : archives)
+      {
+         flatten(a, all, seen);
+      }
+      return all;
+   }
+
+   /**
+    * Add an archive and its sub-archives
+    * @param archive The archive
+    * @param all     The archives found so far
+    * @param seen    The archives found so far, by identity
+    */
+   private static void flatten(Archive archive, List<Archive> all, Map<Archive, Boolean> seen)
+   {
+      if (null == seen.put(archive, Boolean.TRUE))
+      {
+         all.add(archive);
+         for (Archive sa : getSubArchives(archive))
+         {
+            flatten(sa, all, seen);
+         }
+      }
+   }
+
+   /**
+    * Get the sub-archives of an archive
+    * @param archive The archive
+    * @return The sub-archives
+    */
+   private static List<Archive> getSubArchives(Archive archive)
+   {
+      if (archive instanceof NestableArchive)
+      {
+         return ((NestableArchive) archive).getSubArchives();
+      }
+      return Collections.emptyList();
+   }
+
+   /**
+    * Write a list of strings; a <code>null</code> list is written as a size of 0
+    * and an empty list as 1
+    * @param out     The stream
+    * @param strings The string table
+    * @param values  The strings
+    * @throws IOException If an error occurs
+    */
+   private static void writeList(DataOutputStream out, StringTable strings, Collection<String> values)
+      throws IOException
+   {
+      if (null == values)
+      {
+         writeVarInt(out, 0);
+         return;
+      }
+
+      writeVarInt(out, values.size() + 1);
+      for (String s : values)
+      {
+         writeVarInt(out, strings.ref(s));
+      }
+   }
+
+   /**
+    * Read a list of strings
+    * @param in      The buffer
+    * @param strings The string table
+    * @return The strings; <code>null</code> if a <code>null</code> list was written
+    */
+   private static List<String> readList(ByteBuffer in, String[] strings)
+   {
+      final int size = readVarInt(in);
+      if (0 == size)
+      {
+         return null;
+      }
+
+      final List<String> values = new ArrayList<String>(size - 1);
+      for (int i = 1; i < size; i++)
+      {
+         values.add(readString(in, strings));
+      }
+      return values;
+   }
+
+   /**
+    * Read a map of string sets
+    * @param in      The buffer
+    * @param strings The string table
+    * @return The map
+    */
+   private static SortedMap<String, SortedSet<String>> readMap(ByteBuffer in, String[] strings)
+   {
+      final SortedMap<String, SortedSet<String>> map = new TreeMap<String, SortedSet<String>>();
+      for (String key : readList(in, strings))
+      {
+         final List<String> values = readList(in, strings);
+         map.put(key, (null != values) ? new TreeSet<String>(values) : null);
+      }
+      return map;
+   }
+
+   /**
+    * Read a string reference
+    * @param in      The buffer
+    * @param strings The string table
+    * @return The string; <code>null</code> if a <code>null</code> string was written
+    */
+   private static String readString(ByteBuffer in, String[] strings)
+   {
+      final int ref = readVarInt(in);
+      return (0 != ref) ? strings[ref - 1] : null;
+   }
+
+   /**
+    * Read a variable length int
+    * @param in The buffer
+    * @return The value
+    */
+   private static int readVarInt(ByteBuffer in)
+   {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do
+      {
+         b = in.get();
+         value |= (b & 0x7f) << shift;
+         shift += 7;
+      }
+      while (b < 0);
+      return value;
+   }
+
+   /**
+    * Write a map of string sets: the keys followed by the values of each key
+    * @param out     The stream
+    * @param strings The string table
+    * @param map     The map
+    * @throws IOException If an error occurs
+    */
+   private static void writeMap(DataOutputStream out, StringTable strings,
+                                Map<String, ? extends Collection<String>> map)
+      throws IOException
+   {
+      writeList(out, strings, map.keySet());
+      for (Collection<String> values : map.values())
+      {
+         writeList(out, strings, values);
+      }
+   }
+
+   /**
+    * Write a variable length int
+    * @param out   The stream
+    * @param value The value
+    * @throws IOException If an error occurs
+    */
+   private static void writeVarInt(DataOutputStream out, int value) throws IOException
+   {
+      while ((value & ~0x7f) != 0)
+      {
+         out.writeByte((value & 0x7f) | 0x80);
+         value >>>= 7;
+      }
+      out.writeByte(value);
+   }
+
+   /**
+    * Write a JSON string
+    * @param out The writer
+    * @param s   The string; may be <code>null</code>
+    * @throws IOException If an error occurs
+    */
+   private static void writeJson(Writer out, String s) throws IOException
+   {
+      if (null == s)
+      {
+         out.write("null");
+         return;
+      }
+
+      out.write('"');
+      for (int i = 0; i < s.length(); i++)
+      {
+         final char c = s.charAt(i);
+         if (c == '"' || c == '\\')
+         {
+            out.write('\\');
+            out.write(c);
+         }
+         else if (c < 0x20)
+         {
+            out.write(String.format("\\u%04x", (int) c));
+         }
+         else
+         {
+            out.write(c);
+         }
+      }
+      out.write('"');
+   }
+
+   /**
+    * Write a JSON array of strings
+    * @param out    The writer
+    * @param values The strings; may be <code>null</code>
+    * @throws IOException If an error occurs
+    */
+   private static void writeJson(Writer out, Collection<String> values) throws IOException
+   {
+      if (null == values)
+      {
+         out.write("null");
+         return;
+      }
+
+      out.write('[');
+      boolean first = true;
+      for (String s : values)
+      {
+         if (!first)
+         {
+            out.write(',');
+         }
+         writeJson(out, s);
+         first = false;
+      }
+      out.write(']');
+   }
+
+   /**
+    * Write a JSON object of string arrays
+    * @param out The writer
+    * @param map The map
+    * @throws IOException If an error occurs
+    */
+   private static void writeJson(Writer out, Map<String, ? extends Collection<String>> map) throws IOException
+   {
+      out.write('{');
+      boolean first = true;
+      for (Map.Entry<String, ? extends Collection<String>> entry : map.entrySet())
+      {
+         if (!first)
+         {
+            out.write(',');
+         }
+         writeJson(out, entry.getKey());
+         out.write(':');
+         writeJson(out, entry.getValue());
+         first = false;
+      }
+      out.write('}');
+   }
+
+   /**
+    * The strings of a model, in order of first use. A string is referred to by its
+    * position plus one; 0 stands for <code>null</code>.
+    */
+   private static final class StringTable
+   {
+      /** The positions */
+      private final Map<String, Integer> positions = new HashMap<String, Integer>();
+
+      /** The strings */
+      private final List<String> values = new ArrayList<String>();
+
+      /**
+       * Add a string
+       * @param s The string; may be <code>null</code>
+       */
+      void add(String s)
+      {
+         if (null != s && !positions.containsKey(s))
+         {
+            positions.put(s, values.size());
+            values.add(s);
+         }
+      }
+
+      /**
+       * Add strings
+       * @param c The strings; may be <code>null</code>
+       */
+      void addAll(Collection<String> c)
+      {
+         if (null != c)
+         {
+            for (String s : c)
+            {
+               add(s);
+            }
+         }
+      }
+
+      /**
+       * Add the keys and values of a map
+       * @param map The map
+       */
+      void addAll(Map<String, ? extends Collection<String>> map)
+      {
+         for (Map.Entry<String, ? extends Collection<String>> entry : map.entrySet())
+         {
+            add(entry.getKey());
+            addAll(entry.getValue());
+         }
+      }
+
+      /**
+       * Get the reference to a string
+       * @param s The string; may be <code>null</code>
+       * @return The position plus one; 0 for <code>null</code>
+       */
+      int ref(String s)
+      {
+         return (null != s) ? positions.get(s).intValue() + 1 : 0;
+      }
+
+      /**
+       * Get the number of strings
+       * @return The value
+       */
+      int size()
+      {
+         return values.size();
+      }
+   }
+}
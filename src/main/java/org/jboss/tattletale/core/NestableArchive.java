@@ -24,6 +24,7 @@ package org.jboss.tattletale.core;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 
@@ -53,15 +54,17 @@ public abstract class NestableArchive extends Archive
     * @param packageDependencies     The package dependencies
     * @param blacklistedDependencies The blacklisted dependencies
     * @param location                The location
+    * @param symbols                 The table the names are interned into
     */
    protected NestableArchive(ArchiveType type, String name, int version, List<String> manifest, List<String> sign,
                              SortedSet<String> requires, SortedMap<String, Long> provides,
                              SortedMap<String, SortedSet<String>> classDependencies,
                              SortedMap<String, SortedSet<String>> packageDependencies,
-                             SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location)
+                             SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location,
+                             Symbols symbols)
    {
       super(type, name, version, manifest, sign, requires, provides,
-            classDependencies, packageDependencies, blacklistedDependencies, location);
+            classDependencies, packageDependencies, blacklistedDependencies, location, symbols);
 
       subArchives = null;
    }
@@ -80,16 +83,17 @@ public abstract class NestableArchive extends Archive
     * @param blacklistedDependencies The blacklisted dependencies
     * @param location                The location
     * @param subArchives             The sub-archives that are stored locally.
+    * @param symbols                 The table the names are interned into
     */
    protected NestableArchive(ArchiveType type, String name, int version, List<String> manifest, List<String> sign,
                              SortedSet<String> requires, SortedMap<String, Long> provides,
                              SortedMap<String, SortedSet<String>> classDependencies,
                              SortedMap<String, SortedSet<String>> packageDependencies,
                              SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location,
-                             List<Archive> subArchives)
+                             List<Archive> subArchives, Symbols symbols)
    {
       super(type, name, version, manifest, sign, requires, provides,
-            classDependencies, packageDependencies, blacklistedDependencies, location);
+            classDependencies, packageDependencies, blacklistedDependencies, location, symbols);
 
       this.subArchives = subArchives;
       addParentArchive(subArchives);
@@ -121,6 +125,24 @@ public abstract class NestableArchive extends Archive
       }
    }
 
+   /**
+    * Drop the facets that aren't needed, here and in the sub-archives
+    * @param facets The facets to keep
+    */
+   @Override
+   public void retain(Set<ArchiveFacet> facets)
+   {
+      super.retain(facets);
+
+      if (null != subArchives)
+      {
+         for (Archive archive : subArchives)
+         {
+            archive.retain(facets);
+         }
+      }
+   }
+
    /**
     * Method addParentArchive.
     * @param subArchives List<Archive>
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable set of prefixes that tells if one of them starts a string. The
+ * prefixes are compiled into a trie held in flat arrays: the edges of a node are
+ * sorted by character, so a lookup costs a binary search per character of the string,
+ * whatever the number of prefixes, and allocates nothing.
+ */
+public final class PrefixTrie
+{
+   /** An empty trie */
+   public static final PrefixTrie EMPTY = new PrefixTrie(new ArrayList<String>(0));
+
+   /** The first edge of each node; the edges of node n end where those of n + 1 start */
+   private final int[] edges;
+
+   /** The character of each edge */
+   private final char[] labels;
+
+   /** The node each edge leads to */
+   private final int[] targets;
+
+   /** Does a prefix end at the node */
+   private final boolean[] terminal;
+
+   /**
+    * Constructor
+    * @param prefixes The prefixes
+    */
+   public PrefixTrie(Collection<String> prefixes)
+   {
+      final Node root = new Node();
+      for (String prefix : prefixes)
+      {
+         Node node = root;
+         for (int i = 0; i < prefix.length() && !node.terminal; i++)
+         {
+            final Character c = Character.valueOf(prefix.charAt(i));
+            Node child = node.children.get(c);
+            if (null == child)
+            {
+               child = new Node();
+               node.children.put(c, child);
+            }
+            node = child;
+         }
+         node.terminal = true;
+         // Longer prefixes can never be the first to match
+         node.children.clear();
+      }
+
+      // Number the nodes breadth first so that the edges of a node are contiguous
+      final List<Node> nodes = new ArrayList<Node>();
+      nodes.add(root);
+      int edgeCount = 0;
+      for (int n = 0; n < nodes.size(); n++)
+      {
+         final Node node = nodes.get(n);
+         edgeCount += node.children.size();
+         nodes.addAll(node.children.values());
+      }
+
+      this.edges = new int[nodes.size() + 1];
+      this.labels = new char[edgeCount];
+      this.targets = new int[edgeCount];
+      this.terminal = new boolean[nodes.size()];
+
+      int e = 0;
+      int next = 1;
+      for (int n = 0; n < nodes.size(); n++)
+      {
+         final Node node = nodes.get(n);
+         edges[n] = e;
+         terminal[n] = node.terminal;
+         for (Map.Entry<Character, Node> entry : node.children.entrySet())
+         {
+            labels[e] = entry.getKey().charValue();
+            targets[e] = next++;
+            e++;
+         }
+      }
+      edges[nodes.size()] = e;
+   }
+
+   /**
+    * Is the trie empty
+    * @return True if there are no prefixes; otherwise false
+    */
+   public boolean isEmpty()
+   {
+      return !terminal[0] && 0 == labels.length;
+   }
+
+   /**
+    * Does one of the prefixes start a string
+    * @param s The string
+    * @return True if a prefix starts the string; otherwise false
+    */
+   public boolean hasPrefixOf(String s)
+   {
+      return hasPrefixOf(s, s.length(), '\0', '\0');
+   }
+
+   /**
+    * Does one of the prefixes start the beginning of a string, read with one character
+    * replaced by another
+    * @param s    The string
+    * @param end  The end of the part of the string to match
+    * @param from The character to replace
+    * @param to   The replacement
+    * @return True if a prefix starts the part of the string; otherwise false
+    */
+   public boolean hasPrefixOf(String s, int end, char from, char to)
+   {
+      int node = 0;
+      for (int i = 0; !terminal[node]; i++)
+      {
+         if (i == end)
+         {
+            return false;
+         }
+
+         final char c = s.charAt(i);
+         node = child(node, (c == from) ? to : c);
+         if (node < 0)
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Follow an edge
+    * @param node The node
+    * @param c    The character
+    * @return The node the edge leads to; -1 if there is no such edge
+    */
+   private int child(int node, char c)
+   {
+      int low = edges[node];
+      int high = edges[node + 1] - 1;
+      while (low <= high)
+      {
+         final int mid = (low + high) >>> 1;
+         final char label = labels[mid];
+         if (label < c)
+         {
+            low = mid + 1;
+         }
+         else if (label > c)
+         {
+            high = mid - 1;
+         }
+         else
+         {
+            return targets[mid];
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * A node of the trie being built
+    */
+   private static final class Node
+   {
+      /** The children, by character */
+      private final TreeMap<Character, Node> children = new TreeMap<Character, Node>();
+
+      /** Does a prefix end here */
+      private boolean terminal;
+   }
+}
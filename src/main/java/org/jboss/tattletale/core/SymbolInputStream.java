@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+
+/**
+ * An object input stream that interns the names of the {@link SymbolSet}s and
+ * {@link SymbolMap}s it reads into a given {@link Symbols} table. Sets and maps read
+ * from a plain {@link ObjectInputStream} get a table of their own.
+ */
+public class SymbolInputStream extends ObjectInputStream
+{
+   /** The table the names are interned into */
+   private final Symbols symbols;
+
+   /**
+    * Constructor
+    * @param in      The stream to read from
+    * @param symbols The table the names are interned into
+    * @throws IOException If the stream header can't be read
+    */
+   public SymbolInputStream(InputStream in, Symbols symbols) throws IOException
+   {
+      super(in);
+      this.symbols = symbols;
+   }
+
+   /**
+    * Get the table the names are interned into
+    * @return The value
+    */
+   public Symbols getSymbols()
+   {
+      return symbols;
+   }
+
+   /**
+    * Get the table the names read from a stream are interned into
+    * @param in The stream
+    * @return The table
+    */
+   static Symbols getSymbols(ObjectInputStream in)
+   {
+      return (in instanceof SymbolInputStream) ? ((SymbolInputStream) in).getSymbols() : new Symbols();
+   }
+}
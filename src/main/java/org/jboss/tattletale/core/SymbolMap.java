@@ -0,0 +1,449 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * An immutable sorted map keyed by names. The keys are a {@link SymbolSet} and the
+ * values are held in an array in key order. It iterates like a {@link java.util.TreeMap}
+ * with the same entries.
+ * @param <V> The type of the values
+ */
+public final class SymbolMap<V> extends AbstractMap<String, V> implements SortedMap<String, V>, Serializable
+{
+   /** SerialVersionUID */
+   static final long serialVersionUID = 1L;
+
+   /** The empty map */
+   @SuppressWarnings("rawtypes")
+   private static final SymbolMap EMPTY = new SymbolMap<Object>(SymbolSet.EMPTY, new Object[0], 0);
+
+   /** The keys */
+   private final transient SymbolSet keys;
+
+   /** The values, in key order */
+   private final transient Object[] values;
+
+   /** The position of the value of the first key */
+   private final transient int offset;
+
+   /**
+    * Constructor
+    * @param keys   The keys
+    * @param values The values, in key order
+    * @param offset The position of the value of the first key
+    */
+   private SymbolMap(SymbolSet keys, Object[] values, int offset)
+   {
+      this.keys = keys;
+      this.values = values;
+      this.offset = offset;
+   }
+
+   /**
+    * Get the empty map
+    * @param <V> The type of the values
+    * @return The map
+    */
+   @SuppressWarnings("unchecked")
+   public static <V> SymbolMap<V> empty()
+   {
+      return (SymbolMap<V>) EMPTY;
+   }
+
+   /**
+    * Get the map of a map keyed by names
+    * @param <V>     The type of the values
+    * @param symbols The table the keys are interned into
+    * @param map     The map; <code>null</code> gives an empty map
+    * @return The map
+    */
+   @SuppressWarnings("unchecked")
+   public static <V> SymbolMap<V> of(Symbols symbols, Map<String, ? extends V> map)
+   {
+      if (map instanceof SymbolMap)
+      {
+         return (SymbolMap<V>) map;
+      }
+      if (null == map || map.isEmpty())
+      {
+         return empty();
+      }
+
+      final SymbolSet keys = SymbolSet.of(symbols, map.keySet());
+      final Object[] values = new Object[keys.size()];
+      for (Map.Entry<String, ? extends V> entry : map.entrySet())
+      {
+         values[keys.indexOf(entry.getKey())] = entry.getValue();
+      }
+      return new SymbolMap<V>(keys, values, 0);
+   }
+
+   /**
+    * Get the map of a map from names to sets of names; the sets are held as
+    * {@link SymbolSet}s too
+    * @param symbols The table the names are interned into
+    * @param map     The map; <code>null</code> gives an empty map
+    * @return The map
+    */
+   public static SymbolMap<SortedSet<String>> ofSets(Symbols symbols, Map<String, ? extends Collection<String>> map)
+   {
+      if (null == map || map.isEmpty())
+      {
+         return empty();
+      }
+
+      final SymbolSet keys = SymbolSet.of(symbols, map.keySet());
+      final Object[] values = new Object[keys.size()];
+      for (Map.Entry<String, ? extends Collection<String>> entry : map.entrySet())
+      {
+         values[keys.indexOf(entry.getKey())] =
+            (null != entry.getValue()) ? SymbolSet.of(symbols, entry.getValue()) : null;
+      }
+      return new SymbolMap<SortedSet<String>>(keys, values, 0);
+   }
+
+   /**
+    * Get a map with <code>null</code> values
+    * @param <V>  The type of the values
+    * @param keys The keys
+    * @return The map
+    */
+   public static <V> SymbolMap<V> ofKeys(SymbolSet keys)
+   {
+      if (keys.isEmpty())
+      {
+         return empty();
+      }
+      return new SymbolMap<V>(keys, new Object[keys.size()], 0);
+   }
+
+   /**
+    * Get the number of entries
+    * @return The value
+    */
+   public int size()
+   {
+      return keys.size();
+   }
+
+   /**
+    * Is the map empty
+    * @return True if empty; otherwise false
+    */
+   public boolean isEmpty()
+   {
+      return keys.isEmpty();
+   }
+
+   /**
+    * Is there a value for a key
+    * @param key The key
+    * @return True if the key is in the map; otherwise false
+    */
+   public boolean containsKey(Object key)
+   {
+      return keys.contains(key);
+   }
+
+   /**
+    * Get the value of a key
+    * @param key The key
+    * @return The value; <code>null</code> if the key isn't in the map
+    */
+   public V get(Object key)
+   {
+      if (!(key instanceof String))
+      {
+         return null;
+      }
+      final int i = keys.indexOf((String) key);
+      return (i >= 0) ? value(i) : null;
+   }
+
+   /**
+    * Get the comparator
+    * @return <code>null</code>, the keys are in natural order
+    */
+   public Comparator<? super String> comparator()
+   {
+      return null;
+   }
+
+   /**
+    * Get the first key
+    * @return The key
+    */
+   public String firstKey()
+   {
+      return keys.first();
+   }
+
+   /**
+    * Get the last key
+    * @return The key
+    */
+   public String lastKey()
+   {
+      return keys.last();
+   }
+
+   /**
+    * Get the entries from a key, inclusive, to another key, exclusive
+    * @param fromKey The low end
+    * @param toKey   The high end
+    * @return The view
+    */
+   public SortedMap<String, V> subMap(String fromKey, String toKey)
+   {
+      return view((SymbolSet) keys.subSet(fromKey, toKey));
+   }
+
+   /**
+    * Get the entries before a key
+    * @param toKey The high end, exclusive
+    * @return The view
+    */
+   public SortedMap<String, V> headMap(String toKey)
+   {
+      return view((SymbolSet) keys.headSet(toKey));
+   }
+
+   /**
+    * Get the entries from a key
+    * @param fromKey The low end, inclusive
+    * @return The view
+    */
+   public SortedMap<String, V> tailMap(String fromKey)
+   {
+      return view((SymbolSet) keys.tailSet(fromKey));
+   }
+
+   /**
+    * Get the keys
+    * @return The keys, in order
+    */
+   public SymbolSet keySet()
+   {
+      return keys;
+   }
+
+   /**
+    * Get the values
+    * @return The values, in key order
+    */
+   public Collection<V> values()
+   {
+      return new AbstractCollection<V>()
+      {
+         public int size()
+         {
+            return keys.size();
+         }
+
+         public Iterator<V> iterator()
+         {
+            return new Cursor<V>()
+            {
+               V get(int index)
+               {
+                  return value(index);
+               }
+            };
+         }
+      };
+   }
+
+   /**
+    * Get the entries
+    * @return The entries, in key order
+    */
+   public Set<Map.Entry<String, V>> entrySet()
+   {
+      return new AbstractSet<Map.Entry<String, V>>()
+      {
+         public int size()
+         {
+            return keys.size();
+         }
+
+         public Iterator<Map.Entry<String, V>> iterator()
+         {
+            return new Cursor<Map.Entry<String, V>>()
+            {
+               Map.Entry<String, V> get(int index)
+               {
+                  return new SimpleImmutableEntry<String, V>(keys.get(index), value(index));
+               }
+            };
+         }
+      };
+   }
+
+   /**
+    * Get a value
+    * @param index The position of the key
+    * @return The value
+    */
+   @SuppressWarnings("unchecked")
+   private V value(int index)
+   {
+      return (V) values[offset + index];
+   }
+
+   /**
+    * Get the view of a range of keys
+    * @param range The keys, a view of the keys of this map
+    * @return The view
+    */
+   private SortedMap<String, V> view(SymbolSet range)
+   {
+      final int first = range.isEmpty() ? 0 : keys.indexOf(range.first());
+      return new SymbolMap<V>(range, values, offset + first);
+   }
+
+   /**
+    * Serialize the entries, as ids are only valid in this VM
+    * @return The serialized form
+    */
+   private Object writeReplace()
+   {
+      final String[] names = keys.toArray(new String[keys.size()]);
+      return new SerializedForm(names, Arrays.copyOfRange(values, offset, offset + names.length));
+   }
+
+   /**
+    * An iterator over the positions of the keys
+    * @param <E> The type of the elements
+    */
+   private abstract class Cursor<E> implements Iterator<E>
+   {
+      /** The next position */
+      private int next = 0;
+
+      /**
+       * Get the element at a position
+       * @param index The position
+       * @return The element
+       */
+      abstract E get(int index);
+
+      /**
+       * Is there a next element
+       * @return True if there is; otherwise false
+       */
+      public boolean hasNext()
+      {
+         return next < keys.size();
+      }
+
+      /**
+       * Get the next element
+       * @return The element
+       */
+      public E next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+         return get(next++);
+      }
+
+      /**
+       * Not supported, the map is immutable
+       */
+      public void remove()
+      {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * The serialized form of a map
+    */
+   private static final class SerializedForm implements Serializable
+   {
+      /** SerialVersionUID */
+      static final long serialVersionUID = 1L;
+
+      /** The keys */
+      private final String[] keys;
+
+      /** The values, in key order */
+      private final Object[] values;
+
+      /** The table the keys are interned into when read */
+      private transient Symbols symbols;
+
+      /**
+       * Constructor
+       * @param keys   The keys
+       * @param values The values, in key order
+       */
+      SerializedForm(String[] keys, Object[] values)
+      {
+         this.keys = keys;
+         this.values = values;
+      }
+
+      /**
+       * Read the entries
+       * @param in The stream
+       * @throws IOException If the entries can't be read
+       * @throws ClassNotFoundException If the class of a value can't be found
+       */
+      private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+      {
+         in.defaultReadObject();
+         symbols = SymbolInputStream.getSymbols(in);
+      }
+
+      /**
+       * Rebuild the map
+       * @return The map
+       */
+      private Object readResolve()
+      {
+         if (0 == keys.length)
+         {
+            return EMPTY;
+         }
+         return new SymbolMap<Object>(SymbolSet.of(symbols, Arrays.asList(keys)), values, 0);
+      }
+   }
+}
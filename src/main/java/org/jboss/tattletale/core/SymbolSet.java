@@ -0,0 +1,360 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * An immutable sorted set of names, held as the ids of the names in a
+ * {@link Symbols} table ordered by name. It iterates like a {@link java.util.TreeSet}
+ * of the same names.
+ */
+public final class SymbolSet extends AbstractSet<String> implements SortedSet<String>, Serializable
+{
+   /** SerialVersionUID */
+   static final long serialVersionUID = 1L;
+
+   /** The empty set */
+   static final SymbolSet EMPTY = new SymbolSet(new Symbols(), new int[0], 0, 0);
+
+   /** The table of the ids */
+   private final transient Symbols symbols;
+
+   /** The ids, ordered by name */
+   private final transient int[] ids;
+
+   /** The first position of this set in ids */
+   private final transient int from;
+
+   /** The position after the last element of this set in ids */
+   private final transient int to;
+
+   /**
+    * Constructor
+    * @param symbols The table of the ids
+    * @param ids     The ids, ordered by name
+    * @param from    The first position
+    * @param to      The position after the last element
+    */
+   private SymbolSet(Symbols symbols, int[] ids, int from, int to)
+   {
+      this.symbols = symbols;
+      this.ids = ids;
+      this.from = from;
+      this.to = to;
+   }
+
+   /**
+    * Get the set of names
+    * @param symbols The table the names are interned into
+    * @param names   The names; <code>null</code> gives an empty set
+    * @return The set
+    */
+   public static SymbolSet of(Symbols symbols, Collection<String> names)
+   {
+      if (names instanceof SymbolSet)
+      {
+         return (SymbolSet) names;
+      }
+      if (null == names || names.isEmpty())
+      {
+         return EMPTY;
+      }
+
+      final String[] sorted = names.toArray(new String[names.size()]);
+      if (!(names instanceof SortedSet && null == ((SortedSet<String>) names).comparator()))
+      {
+         Arrays.sort(sorted);
+      }
+
+      final int[] ids = new int[sorted.length];
+      int n = 0;
+      for (int i = 0; i < sorted.length; i++)
+      {
+         if (0 == i || !sorted[i].equals(sorted[i - 1]))
+         {
+            ids[n++] = symbols.intern(sorted[i]);
+         }
+      }
+
+      return new SymbolSet(symbols, (n == ids.length) ? ids : Arrays.copyOf(ids, n), 0, n);
+   }
+
+   /**
+    * Get the number of names
+    * @return The value
+    */
+   public int size()
+   {
+      return to - from;
+   }
+
+   /**
+    * Is the set empty
+    * @return True if empty; otherwise false
+    */
+   public boolean isEmpty()
+   {
+      return to == from;
+   }
+
+   /**
+    * Is a name in the set
+    * @param o The name
+    * @return True if the name is in the set; otherwise false
+    */
+   public boolean contains(Object o)
+   {
+      return o instanceof String && indexOf((String) o) >= 0;
+   }
+
+   /**
+    * Iterate the names in order
+    * @return The iterator
+    */
+   public Iterator<String> iterator()
+   {
+      return new Iterator<String>()
+      {
+         private int next = from;
+
+         public boolean hasNext()
+         {
+            return next < to;
+         }
+
+         public String next()
+         {
+            if (next >= to)
+            {
+               throw new NoSuchElementException();
+            }
+            return symbols.name(ids[next++]);
+         }
+
+         public void remove()
+         {
+            throw new UnsupportedOperationException();
+         }
+      };
+   }
+
+   /**
+    * Get the comparator
+    * @return <code>null</code>, the names are in natural order
+    */
+   public Comparator<? super String> comparator()
+   {
+      return null;
+   }
+
+   /**
+    * Get the first name
+    * @return The name
+    */
+   public String first()
+   {
+      if (isEmpty())
+      {
+         throw new NoSuchElementException();
+      }
+      return symbols.name(ids[from]);
+   }
+
+   /**
+    * Get the last name
+    * @return The name
+    */
+   public String last()
+   {
+      if (isEmpty())
+      {
+         throw new NoSuchElementException();
+      }
+      return symbols.name(ids[to - 1]);
+   }
+
+   /**
+    * Get the names from a name, inclusive, to another name, exclusive
+    * @param fromElement The low end
+    * @param toElement   The high end
+    * @return The view
+    */
+   public SortedSet<String> subSet(String fromElement, String toElement)
+   {
+      if (fromElement.compareTo(toElement) > 0)
+      {
+         throw new IllegalArgumentException(fromElement + " > " + toElement);
+      }
+      return new SymbolSet(symbols, ids, position(fromElement), position(toElement));
+   }
+
+   /**
+    * Get the names before a name
+    * @param toElement The high end, exclusive
+    * @return The view
+    */
+   public SortedSet<String> headSet(String toElement)
+   {
+      return new SymbolSet(symbols, ids, from, position(toElement));
+   }
+
+   /**
+    * Get the names from a name
+    * @param fromElement The low end, inclusive
+    * @return The view
+    */
+   public SortedSet<String> tailSet(String fromElement)
+   {
+      return new SymbolSet(symbols, ids, position(fromElement), to);
+   }
+
+   /**
+    * Get the position of a name
+    * @param name The name
+    * @return The position; -1 if the name isn't in the set
+    */
+   int indexOf(String name)
+   {
+      if (-1 == symbols.find(name))
+      {
+         return -1;
+      }
+
+      final int i = search(name);
+      return (i >= 0) ? i - from : -1;
+   }
+
+   /**
+    * Get the name at a position
+    * @param index The position
+    * @return The name
+    */
+   String get(int index)
+   {
+      return symbols.name(ids[from + index]);
+   }
+
+   /**
+    * Get the first position in ids whose name isn't before a name, within this set
+    * @param name The name
+    * @return The position, between from and to
+    */
+   private int position(String name)
+   {
+      final int i = search(name);
+      final int p = (i >= 0) ? i : -(i + 1);
+      return Math.max(from, Math.min(to, p));
+   }
+
+   /**
+    * Binary search of a name
+    * @param name The name
+    * @return The position in ids if found; otherwise (-(insertion point) - 1)
+    */
+   private int search(String name)
+   {
+      int low = from;
+      int high = to - 1;
+      while (low <= high)
+      {
+         final int mid = (low + high) >>> 1;
+         final int c = symbols.name(ids[mid]).compareTo(name);
+         if (c < 0)
+         {
+            low = mid + 1;
+         }
+         else if (c > 0)
+         {
+            high = mid - 1;
+         }
+         else
+         {
+            return mid;
+         }
+      }
+      return -(low + 1);
+   }
+
+   /**
+    * Serialize the names, as ids are only valid in this VM
+    * @return The serialized form
+    */
+   private Object writeReplace()
+   {
+      return new SerializedForm(toArray(new String[size()]));
+   }
+
+   /**
+    * The serialized form of a set
+    */
+   private static final class SerializedForm implements Serializable
+   {
+      /** SerialVersionUID */
+      static final long serialVersionUID = 1L;
+
+      /** The names */
+      private final String[] names;
+
+      /** The table the names are interned into when read */
+      private transient Symbols symbols;
+
+      /**
+       * Constructor
+       * @param names The names
+       */
+      SerializedForm(String[] names)
+      {
+         this.names = names;
+      }
+
+      /**
+       * Read the names
+       * @param in The stream
+       * @throws IOException If the names can't be read
+       * @throws ClassNotFoundException Never
+       */
+      private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+      {
+         in.defaultReadObject();
+         symbols = SymbolInputStream.getSymbols(in);
+      }
+
+      /**
+       * Rebuild the set
+       * @return The set
+       */
+      private Object readResolve()
+      {
+         return of(symbols, Arrays.asList(names));
+      }
+   }
+}
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The symbol table of class and package names. Every distinct name is kept once
+ * and identified by an int, so that the archives can hold their names as arrays
+ * of ids instead of sets of strings. Ids are only valid within their table and
+ * are never reused.
+ * <p>
+ * Each analysis interns its names into a table of its own, so that a long running
+ * process doesn't keep the names of every analysis it did: each {@link SymbolSet}
+ * refers to the table it was made with, and a table is dropped once none of its sets
+ * is reachable any more.
+ */
+public final class Symbols
+{
+   /** Name to id */
+   private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+   /** Id to name */
+   private volatile String[] names = new String[1024];
+
+   /** The number of names */
+   private int size;
+
+   /** Constructor */
+   public Symbols()
+   {
+   }
+
+   /**
+    * Get the id of a name, adding the name if it isn't known yet
+    * @param name The name
+    * @return The id
+    */
+   public int intern(String name)
+   {
+      final Integer id = ids.get(name);
+      if (null != id)
+      {
+         return id.intValue();
+      }
+
+      synchronized (ids)
+      {
+         final Integer existing = ids.get(name);
+         if (null != existing)
+         {
+            return existing.intValue();
+         }
+
+         String[] table = names;
+         if (size == table.length)
+         {
+            table = Arrays.copyOf(table, size * 2);
+         }
+         table[size] = name;
+         names = table;
+
+         ids.put(name, Integer.valueOf(size));
+         return size++;
+      }
+   }
+
+   /**
+    * Get the id of a name
+    * @param name The name
+    * @return The id; -1 if the name isn't known
+    */
+   public int find(String name)
+   {
+      final Integer id = ids.get(name);
+      return (null != id) ? id.intValue() : -1;
+   }
+
+   /**
+    * Get the name of an id
+    * @param id The id
+    * @return The name
+    */
+   public String name(int id)
+   {
+      return names[id];
+   }
+}
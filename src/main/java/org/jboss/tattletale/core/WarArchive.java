@@ -48,14 +48,15 @@ public class WarArchive extends NestableArchive
     * @param blacklistedDependencies The blacklisted dependencies
     * @param location                The location
     * @param subArchives             The list of subsidiary archives as prescribed by {@link NestableArchive}
+    * @param symbols                 The table the names are interned into
     */
    public WarArchive(String name, int version, List<String> manifest, List<String> sign,
                      SortedSet<String> requires, SortedMap<String, Long> provides, SortedMap<String,
                      SortedSet<String>> classDependencies, SortedMap<String, SortedSet<String>> packageDependencies,
                      SortedMap<String, SortedSet<String>> blacklistedDependencies, Location location,
-                     List<Archive> subArchives)
+                     List<Archive> subArchives, Symbols symbols)
    {
       super(ArchiveType.WAR, name, version, manifest, sign, requires, provides, classDependencies,
-            packageDependencies, blacklistedDependencies, location, subArchives);
+            packageDependencies, blacklistedDependencies, location, subArchives, symbols);
    }
 }
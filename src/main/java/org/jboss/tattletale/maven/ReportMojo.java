@@ -23,6 +23,7 @@ package org.jboss.tattletale.maven;
 
 import org.apache.maven.plugin.MojoFailureException;
 
+import org.jboss.tattletale.Client;
 import org.jboss.tattletale.Main;
 
 /**
@@ -74,6 +75,9 @@ public class ReportMojo extends TattletaleMojo
    /** Analyze components */
    private boolean analyzeComponents;
 
+   /** Port of the analysis server */
+   private int server;
+
    /** Constructor */
    public ReportMojo()
    {
@@ -91,6 +95,7 @@ public class ReportMojo extends TattletaleMojo
       extractPattern = null;
       bundlePattern = null;
       analyzeComponents = false;
+      server = 0;
    }
 
    /**
@@ -345,6 +350,24 @@ public class ReportMojo extends TattletaleMojo
       this.analyzeComponents = analyzeComponents;
    }
 
+   /**
+    * Get the port of the analysis server
+    * @return The value; 0 if the reports are generated in process
+    */
+   public int getServer()
+   {
+      return server;
+   }
+
+   /**
+    * Set the port of the analysis server
+    * @param server The value; 0 if the reports are generated in process
+    */
+   public void setServer(int server)
+   {
+      this.server = server;
+   }
+
    /**
     * Execute
     * @throws MojoFailureException   Thrown if there is an error
@@ -428,7 +451,14 @@ public class ReportMojo extends TattletaleMojo
 
          getLog().info("Scanning: " + getSource().getAbsolutePath());
 
-         main.execute(analyzeComponents);
+         if (server > 0)
+         {
+            new Client(server).execute(main, analyzeComponents);
+         }
+         else
+         {
+            main.execute(analyzeComponents);
+         }
       }
       catch (Throwable t)
       {
@@ -25,7 +25,13 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
@@ -40,6 +46,10 @@ import org.jboss.tattletale.core.Location;
  */
 public abstract class AbstractProfile implements Profile
 {
+   /** The shared instances, by profile class */
+   private static final Map<Class<? extends AbstractProfile>, AbstractProfile> INSTANCES =
+      new HashMap<Class<? extends AbstractProfile>, AbstractProfile>();
+
    /** The type of Profile */
    @SuppressWarnings("unused")
    private ArchiveType type;
@@ -52,7 +62,7 @@ public abstract class AbstractProfile implements Profile
    private String name;
 
    /** Content of the class set file */
-   protected final Set<String> classSet = new HashSet<String>();
+   protected ClassSet classSet = new ClassSet(Collections.<String>emptyList());
 
    /** Set of locations */
    protected final Set<Location> locations = new HashSet<Location>();
@@ -90,6 +100,31 @@ public abstract class AbstractProfile implements Profile
       addLocation(new Location(location, name));
    }
 
+   /**
+    * Get the shared instance of a profile. It is built on first use; a profile
+    * isn't changed after construction, so the instance can be used by all
+    * scanners and reports.
+    * @param type The profile class
+    * @return The profile
+    */
+   public static synchronized <T extends AbstractProfile> T getInstance(Class<T> type)
+   {
+      AbstractProfile profile = INSTANCES.get(type);
+      if (null == profile)
+      {
+         try
+         {
+            profile = type.getDeclaredConstructor().newInstance();
+         }
+         catch (Exception e)
+         {
+            throw new IllegalArgumentException("Cannot create profile: " + type.getName(), e);
+         }
+         INSTANCES.put(type, profile);
+      }
+      return type.cast(profile);
+   }
+
    /**
     * Checks whether or not the class is provided by the profile.
     * @param clz The class name
@@ -130,7 +165,7 @@ public abstract class AbstractProfile implements Profile
     * @param location - the location object.
     */
 
-   public void addLocation(Location location)
+   protected void addLocation(Location location)
    {
       locations.add(location);
    }
@@ -139,7 +174,7 @@ public abstract class AbstractProfile implements Profile
     * Adds the profile passed to the private collection of sub subProfiles.
     * @param profile - the profile object.
     */
-   public void addSubProfile(Profile profile)
+   protected void addSubProfile(Profile profile)
    {
       subProfiles.add(profile);
    }
@@ -157,6 +192,37 @@ public abstract class AbstractProfile implements Profile
       return null;
    }
 
+   /**
+    * Adds the names of all classes provided by the profile, including those of
+    * the sub profiles, to a collection.
+    * @param names The collection
+    * @return True if all classes could be listed; false if a sub profile can't list its classes
+    */
+   boolean collectClassNames(Collection<String> names)
+   {
+      classSet.addTo(names);
+
+      for (Profile subProfile : subProfiles)
+      {
+         if (subProfile instanceof AbstractProfile)
+         {
+            if (!((AbstractProfile) subProfile).collectClassNames(names))
+            {
+               return false;
+            }
+         }
+         else if (subProfile instanceof ProfileArchive)
+         {
+            names.addAll(((ProfileArchive) subProfile).getClasses());
+         }
+         else
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
    /**
     * Loads this profile's class list from the resources.
     * @param resourceFile File name
@@ -171,11 +237,14 @@ public abstract class AbstractProfile implements Profile
          final GZIPInputStream gis = new GZIPInputStream(is);
          final InputStreamReader isr = new InputStreamReader(gis);
          final BufferedReader br = new BufferedReader(isr);
+         final List<String> classes = new ArrayList<String>();
 
          for (String line; (line = br.readLine()) != null;)
          {
-            classSet.add(line);
+            classes.add(line);
          }
+
+         classSet = new ClassSet(classes);
       }
       catch (IOException ioe)
       {
@@ -0,0 +1,312 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.profiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * An immutable, compact set of class names. The names are kept sorted as UTF-8 in a
+ * single byte array, in blocks of {@link #BLOCK_SIZE} entries: the first entry of a
+ * block is stored in full, the others as the length of the prefix shared with the
+ * previous entry followed by the rest of the name. A lookup is a binary search over
+ * the first entries of the blocks followed by a scan of one block.
+ */
+public final class ClassSet
+{
+   /** The number of entries in a block */
+   private static final int BLOCK_SIZE = 16;
+
+   /** The encoding of the names */
+   private static final Charset UTF8 = Charset.forName("UTF-8");
+
+   /** Unsigned order of the encoded names */
+   private static final Comparator<byte[]> ORDER = new Comparator<byte[]>()
+   {
+      public int compare(byte[] a, byte[] b)
+      {
+         return ClassSet.compare(a, 0, a.length, b);
+      }
+   };
+
+   /** The encoded entries */
+   private final byte[] data;
+
+   /** The offset of the first entry of each block */
+   private final int[] blocks;
+
+   /** The number of names */
+   private final int size;
+
+   /** The length of the longest name */
+   private final int maxLength;
+
+   /**
+    * Constructor
+    * @param names The class names; duplicates are ignored
+    */
+   public ClassSet(Collection<String> names)
+   {
+      final byte[][] encoded = new byte[names.size()][];
+      int count = 0;
+      for (String name : names)
+      {
+         encoded[count++] = name.getBytes(UTF8);
+      }
+      Arrays.sort(encoded, ORDER);
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final int[] heads = new int[(count + BLOCK_SIZE - 1) / BLOCK_SIZE];
+      byte[] previous = null;
+      int n = 0;
+      int max = 0;
+
+      for (int i = 0; i < count; i++)
+      {
+         final byte[] current = encoded[i];
+         if (null != previous && 0 == ORDER.compare(previous, current))
+         {
+            continue;
+         }
+
+         int prefix = 0;
+         if (0 == n % BLOCK_SIZE)
+         {
+            heads[n / BLOCK_SIZE] = out.size();
+         }
+         else
+         {
+            final int limit = Math.min(previous.length, current.length);
+            while (prefix < limit && previous[prefix] == current[prefix])
+            {
+               prefix++;
+            }
+         }
+
+         writeVarInt(out, prefix);
+         writeVarInt(out, current.length - prefix);
+         out.write(current, prefix, current.length - prefix);
+
+         max = Math.max(max, current.length);
+         previous = current;
+         n++;
+      }
+
+      this.data = out.toByteArray();
+      this.blocks = Arrays.copyOf(heads, (n + BLOCK_SIZE - 1) / BLOCK_SIZE);
+      this.size = n;
+      this.maxLength = max;
+   }
+
+   /**
+    * Get the number of names
+    * @return The value
+    */
+   public int size()
+   {
+      return size;
+   }
+
+   /**
+    * Is the name in the set
+    * @param clz The class name
+    * @return True if the name is in the set; otherwise false
+    */
+   public boolean contains(String clz)
+   {
+      return indexOf(clz) >= 0;
+   }
+
+   /**
+    * Get the position of a name in the sorted set
+    * @param clz The class name
+    * @return The position; -1 if the name isn't in the set
+    */
+   public int indexOf(String clz)
+   {
+      if (0 == size || null == clz)
+      {
+         return -1;
+      }
+
+      final byte[] key = clz.getBytes(UTF8);
+      if (key.length > maxLength)
+      {
+         return -1;
+      }
+
+      // Last block whose first entry is <= key
+      int low = 0;
+      int high = blocks.length - 1;
+      while (low <= high)
+      {
+         final int mid = (low + high) >>> 1;
+         int pos = blocks[mid];
+         pos = skipVarInt(pos);
+         final int length = readVarInt(pos);
+         pos = skipVarInt(pos);
+
+         final int c = compare(data, pos, length, key);
+         if (c < 0)
+         {
+            low = mid + 1;
+         }
+         else if (c > 0)
+         {
+            high = mid - 1;
+         }
+         else
+         {
+            return mid * BLOCK_SIZE;
+         }
+      }
+
+      if (high < 0)
+      {
+         return -1;
+      }
+
+      final byte[] current = new byte[maxLength];
+      final int end = Math.min(size, (high + 1) * BLOCK_SIZE);
+      int pos = blocks[high];
+      int length = 0;
+
+      for (int i = high * BLOCK_SIZE; i < end; i++)
+      {
+         final int prefix = readVarInt(pos);
+         pos = skipVarInt(pos);
+         final int suffix = readVarInt(pos);
+         pos = skipVarInt(pos);
+         System.arraycopy(data, pos, current, prefix, suffix);
+         pos += suffix;
+         length = prefix + suffix;
+
+         final int c = compare(current, 0, length, key);
+         if (0 == c)
+         {
+            return i;
+         }
+         if (c > 0)
+         {
+            break;
+         }
+      }
+
+      return -1;
+   }
+
+   /**
+    * Add all names to a collection, in sorted order
+    * @param names The collection
+    */
+   public void addTo(Collection<String> names)
+   {
+      final byte[] current = new byte[maxLength];
+      int pos = 0;
+
+      for (int i = 0; i < size; i++)
+      {
+         final int prefix = readVarInt(pos);
+         pos = skipVarInt(pos);
+         final int suffix = readVarInt(pos);
+         pos = skipVarInt(pos);
+         System.arraycopy(data, pos, current, prefix, suffix);
+         pos += suffix;
+
+         names.add(new String(current, 0, prefix + suffix, UTF8));
+      }
+   }
+
+   /**
+    * Compare an encoded name with a key, as unsigned bytes
+    * @param b      The bytes holding the name
+    * @param off    The offset of the name
+    * @param length The length of the name
+    * @param key    The key
+    * @return Negative, zero or positive if the name is before, equal to or after the key
+    */
+   private static int compare(byte[] b, int off, int length, byte[] key)
+   {
+      final int limit = Math.min(length, key.length);
+      for (int i = 0; i < limit; i++)
+      {
+         final int c = (b[off + i] & 0xff) - (key[i] & 0xff);
+         if (0 != c)
+         {
+            return c;
+         }
+      }
+      return length - key.length;
+   }
+
+   /**
+    * Read a variable length int
+    * @param pos The position
+    * @return The value
+    */
+   private int readVarInt(int pos)
+   {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do
+      {
+         b = data[pos++];
+         value |= (b & 0x7f) << shift;
+         shift += 7;
+      }
+      while (b < 0);
+      return value;
+   }
+
+   /**
+    * Skip a variable length int
+    * @param pos The position
+    * @return The position after the value
+    */
+   private int skipVarInt(int pos)
+   {
+      while (data[pos++] < 0)
+      {
+         // Continuation byte
+      }
+      return pos;
+   }
+
+   /**
+    * Write a variable length int
+    * @param out   The stream
+    * @param value The value
+    */
+   private static void writeVarInt(ByteArrayOutputStream out, int value)
+   {
+      while ((value & ~0x7f) != 0)
+      {
+         out.write((value & 0x7f) | 0x80);
+         value >>>= 7;
+      }
+      out.write(value);
+   }
+}
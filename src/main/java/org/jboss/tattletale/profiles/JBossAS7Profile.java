@@ -59,6 +59,9 @@ public class JBossAS7Profile extends AbstractProfile implements ExtendedProfile
    /** Field CLASSFILE_VERSION. (value is ClassFile.JAVA_6) */
    private static final int CLASSFILE_VERSION = ClassFile.JAVA_6;
 
+   /** Class name to module identifier */
+   private final Map<String, String> moduleIdentifiers = new HashMap<String, String>();
+
    /** Constructor */
    public JBossAS7Profile()
    {
@@ -75,25 +78,18 @@ public class JBossAS7Profile extends AbstractProfile implements ExtendedProfile
 
    public String getModuleIdentifier(String clz)
    {
-      for (Profile p : subProfiles)
-      {
-         if (p.doesProvide(clz))
-         {
-            return p.getModuleIdentifier();
-         }
-      }
-      return null;
+      return moduleIdentifiers.get(clz);
    }
 
    /**
-    * Makes the call on the superclass.
+    * Looks up the class in the module index.
     * @param clz The class name
     * @return - whether or not the class name is provided or not.
     * @see org.jboss.tattletale.profiles.Profile#doesProvide(String)
     */
    public boolean doesProvide(String clz)
    {
-      return super.doesProvide(clz);
+      return classSet.contains(clz) || moduleIdentifiers.containsKey(clz);
    }
 
    /**
@@ -175,6 +171,17 @@ public class JBossAS7Profile extends AbstractProfile implements ExtendedProfile
          }
 
          subProfiles.addAll(profileMapping.values());
+
+         for (Profile p : subProfiles)
+         {
+            for (String className : ((ProfileArchive) p).getClasses())
+            {
+               if (!moduleIdentifiers.containsKey(className))
+               {
+                  moduleIdentifiers.put(className, p.getModuleIdentifier());
+               }
+            }
+         }
       }
       catch (IOException ioe)
       {
@@ -22,6 +22,7 @@
 
 package org.jboss.tattletale.profiles;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -91,4 +92,13 @@ public class ProfileArchive implements Profile
    {
       classes.add(className);
    }
+
+   /**
+    * Gets the classes of the archive.
+    * @return  - the class names.
+    */
+   public Set<String> getClasses()
+   {
+      return Collections.unmodifiableSet(classes);
+   }
 }
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.profiles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single class to profile lookup over a list of profiles. The classes of all
+ * profiles are merged into one {@link ClassSet}, with the position of the first
+ * profile providing each class, so that finding the profile of a class is one
+ * lookup instead of a query per profile.
+ * <p>
+ * The index is built once per scan and handed to the scanners as the known profiles.
+ */
+public final class ProfileIndex
+{
+   /** The profiles */
+   private final Profile[] profiles;
+
+   /** The classes of the indexed profiles */
+   private final ClassSet classes;
+
+   /** The position of the first profile providing each class */
+   private final short[] owners;
+
+   /** The positions of the profiles that can't list their classes */
+   private final int[] unindexed;
+
+   /**
+    * Constructor
+    * @param known The profiles, in order of precedence
+    */
+   public ProfileIndex(List<Profile> known)
+   {
+      this.profiles = known.toArray(new Profile[known.size()]);
+
+      final Map<String, Integer> firstOwner = new HashMap<String, Integer>();
+      final List<Integer> others = new ArrayList<Integer>();
+
+      for (int i = 0; i < profiles.length; i++)
+      {
+         final List<String> names = new ArrayList<String>();
+         if (i <= Short.MAX_VALUE && profiles[i] instanceof AbstractProfile
+             && ((AbstractProfile) profiles[i]).collectClassNames(names))
+         {
+            for (String name : names)
+            {
+               if (!firstOwner.containsKey(name))
+               {
+                  firstOwner.put(name, i);
+               }
+            }
+         }
+         else
+         {
+            others.add(i);
+         }
+      }
+
+      this.classes = new ClassSet(firstOwner.keySet());
+      this.owners = new short[classes.size()];
+      for (Map.Entry<String, Integer> entry : firstOwner.entrySet())
+      {
+         owners[classes.indexOf(entry.getKey())] = entry.getValue().shortValue();
+      }
+
+      this.unindexed = new int[others.size()];
+      for (int i = 0; i < unindexed.length; i++)
+      {
+         unindexed[i] = others.get(i);
+      }
+   }
+
+   /**
+    * Get the first profile that provides a class
+    * @param clz The class name
+    * @return The profile; <code>null</code> if no profile provides the class
+    */
+   public Profile getProfile(String clz)
+   {
+      final int i = classes.indexOf(clz);
+      final int owner = (i >= 0) ? owners[i] : profiles.length;
+
+      for (int u : unindexed)
+      {
+         if (u >= owner)
+         {
+            break;
+         }
+         if (profiles[u].doesProvide(clz))
+         {
+            return profiles[u];
+         }
+      }
+
+      return (owner < profiles.length) ? profiles[owner] : null;
+   }
+}
@@ -33,6 +33,7 @@ import java.util.TreeSet;
 
 import org.jboss.tattletale.core.Archive;
 import org.jboss.tattletale.core.NestableArchive;
+import org.jboss.tattletale.profiles.AbstractProfile;
 import org.jboss.tattletale.profiles.ExtendedProfile;
 import org.jboss.tattletale.profiles.JBossAS7Profile;
 import org.jboss.tattletale.profiles.Profile;
@@ -170,7 +171,7 @@ public class AS7Report extends CLSReport
       bw.write("  <deployment>" + Dump.newLine());
       bw.write("    <dependencies>" + Dump.newLine());
 
-      final ExtendedProfile as7Profile = new JBossAS7Profile();
+      final ExtendedProfile as7Profile = AbstractProfile.getInstance(JBossAS7Profile.class);
       final SortedSet<String> moduleIdentifiers = new TreeSet<String>();
 
       for (String requiredClass : requires)
@@ -26,14 +26,18 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 import org.jboss.tattletale.Version;
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
 import org.jboss.tattletale.core.NestableArchive;
 
 /**
@@ -159,6 +163,16 @@ public abstract class AbstractReport implements Report
       return name;
    }
 
+   /**
+    * Get the archive facets the report reads. Facets that no enabled report reads
+    * are dropped from the archives after scanning.
+    * @return The facets; none by default
+    */
+   public Set<ArchiveFacet> getFacets()
+   {
+      return EnumSet.noneOf(ArchiveFacet.class);
+   }
+
    /**
     * Get the filter for the report
     * @return The filter
@@ -254,13 +268,13 @@ public abstract class AbstractReport implements Report
    /**
     * get a writer.
     * @param filename the filename to use
-    * @return a buffered writer
+    * @return a buffered writer, which is an {@link HtmlWriter}
     * @throws IOException if an error occurs
     */
    public BufferedWriter getBufferedWriter(String filename) throws IOException
    {
       final FileWriter fw = new FileWriter(getOutputDirectory().getAbsolutePath() + File.separator + filename);
-      return new BufferedWriter(fw, 8192);
+      return new HtmlWriter(fw);
    }
 
    /**
@@ -450,6 +464,12 @@ public abstract class AbstractReport implements Report
     */
    protected String pathToReport(String archiveName)
    {
+      final String path = reportPaths.get(archiveName);
+      if (null != path)
+      {
+         return path;
+      }
+
       final SortedSet<Archive> archs = new TreeSet<Archive>(archives);
       final SortedSet<Archive> subarchs = new TreeSet<Archive>();
 
@@ -541,6 +561,74 @@ public abstract class AbstractReport implements Report
          archiveName + note + "</a>";
    }
 
+   /**
+    * Write the href tag for archive report
+    * @param out the writer
+    * @param archiveName ditto
+    * @param star add a note mark if true
+    * @throws IOException if an error occurs
+    */
+   protected void writeHrefToReport(HtmlWriter out, String archiveName, boolean star) throws IOException
+   {
+      out.write("<a href=\"../");
+      out.write(pathToReport(archiveName));
+      out.write("/");
+      out.write(archiveName);
+      out.write(".html\">");
+      out.write(archiveName);
+      if (star)
+      {
+         out.write(" (*)");
+      }
+      out.write("</a>");
+   }
+
+   /**
+    * Write the href tags for archive reports
+    * @param out the writer
+    * @param archiveNames the archive names
+    * @param joiner the markup between two tags
+    * @throws IOException if an error occurs
+    */
+   protected void writeHrefsToReports(HtmlWriter out, Collection<String> archiveNames, String joiner)
+      throws IOException
+   {
+      boolean first = true;
+      for (String archiveName : archiveNames)
+      {
+         if (!first)
+         {
+            out.write(joiner);
+         }
+         writeHrefToReport(out, archiveName, false);
+         first = false;
+      }
+   }
+
+   /**
+    * Write texts separated by markup
+    * @param out the writer
+    * @param input the texts
+    * @param joiner the markup between two texts
+    * @throws IOException if an error occurs
+    */
+   protected void writeJoined(HtmlWriter out, Collection<String> input, String joiner) throws IOException
+   {
+      if (null != input)
+      {
+         boolean first = true;
+         for (String m : input)
+         {
+            if (!first)
+            {
+               out.write(joiner);
+            }
+            out.write(m);
+            first = false;
+         }
+      }
+   }
+
    /**
     * Method join.
     * @param input SortedSet&lt;String&gt;
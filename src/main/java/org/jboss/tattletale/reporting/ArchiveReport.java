@@ -21,7 +21,11 @@
  */
 package org.jboss.tattletale.reporting;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
 
 /**
  * Represents an archive report (JAR, WAR, EAR, ...)
@@ -54,4 +58,24 @@ public abstract class ArchiveReport extends AbstractReport
    {
       return archive.getName();
    }
+
+   /**
+    * Get the archive facets the report reads
+    * @return The facets
+    */
+   @Override
+   public Set<ArchiveFacet> getFacets()
+   {
+      return getArchiveFacets();
+   }
+
+   /**
+    * Get the archive facets the archive reports read; archive reports are created
+    * per archive after scanning, so the facets are known without an instance
+    * @return The facets
+    */
+   public static Set<ArchiveFacet> getArchiveFacets()
+   {
+      return EnumSet.of(ArchiveFacet.MANIFEST, ArchiveFacet.SIGN, ArchiveFacet.SERIAL_VERSION_UIDS);
+   }
 }
@@ -23,12 +23,15 @@ package org.jboss.tattletale.reporting;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
 import org.jboss.tattletale.core.NestableArchive;
 
 /**
@@ -51,6 +54,16 @@ public class BlackListedReport extends AbstractReport
       super(DIRECTORY, ReportSeverity.ERROR, NAME, DIRECTORY);
    }
 
+   /**
+    * Get the archive facets the report reads
+    * @return The facets
+    */
+   @Override
+   public Set<ArchiveFacet> getFacets()
+   {
+      return EnumSet.of(ArchiveFacet.BLACKLISTED_DEPENDENCIES);
+   }
+
    /**
     * write out the report's content
     * @param bw the writer to use
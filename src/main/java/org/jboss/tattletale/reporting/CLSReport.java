@@ -39,6 +39,9 @@ public abstract class CLSReport extends AbstractReport
    /** the CLS */
    private ClassLoaderStructure cls = null;
 
+   /** The dependency index */
+   private DependencyIndex dependencyIndex = null;
+
    /**
     * Constructor
     *
@@ -67,22 +70,32 @@ public abstract class CLSReport extends AbstractReport
     * @param classloaderStructure The Classloader Structure to be used in generating this report
     */
    public void setCLS(String classloaderStructure)
+   {
+      cls = createCLS(classloaderStructure);
+   }
+
+   /**
+    * Create a ClassLoader Structure
+    * @param classloaderStructure The class name of the Classloader Structure
+    * @return The Classloader Structure; <code>null</code> if it can't be created
+    */
+   public static ClassLoaderStructure createCLS(String classloaderStructure)
    {
       try
       {
          final Class<?> cl = Thread.currentThread().getContextClassLoader().loadClass(classloaderStructure);
-         cls = (ClassLoaderStructure) cl.getDeclaredConstructor().newInstance();
+         return (ClassLoaderStructure) cl.getDeclaredConstructor().newInstance();
       }
       catch (Exception e)
       {
          try
          {
             final Class<?> cl = CLSReport.class.getClassLoader().loadClass(classloaderStructure);
-            cls = (ClassLoaderStructure) cl.getDeclaredConstructor().newInstance();
+            return (ClassLoaderStructure) cl.getDeclaredConstructor().newInstance();
          }
          catch (Exception ntd)
          {
-            // Ignore
+            return null;
          }
       }
    }
@@ -104,4 +117,26 @@ public abstract class CLSReport extends AbstractReport
    {
       return known;
    }
+
+   /**
+    * Set the dependency index
+    * @param dependencyIndex The index of the archives; shared between reports
+    */
+   public void setDependencyIndex(DependencyIndex dependencyIndex)
+   {
+      this.dependencyIndex = dependencyIndex;
+   }
+
+   /**
+    * Get the dependency index; one is built from the archives if none was set
+    * @return The value
+    */
+   protected DependencyIndex getDependencyIndex()
+   {
+      if (null == dependencyIndex)
+      {
+         dependencyIndex = new DependencyIndex(archives);
+      }
+      return dependencyIndex;
+   }
 }
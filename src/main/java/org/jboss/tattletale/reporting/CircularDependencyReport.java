@@ -26,14 +26,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.jboss.tattletale.core.Archive;
-import org.jboss.tattletale.core.ArchiveType;
 import org.jboss.tattletale.core.NestableArchive;
 
 /**
@@ -70,74 +68,47 @@ public class CircularDependencyReport extends CLSReport
       bw.write("  </tr>" + Dump.newLine());
 
       final SortedMap<String, SortedSet<String>> dependsOnMap = recursivelyBuildDependsOnFromArchive(archives);
-      final SortedMap<String, SortedSet<String>> transitiveDependsOnMap = new TreeMap<String, SortedSet<String>>();
-      for (Map.Entry<String, SortedSet<String>> entry : dependsOnMap.entrySet())
-      {
-         String archive = entry.getKey();
-         SortedSet<String> result = new TreeSet<String>();
-
-         for (String aValue : entry.getValue())
-         {
-            resolveDependsOn(aValue, archive, dependsOnMap, result);
-         }
-
-         transitiveDependsOnMap.put(archive, result);
-      }
+      final DependencyGraph graph = new DependencyGraph(dependsOnMap);
 
       boolean odd = true;
 
-      for (Map.Entry<String, SortedSet<String>> entry : transitiveDependsOnMap.entrySet())
+      for (String archive : dependsOnMap.keySet())
       {
-         String archive = entry.getKey();
-         SortedSet<String> value = entry.getValue();
+         final SortedSet<String> circular = graph.getCircular(archive);
 
-         if (0 != value.size())
+         if (circular.size() > 0)
          {
-            SortedSet<String> circular = new TreeSet<String>();
-
-            for (String r : value)
+            if (odd)
             {
-               SortedSet<String> td = transitiveDependsOnMap.get(r);
-               if (null != td && td.contains(archive))
-               {
-                  circular.add(r);
-               }
+               bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
             }
-
-            if (circular.size() > 0)
+            else
             {
-               if (odd)
-               {
-                  bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-               }
-               else
-               {
-                  bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-               }
+               bw.write("  <tr class=\"roweven\">" + Dump.newLine());
+            }
 
-               bw.write("    <td>" + hrefToReport(archive) + "</td>" + Dump.newLine());
+            bw.write("    <td>" + hrefToReport(archive) + "</td>" + Dump.newLine());
 
-               if (!isFiltered(archive))
-               {
-                  status = ReportStatus.RED;
-                  bw.write("    <td>");
-               }
-               else
-               {
-                  bw.write("    <td style=\"text-decoration: line-through;\">");
-               }
-               List<String> hrefs = new ArrayList<String>();
-               for (String r : value)
-               {
-                  hrefs.add(hrefToReport(r, circular.contains(r)));
-               }
-               bw.write(join(hrefs, ", "));
-               bw.write("</td>" + Dump.newLine());
+            if (!isFiltered(archive))
+            {
+               status = ReportStatus.RED;
+               bw.write("    <td>");
+            }
+            else
+            {
+               bw.write("    <td style=\"text-decoration: line-through;\">");
+            }
+            List<String> hrefs = new ArrayList<String>();
+            for (String r : graph.getReachable(archive))
+            {
+               hrefs.add(hrefToReport(r, circular.contains(r)));
+            }
+            bw.write(join(hrefs, ", "));
+            bw.write("</td>" + Dump.newLine());
 
-               bw.write("  </tr>" + Dump.newLine());
+            bw.write("  </tr>" + Dump.newLine());
 
-               odd = !odd;
-            }
+            odd = !odd;
          }
       }
 
@@ -152,6 +123,7 @@ public class CircularDependencyReport extends CLSReport
    private SortedMap<String, SortedSet<String>> recursivelyBuildDependsOnFromArchive(Collection<Archive> archives)
    {
       final SortedMap<String, SortedSet<String>> dependsOnMap = new TreeMap<String, SortedSet<String>>();
+      final DependencyIndex index = (archives == this.archives) ? getDependencyIndex() : new DependencyIndex(archives);
       for (Archive archive : archives)
       {
          if (archive instanceof NestableArchive)
@@ -171,16 +143,10 @@ public class CircularDependencyReport extends CLSReport
 
             for (String require : archive.getRequires())
             {
-               for (Archive a : archives)
+               final Archive provider = index.getProvider(require, archive, getCLS(), true);
+               if (null != provider)
                {
-                  if (a.getType() == ArchiveType.JAR)
-                  {
-                     if (a.doesProvide(require) && (null == getCLS() || getCLS().isVisible(archive, a)))
-                     {
-                        result.add(a.getName());
-                        break;
-                     }
-                  }
+                  result.add(provider.getName());
                }
             }
 
@@ -190,31 +156,6 @@ public class CircularDependencyReport extends CLSReport
       return dependsOnMap;
    }
 
-   /**
-    * Get depends on
-    * @param scanArchive The scan archive
-    * @param archive     The archive
-    * @param map         The depends on map
-    * @param result      The result
-    */
-   private void resolveDependsOn(String scanArchive, String archive,
-                                 SortedMap<String, SortedSet<String>> map, SortedSet<String> result)
-   {
-      if (!archive.equals(scanArchive) && !result.contains(scanArchive))
-      {
-         result.add(scanArchive);
-
-         final SortedSet<String> value = map.get(scanArchive);
-         if (null != value)
-         {
-            for (String aValue : value)
-            {
-               resolveDependsOn(aValue, archive, map, result);
-            }
-         }
-      }
-   }
-
    /**
     * Create filter
     * @return The filter
@@ -24,13 +24,16 @@ package org.jboss.tattletale.reporting;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
 import org.jboss.tattletale.core.NestableArchive;
 
 /**
@@ -52,6 +55,16 @@ public class ClassDependsOnReport extends CLSReport
       super(DIRECTORY, ReportSeverity.INFO, NAME, DIRECTORY);
    }
 
+   /**
+    * Get the archive facets the report reads
+    * @return The facets
+    */
+   @Override
+   public Set<ArchiveFacet> getFacets()
+   {
+      return EnumSet.of(ArchiveFacet.CLASS_DEPENDENCIES);
+   }
+
    /**
     * write out the report's content
     * @param bw the writer to use
@@ -59,12 +72,14 @@ public class ClassDependsOnReport extends CLSReport
     */
    public void writeHtmlBodyContent(BufferedWriter bw) throws IOException
    {
-      bw.write("<table>" + Dump.newLine());
+      final HtmlWriter out = HtmlWriter.of(bw);
+
+      out.writeLine("<table>");
 
-      bw.write("  <tr>" + Dump.newLine());
-      bw.write("    <th>Class</th>" + Dump.newLine());
-      bw.write("    <th>Depends On</th>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("  <tr>");
+      out.writeLine("    <th>Class</th>");
+      out.writeLine("    <th>Depends On</th>");
+      out.writeLine("  </tr>");
 
       final SortedMap<String, SortedSet<String>> result = new TreeMap<String, SortedSet<String>>();
 
@@ -95,33 +110,34 @@ public class ClassDependsOnReport extends CLSReport
       {
          if (odd)
          {
-            bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
+            out.writeLine("  <tr class=\"rowodd\">");
          }
          else
          {
-            bw.write("  <tr class=\"roweven\">" + Dump.newLine());
+            out.writeLine("  <tr class=\"roweven\">");
          }
 
-         bw.write("    <td>" + entry.getKey() + "</td>" + Dump.newLine());
+         out.writeCell("    ", entry.getKey());
 
-         bw.write("    <td>");
+         out.write("    <td>");
          SortedSet<String> deps = entry.getValue();
          if (null != deps && deps.size() > 0)
          {
-            bw.write(join(deps, ", "));
+            writeJoined(out, deps, ", ");
          }
          else
          {
-            bw.write("&nbsp;");
+            out.write("&nbsp;");
          }
-         bw.write("</td>" + Dump.newLine());
+         out.writeLine("</td>");
 
-         bw.write("  </tr>" + Dump.newLine());
+         out.writeLine("  </tr>");
 
          odd = !odd;
       }
 
-      bw.write("</table>" + Dump.newLine());
+      out.writeLine("</table>");
+      out.flush();
    }
 
    /**
@@ -21,12 +21,7 @@
  */
 package org.jboss.tattletale.reporting;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
 import java.util.SortedSet;
 
 /**
@@ -35,7 +30,7 @@ import java.util.SortedSet;
  * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
  * @author <a href="mailto:torben.jaeger@jit-consulting.de">Torben Jaeger</a>
  */
-public class ClassLocationReport extends AbstractReport
+public class ClassLocationReport extends PagedClassReport
 {
    /** NAME */
    private static final String NAME = "Class Location";
@@ -43,9 +38,6 @@ public class ClassLocationReport extends AbstractReport
    /** DIRECTORY */
    private static final String DIRECTORY = "classlocation";
 
-   /** Globally provides */
-   private SortedMap<String, SortedSet<String>> gProvides;
-
    /** Constructor */
    public ClassLocationReport()
    {
@@ -53,77 +45,59 @@ public class ClassLocationReport extends AbstractReport
    }
 
    /**
-    * Set the globally provides map to be used in generating this report
-    * @param gProvides the map of global provides
+    * Is there a row for a class
+    * @param clz      The class name
+    * @param archives The archives providing the class
+    * @return True
     */
-   public void setGlobalProvides(SortedMap<String, SortedSet<String>> gProvides)
+   @Override
+   protected boolean include(String clz, SortedSet<String> archives)
    {
-      this.gProvides = gProvides;
+      return true;
    }
 
    /**
-    * write the report's content
-    * @param bw the BufferedWriter to use
+    * Write the row of a class
+    * @param out      The writer
+    * @param clz      The class name
+    * @param archives The archives providing the class
+    * @param odd      Is this an odd row
     * @throws IOException if an error occurs
     */
    @Override
-   public void writeHtmlBodyContent(BufferedWriter bw) throws IOException
+   protected void writeRow(HtmlWriter out, String clz, SortedSet<String> archives, boolean odd) throws IOException
    {
-      bw.write("<table>" + Dump.newLine());
-
-      bw.write("  <tr>" + Dump.newLine());
-      bw.write("    <th>Class</th>" + Dump.newLine());
-      bw.write("    <th>Archives</th>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
-
-      boolean odd = true;
-
-      for (Map.Entry<String, SortedSet<String>> entry : gProvides.entrySet())
+      if (odd)
       {
-         String clz = entry.getKey();
-         SortedSet<String> archives = entry.getValue();
-
-         if (odd)
-         {
-            bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-         }
-         else
-         {
-            bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-         }
+         out.writeLine("  <tr class=\"rowodd\">");
+      }
+      else
+      {
+         out.writeLine("  <tr class=\"roweven\">");
+      }
 
-         bw.write("    <td>" + clz + "</td>" + Dump.newLine());
+      out.writeCell("    ", clz);
 
-         if (0 == archives.size())
+      if (0 == archives.size())
+      {
+         out.write("<td>&nbsp;");
+      }
+      else
+      {
+         if (!isFiltered(clz))
          {
-            bw.write("<td>&nbsp;");
+            status = ReportStatus.YELLOW;
+            out.write("    <td>");
          }
          else
          {
-            if (!isFiltered(clz))
-            {
-               status = ReportStatus.YELLOW;
-               bw.write("    <td>");
-            }
-            else
-            {
-               bw.write("    <td style=\"text-decoration: line-through;\">");
-            }
-            List<String> hrefs = new ArrayList<String>();
-            for (String archive : archives)
-            {
-               hrefs.add(hrefToReport(archive));
-            }
-            bw.write(join(hrefs, ", "));
+            out.write("    <td style=\"text-decoration: line-through;\">");
          }
-         bw.write("</td>" + Dump.newLine());
-
-         bw.write("  </tr>" + Dump.newLine());
-
-         odd = !odd;
+         writeHrefsToReports(out, archives, ", ");
       }
+      out.writeLine("</td>");
 
-      bw.write("</table>" + Dump.newLine());
+      out.writeLine("  </tr>");
    }
 
    /**
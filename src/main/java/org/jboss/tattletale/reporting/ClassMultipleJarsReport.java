@@ -21,12 +21,7 @@
  */
 package org.jboss.tattletale.reporting;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
 import java.util.SortedSet;
 
 /**
@@ -35,7 +30,7 @@ import java.util.SortedSet;
  * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
  * @author <a href="mailto:torben.jaeger@jit-consulting.de">Torben Jaeger</a>
  */
-public class ClassMultipleJarsReport extends AbstractReport
+public class ClassMultipleJarsReport extends PagedClassReport
 {
    /** NAME */
    private static final String NAME = "Multiple Classes";
@@ -43,9 +38,6 @@ public class ClassMultipleJarsReport extends AbstractReport
    /** DIRECTORY */
    private static final String DIRECTORY = "multiplejarsclass";
 
-   /** Globally provides */
-   private SortedMap<String, SortedSet<String>> gProvides;
-
    /** Constructor */
    public ClassMultipleJarsReport()
    {
@@ -53,72 +45,52 @@ public class ClassMultipleJarsReport extends AbstractReport
    }
 
    /**
-    * Set the globally provides map to be used in generating this report
-    * @param gProvides the map of global provides
+    * Is there a row for a class
+    * @param clz      The class name
+    * @param archives The archives providing the class
+    * @return True if more than one archive provides the class; otherwise false
     */
-   public void setGlobalProvides(SortedMap<String, SortedSet<String>> gProvides)
+   @Override
+   protected boolean include(String clz, SortedSet<String> archives)
    {
-      this.gProvides = gProvides;
+      return archives.size() > 1;
    }
 
    /**
-    * write out the report's content
-    * @param bw the writer to use
+    * Write the row of a class
+    * @param out      The writer
+    * @param clz      The class name
+    * @param archives The archives providing the class
+    * @param odd      Is this an odd row
     * @throws IOException if an error occurs
     */
-   public void writeHtmlBodyContent(BufferedWriter bw) throws IOException
+   @Override
+   protected void writeRow(HtmlWriter out, String clz, SortedSet<String> archives, boolean odd) throws IOException
    {
-      bw.write("<table>" + Dump.newLine());
-
-      bw.write("  <tr>" + Dump.newLine());
-      bw.write("    <th>Class</th>" + Dump.newLine());
-      bw.write("    <th>Archives</th>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
-
-      boolean odd = true;
-
-      for (Map.Entry<String, SortedSet<String>> entry : gProvides.entrySet())
+      if (odd)
       {
-         String clz = entry.getKey();
-         SortedSet<String> archives = entry.getValue();
-
-         if (archives.size() > 1)
-         {
-            if (odd)
-            {
-               bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-            }
-            else
-            {
-               bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-            }
-
-            bw.write("    <td>" + clz + "</td>" + Dump.newLine());
-
-            if (!isFiltered(clz))
-            {
-               status = ReportStatus.RED;
-               bw.write("    <td>");
-            }
-            else
-            {
-               bw.write("    <td style=\"text-decoration: line-through;\">");
-            }
-            List<String> hrefs = new ArrayList<String>();
-            for (String archive : archives)
-            {
-               hrefs.add(hrefToReport(archive));
-            }
-            bw.write(join(hrefs, ", "));
-            bw.write("</td>" + Dump.newLine());
+         out.writeLine("  <tr class=\"rowodd\">");
+      }
+      else
+      {
+         out.writeLine("  <tr class=\"roweven\">");
+      }
 
-            bw.write("  </tr>" + Dump.newLine());
+      out.writeCell("    ", clz);
 
-            odd = !odd;
-         }
+      if (!isFiltered(clz))
+      {
+         status = ReportStatus.RED;
+         out.write("    <td>");
+      }
+      else
+      {
+         out.write("    <td style=\"text-decoration: line-through;\">");
       }
+      writeHrefsToReports(out, archives, ", ");
+      out.writeLine("</td>");
 
-      bw.write("</table>" + Dump.newLine());
+      out.writeLine("  </tr>");
    }
 
    /**
@@ -83,11 +83,21 @@ public class DependantsReport extends CLSReport
          bw.write("    <td>");
 
          SortedSet<String> result = new TreeSet<String>();
-         for (Archive a : archives)
+         boolean provided = false;
+         for (String require : getRequires(archive))
          {
-            for (String require : getRequires(archive))
+            if (archive.doesProvide(require))
             {
-               if (archive.doesProvide(require) && (null == getCLS() || getCLS().isVisible(a, archive)))
+               provided = true;
+               break;
+            }
+         }
+
+         if (provided)
+         {
+            for (Archive a : archives)
+            {
+               if (null == getCLS() || getCLS().isVisible(a, archive))
                {
                   result.add(a.getName());
                }
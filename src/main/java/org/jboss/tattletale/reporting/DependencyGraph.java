@@ -0,0 +1,387 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.reporting;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * A graph between archives, with the archives numbered in name order. The strongly
+ * connected components are found once with an iterative Tarjan walk, so cycles are
+ * known in linear time and long dependency chains don't use the stack. What an
+ * archive reaches, and what reaches it, is computed on the graph of the components:
+ * each component gets a bitset of the archives it reaches, built from the bitsets of
+ * the components next to it, so a closure is never computed twice.
+ */
+public class DependencyGraph
+{
+   /** The archive names, in order */
+   private final String[] names;
+
+   /** Name to node */
+   private final Map<String, Integer> nodes;
+
+   /** The successors of each node */
+   private final int[][] edges;
+
+   /** The predecessors of each node; built on demand */
+   private int[][] reverseEdges;
+
+   /** The component of each node; components are numbered in reverse topological order */
+   private final int[] components;
+
+   /** The nodes of each component */
+   private final int[][] members;
+
+   /** The nodes reachable from each component, including its own; computed on demand */
+   private final BitSet[] reachable;
+
+   /** The nodes that reach each component, including its own; computed on demand */
+   private final BitSet[] reaching;
+
+   /**
+    * Constructor
+    * @param graph The archive name to the names of the archives it has an edge to
+    */
+   public DependencyGraph(Map<String, ? extends Collection<String>> graph)
+   {
+      final SortedSet<String> all = new TreeSet<String>(graph.keySet());
+      for (Collection<String> targets : graph.values())
+      {
+         all.addAll(targets);
+      }
+
+      this.names = all.toArray(new String[all.size()]);
+      this.nodes = new HashMap<String, Integer>(names.length * 2);
+      for (int i = 0; i < names.length; i++)
+      {
+         nodes.put(names[i], i);
+      }
+
+      this.edges = new int[names.length][];
+      for (int i = 0; i < names.length; i++)
+      {
+         final Collection<String> targets = graph.get(names[i]);
+         edges[i] = new int[(null != targets) ? targets.size() : 0];
+
+         int n = 0;
+         if (null != targets)
+         {
+            for (String target : targets)
+            {
+               edges[i][n++] = nodes.get(target);
+            }
+         }
+      }
+
+      this.components = new int[names.length];
+      final int count = findComponents();
+
+      final int[] sizes = new int[count];
+      for (int c : components)
+      {
+         sizes[c]++;
+      }
+      this.members = new int[count][];
+      for (int c = 0; c < count; c++)
+      {
+         members[c] = new int[sizes[c]];
+         sizes[c] = 0;
+      }
+      for (int i = 0; i < names.length; i++)
+      {
+         final int c = components[i];
+         members[c][sizes[c]++] = i;
+      }
+
+      this.reachable = new BitSet[count];
+      this.reaching = new BitSet[count];
+   }
+
+   /**
+    * Get the archives in a cycle with an archive
+    * @param name The archive name
+    * @return The names of the other archives in the cycle; empty if the archive isn't in a cycle
+    */
+   public SortedSet<String> getCircular(String name)
+   {
+      final Integer node = nodes.get(name);
+      if (null == node)
+      {
+         return new TreeSet<String>();
+      }
+      return getNames(members[components[node]], node);
+   }
+
+   /**
+    * Get the archives reachable from an archive, directly or through other archives
+    * @param name The archive name
+    * @return The names, without the archive itself
+    */
+   public synchronized SortedSet<String> getReachable(String name)
+   {
+      final Integer node = nodes.get(name);
+      if (null == node)
+      {
+         return new TreeSet<String>();
+      }
+      return getNames(closure(components[node], edges, reachable, true), node);
+   }
+
+   /**
+    * Get the archives that reach an archive, directly or through other archives
+    * @param name The archive name
+    * @return The names, without the archive itself
+    */
+   public synchronized SortedSet<String> getReaching(String name)
+   {
+      final Integer node = nodes.get(name);
+      if (null == node)
+      {
+         return new TreeSet<String>();
+      }
+      if (null == reverseEdges)
+      {
+         reverseEdges = reverse(edges);
+      }
+      return getNames(closure(components[node], reverseEdges, reaching, false), node);
+   }
+
+   /**
+    * Number the strongly connected components with an iterative Tarjan walk
+    * @return The number of components
+    */
+   private int findComponents()
+   {
+      final int n = names.length;
+      final int[] index = new int[n];
+      final int[] low = new int[n];
+      final int[] next = new int[n];
+      final boolean[] onStack = new boolean[n];
+      final int[] stack = new int[n];
+      final int[] path = new int[n];
+      Arrays.fill(index, -1);
+
+      int counter = 0;
+      int count = 0;
+      int sp = 0;
+
+      for (int root = 0; root < n; root++)
+      {
+         if (-1 != index[root])
+         {
+            continue;
+         }
+
+         int depth = 0;
+         path[depth++] = root;
+         index[root] = low[root] = counter++;
+         stack[sp++] = root;
+         onStack[root] = true;
+
+         while (depth > 0)
+         {
+            final int v = path[depth - 1];
+
+            if (next[v] < edges[v].length)
+            {
+               final int w = edges[v][next[v]++];
+               if (-1 == index[w])
+               {
+                  index[w] = low[w] = counter++;
+                  stack[sp++] = w;
+                  onStack[w] = true;
+                  path[depth++] = w;
+               }
+               else if (onStack[w])
+               {
+                  low[v] = Math.min(low[v], index[w]);
+               }
+            }
+            else
+            {
+               depth--;
+               if (depth > 0)
+               {
+                  final int parent = path[depth - 1];
+                  low[parent] = Math.min(low[parent], low[v]);
+               }
+
+               if (low[v] == index[v])
+               {
+                  int w;
+                  do
+                  {
+                     w = stack[--sp];
+                     onStack[w] = false;
+                     components[w] = count;
+                  }
+                  while (w != v);
+                  count++;
+               }
+            }
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Get the nodes a component reaches along a set of edges. Along the edges of the
+    * graph a component only reaches components with a lower number, and along the
+    * reversed edges only components with a higher number, so those are computed first.
+    * @param component The component
+    * @param edges     The edges
+    * @param cache     The closures computed so far, by component
+    * @param forward   Are the edges those of the graph
+    * @return The nodes
+    */
+   private BitSet closure(int component, int[][] edges, BitSet[] cache, boolean forward)
+   {
+      if (null == cache[component])
+      {
+         // The components next to this one that still have to be computed
+         final BitSet pending = new BitSet(members.length);
+         final int[] work = new int[members.length];
+         int top = 0;
+         work[top++] = component;
+         pending.set(component);
+
+         while (top > 0)
+         {
+            final int c = work[--top];
+            for (int v : members[c])
+            {
+               for (int w : edges[v])
+               {
+                  final int d = components[w];
+                  if (null == cache[d] && !pending.get(d))
+                  {
+                     pending.set(d);
+                     work[top++] = d;
+                  }
+               }
+            }
+         }
+
+         final int first = forward ? 0 : component;
+         final int last = forward ? component : members.length - 1;
+         for (int i = first; i <= last; i++)
+         {
+            final int c = forward ? i : first + last - i;
+            if (!pending.get(c))
+            {
+               continue;
+            }
+
+            final BitSet reach = new BitSet(names.length);
+            for (int v : members[c])
+            {
+               reach.set(v);
+               for (int w : edges[v])
+               {
+                  if (components[w] != c)
+                  {
+                     reach.or(cache[components[w]]);
+                  }
+               }
+            }
+            cache[c] = reach;
+         }
+      }
+      return cache[component];
+   }
+
+   /**
+    * Reverse a set of edges
+    * @param edges The edges
+    * @return The reversed edges
+    */
+   private static int[][] reverse(int[][] edges)
+   {
+      final int[] counts = new int[edges.length];
+      for (int[] targets : edges)
+      {
+         for (int w : targets)
+         {
+            counts[w]++;
+         }
+      }
+
+      final int[][] result = new int[edges.length][];
+      for (int i = 0; i < edges.length; i++)
+      {
+         result[i] = new int[counts[i]];
+         counts[i] = 0;
+      }
+      for (int v = 0; v < edges.length; v++)
+      {
+         for (int w : edges[v])
+         {
+            result[w][counts[w]++] = v;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Get the names of nodes
+    * @param group   The nodes
+    * @param exclude A node to leave out
+    * @return The names
+    */
+   private SortedSet<String> getNames(BitSet group, int exclude)
+   {
+      final SortedSet<String> result = new TreeSet<String>();
+      for (int v = group.nextSetBit(0); v >= 0; v = group.nextSetBit(v + 1))
+      {
+         if (v != exclude)
+         {
+            result.add(names[v]);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Get the names of nodes
+    * @param group   The nodes
+    * @param exclude A node to leave out; -1 for none
+    * @return The names
+    */
+   private SortedSet<String> getNames(int[] group, int exclude)
+   {
+      final SortedSet<String> result = new TreeSet<String>();
+      for (int v : group)
+      {
+         if (v != exclude)
+         {
+            result.add(names[v]);
+         }
+      }
+      return result;
+   }
+}
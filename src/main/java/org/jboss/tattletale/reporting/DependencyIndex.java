@@ -0,0 +1,207 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.reporting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveType;
+import org.jboss.tattletale.core.NestableArchive;
+import org.jboss.tattletale.reporting.classloader.ClassLoaderStructure;
+
+/**
+ * An index from class names to the archives that provide them, and the archive
+ * dependency graph derived from it. It is built once after scanning and shared by
+ * the dependency reports, so that resolving a require is a hash lookup instead of
+ * a search through all archives.
+ */
+public class DependencyIndex
+{
+   /** The archives, in iteration order */
+   private final List<Archive> archives;
+
+   /** Class name to providing archives, in iteration order */
+   private final Map<String, List<Archive>> providers;
+
+   /** Dependants graphs by classloader structure */
+   private final Map<String, SortedMap<String, SortedSet<String>>> dependants;
+
+   /** Reachability over the dependants graphs by classloader structure */
+   private final Map<String, DependencyGraph> graphs;
+
+   /**
+    * Constructor
+    * @param archives The archives
+    */
+   public DependencyIndex(Collection<Archive> archives)
+   {
+      this.archives = new ArrayList<Archive>(archives);
+      this.providers = new HashMap<String, List<Archive>>();
+      this.dependants = new HashMap<String, SortedMap<String, SortedSet<String>>>();
+      this.graphs = new HashMap<String, DependencyGraph>();
+
+      for (Archive archive : this.archives)
+      {
+         for (String clz : archive.getProvides().keySet())
+         {
+            List<Archive> l = providers.get(clz);
+            if (null == l)
+            {
+               l = new ArrayList<Archive>(1);
+               providers.put(clz, l);
+            }
+            l.add(archive);
+         }
+      }
+   }
+
+   /**
+    * Get the archives that provide a class
+    * @param clz The class name
+    * @return The archives, in iteration order of the indexed archives
+    */
+   public List<Archive> getProviders(String clz)
+   {
+      final List<Archive> l = providers.get(clz);
+      return (null != l) ? l : Collections.<Archive>emptyList();
+   }
+
+   /**
+    * Get the first archive that provides a class and is visible from an archive
+    * @param clz     The class name
+    * @param from    The archive requiring the class
+    * @param cls     The classloader structure; <code>null</code> if everything is visible
+    * @param jarOnly Only consider JAR archives
+    * @return The archive; <code>null</code> if none
+    */
+   public Archive getProvider(String clz, Archive from, ClassLoaderStructure cls, boolean jarOnly)
+   {
+      final List<Archive> l = providers.get(clz);
+      if (null != l)
+      {
+         for (Archive a : l)
+         {
+            if ((!jarOnly || a.getType() == ArchiveType.JAR) && (null == cls || cls.isVisible(from, a)))
+            {
+               return a;
+            }
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Get the dependants graph: for each archive, the names of the JAR archives that
+    * require a class it provides and can see it. The graph is computed once per
+    * classloader structure.
+    * @param cls The classloader structure; <code>null</code> if everything is visible
+    * @return The archive name to dependant archive names map
+    */
+   public synchronized SortedMap<String, SortedSet<String>> getDependants(ClassLoaderStructure cls)
+   {
+      final String key = (null != cls) ? cls.getClass().getName() : "";
+      SortedMap<String, SortedSet<String>> graph = dependants.get(key);
+
+      if (null == graph)
+      {
+         graph = new TreeMap<String, SortedSet<String>>();
+
+         for (Archive archive : archives)
+         {
+            graph.put(archive.getName(), new TreeSet<String>());
+         }
+
+         for (Archive a : archives)
+         {
+            if (a.getType() == ArchiveType.JAR)
+            {
+               for (String require : getRequires(a))
+               {
+                  for (Archive archive : getProviders(require))
+                  {
+                     if (null == cls || cls.isVisible(a, archive))
+                     {
+                        graph.get(archive.getName()).add(a.getName());
+                     }
+                  }
+               }
+            }
+         }
+
+         dependants.put(key, graph);
+      }
+
+      return graph;
+   }
+
+   /**
+    * Get the reachability over the dependants graph, so that the transitive reports
+    * and custom reports share one computation of the closures. The graph is built
+    * once per classloader structure.
+    * @param cls The classloader structure; <code>null</code> if everything is visible
+    * @return The graph
+    */
+   public synchronized DependencyGraph getDependantsGraph(ClassLoaderStructure cls)
+   {
+      final String key = (null != cls) ? cls.getClass().getName() : "";
+      DependencyGraph graph = graphs.get(key);
+
+      if (null == graph)
+      {
+         graph = new DependencyGraph(getDependants(cls));
+         graphs.put(key, graph);
+      }
+
+      return graph;
+   }
+
+   /**
+    * Get the requires of an archive and its sub-archives
+    * @param archive The archive
+    * @return The requires
+    */
+   private Set<String> getRequires(Archive archive)
+   {
+      final Set<String> requires = new LinkedHashSet<String>();
+      requires.addAll(archive.getRequires());
+
+      if (archive instanceof NestableArchive)
+      {
+         for (Archive sa : ((NestableArchive) archive).getSubArchives())
+         {
+            requires.addAll(getRequires(sa));
+         }
+      }
+      return requires;
+   }
+}
@@ -87,14 +87,11 @@ public class DependsOnReport extends CLSReport
          {
             boolean found = false;
 
-            for (Archive a : archives)
+            final Archive provider = getDependencyIndex().getProvider(require, archive, getCLS(), false);
+            if (null != provider)
             {
-               if (a.doesProvide(require) && (null == getCLS() || getCLS().isVisible(archive, a)))
-               {
-                  result.add(a.getName());
-                  found = true;
-                  break;
-               }
+               result.add(provider.getName());
+               found = true;
             }
 
             if (!found)
@@ -27,12 +27,15 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.ArchiveFacet;
 import org.jboss.tattletale.core.ArchiveType;
 import org.jboss.tattletale.core.NestableArchive;
 
@@ -72,6 +75,16 @@ public class GraphvizReport extends CLSReport
       convertDotToPic = "svg";
    }
 
+   /**
+    * Get the archive facets the report reads
+    * @return The facets
+    */
+   @Override
+   public Set<ArchiveFacet> getFacets()
+   {
+      return EnumSet.of(ArchiveFacet.PACKAGE_DEPENDENCIES);
+   }
+
    /**
     * Set the configuration properties to use in generating the report
     * @param config The configuration properties
@@ -144,13 +157,10 @@ public class GraphvizReport extends CLSReport
 
          for (String require : getRequires(archive))
          {
-            for (Archive a : archives)
+            final Archive provider = getDependencyIndex().getProvider(require, archive, getCLS(), false);
+            if (null != provider)
             {
-               if (a.doesProvide(require) && (null == getCLS() || getCLS().isVisible(archive, a)))
-               {
-                  result.add(a.getName());
-                  break;
-               }
+               result.add(provider.getName());
             }
          }
 
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.reporting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A writer for the HTML of a report. Markup and text are copied straight into the
+ * buffer of the writer, so a report can write a row piece by piece instead of
+ * building it up in temporary strings first.
+ */
+public class HtmlWriter extends BufferedWriter
+{
+   /** The size of the buffer */
+   private static final int BUFFER_SIZE = 8192;
+
+   /**
+    * Constructor
+    * @param out The writer to write to
+    */
+   public HtmlWriter(Writer out)
+   {
+      super(out, BUFFER_SIZE);
+   }
+
+   /**
+    * Get an HTML writer for a writer
+    * @param bw The writer
+    * @return The writer itself if it is an HTML writer; otherwise an HTML writer that
+    *         writes to it, which has to be flushed before the writer is used again
+    */
+   public static HtmlWriter of(BufferedWriter bw)
+   {
+      return (bw instanceof HtmlWriter) ? (HtmlWriter) bw : new HtmlWriter(bw);
+   }
+
+   /**
+    * Write markup followed by a line separator
+    * @param markup The markup
+    * @throws IOException If an error occurs
+    */
+   public void writeLine(String markup) throws IOException
+   {
+      write(markup);
+      newLine();
+   }
+
+   /**
+    * Write a cell holding text
+    * @param indent The markup before the cell
+    * @param text   The text
+    * @throws IOException If an error occurs
+    */
+   public void writeCell(String indent, String text) throws IOException
+   {
+      write(indent);
+      write("<td>");
+      write(text);
+      write("</td>");
+      newLine();
+   }
+}
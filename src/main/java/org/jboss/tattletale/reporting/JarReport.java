@@ -96,146 +96,149 @@ public class JarReport extends ArchiveReport
     */
    public void writeHtmlBodyContent(BufferedWriter bw) throws IOException
    {
-      bw.write("<table>" + Dump.newLine());
+      final HtmlWriter out = HtmlWriter.of(bw);
 
-      bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-      bw.write("    <td>Name</td>" + Dump.newLine());
-      bw.write("    <td>" + archive.getName() + "</td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("<table>");
 
-      bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-      bw.write("    <td>Class Version</td>" + Dump.newLine());
-      bw.write("    <td>");
+      out.writeLine("  <tr class=\"rowodd\">");
+      out.writeLine("    <td>Name</td>");
+      out.writeCell("    ", archive.getName());
+      out.writeLine("  </tr>");
+
+      out.writeLine("  <tr class=\"roweven\">");
+      out.writeLine("    <td>Class Version</td>");
+      out.write("    <td>");
 
       switch (archive.getVersion())
       {
          case ClassFile.JAVA_9:
-            bw.write("Java 9");
+            out.write("Java 9");
             break;
          case ClassFile.JAVA_8:
-            bw.write("Java 8");
+            out.write("Java 8");
             break;
          case ClassFile.JAVA_7:
-            bw.write("Java 7");
+            out.write("Java 7");
             break;
          case ClassFile.JAVA_6:
-            bw.write("Java 6");
+            out.write("Java 6");
             break;
          case ClassFile.JAVA_5:
-            bw.write("Java 5");
+            out.write("Java 5");
             break;
          case ClassFile.JAVA_4:
-            bw.write("J2SE 1.4");
+            out.write("J2SE 1.4");
             break;
          case ClassFile.JAVA_3:
-            bw.write("J2SE 1.3");
+            out.write("J2SE 1.3");
             break;
          case ClassFile.JAVA_2:
-            bw.write("J2SE 1.2");
+            out.write("J2SE 1.2");
             break;
          case ClassFile.JAVA_1:
-            bw.write("JSE 1.0 / JSE 1.1");
+            out.write("JSE 1.0 / JSE 1.1");
             break;
       }
 
-      bw.write("</td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("</td>");
+      out.writeLine("  </tr>");
 
-      bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-      bw.write("    <td>Locations</td>" + Dump.newLine());
-      bw.write("    <td>" + Dump.newLine());
+      out.writeLine("  <tr class=\"rowodd\">");
+      out.writeLine("    <td>Locations</td>");
+      out.writeLine("    <td>");
 
-      bw.write("      <table>" + Dump.newLine());
+      out.writeLine("      <table>");
 
       for (Location location : archive.getLocations())
       {
-         bw.write("      <tr>" + Dump.newLine());
+         out.writeLine("      <tr>");
 
-         bw.write("        <td>" + location.getFilename() + "</td>" + Dump.newLine());
-         bw.write("        <td>");
+         out.writeCell("        ", location.getFilename());
+         out.write("        <td>");
          if (null != location.getVersion())
          {
-            bw.write(location.getVersion());
+            out.write(location.getVersion());
          }
          else
          {
-            bw.write("<i>Not listed</i>");
+            out.write("<i>Not listed</i>");
          }
-         bw.write("</td>" + Dump.newLine());
+         out.writeLine("</td>");
 
-         bw.write("      </tr>" + Dump.newLine());
+         out.writeLine("      </tr>");
       }
 
-      bw.write("      </table>" + Dump.newLine());
+      out.writeLine("      </table>");
 
-      bw.write("    </td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("    </td>");
+      out.writeLine("  </tr>");
 
-      bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-      bw.write("    <td>Profiles</td>" + Dump.newLine());
-      bw.write("    <td>");
+      out.writeLine("  <tr class=\"roweven\">");
+      out.writeLine("    <td>Profiles</td>");
+      out.write("    <td>");
 
-      bw.write(join(archive.getProfiles(), "<br/>"));
+      out.write(join(archive.getProfiles(), "<br/>"));
 
-      bw.write("</td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("</td>");
+      out.writeLine("  </tr>");
 
-      bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-      bw.write("    <td>Manifest</td>" + Dump.newLine());
-      bw.write("    <td>");
+      out.writeLine("  <tr class=\"rowodd\">");
+      out.writeLine("    <td>Manifest</td>");
+      out.write("    <td>");
 
-      bw.write(join(archive.getManifest(), "<br/>"));
+      out.write(join(archive.getManifest(), "<br/>"));
 
-      bw.write("</td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("</td>");
+      out.writeLine("  </tr>");
 
-      bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-      bw.write("    <td>Signing information</td>" + Dump.newLine());
-      bw.write("    <td>");
+      out.writeLine("  <tr class=\"roweven\">");
+      out.writeLine("    <td>Signing information</td>");
+      out.write("    <td>");
 
-      bw.write(join(archive.getSign(), "<br/>"));
+      out.write(join(archive.getSign(), "<br/>"));
 
-      bw.write("</td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("</td>");
+      out.writeLine("  </tr>");
 
-      bw.write("  <tr class=\"rowodd\">" + Dump.newLine());
-      bw.write("    <td>Requires</td>" + Dump.newLine());
-      bw.write("    <td>");
+      out.writeLine("  <tr class=\"rowodd\">");
+      out.writeLine("    <td>Requires</td>");
+      out.write("    <td>");
 
-      bw.write(join(archive.getRequires(), "<br/>"));
+      writeJoined(out, archive.getRequires(), "<br/>");
 
-      bw.write("</td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("</td>");
+      out.writeLine("  </tr>");
 
-      bw.write("  <tr class=\"roweven\">" + Dump.newLine());
-      bw.write("    <td>Provides</td>" + Dump.newLine());
-      bw.write("    <td>" + Dump.newLine());
+      out.writeLine("  <tr class=\"roweven\">");
+      out.writeLine("    <td>Provides</td>");
+      out.writeLine("    <td>");
 
-      bw.write("      <table>" + Dump.newLine());
+      out.writeLine("      <table>");
 
       for (Map.Entry<String, Long> entry : archive.getProvides().entrySet())
       {
          Long serialVersionUID = entry.getValue();
 
-         bw.write("        <tr>" + Dump.newLine());
-         bw.write("          <td>" + entry.getKey() + "</td>" + Dump.newLine());
+         out.writeLine("        <tr>");
+         out.writeCell("          ", entry.getKey());
 
          if (null != serialVersionUID)
          {
-            bw.write("          <td>" + serialVersionUID + "</td>" + Dump.newLine());
+            out.writeCell("          ", serialVersionUID.toString());
          }
          else
          {
-            bw.write("          <td>&nbsp;</td>" + Dump.newLine());
+            out.writeLine("          <td>&nbsp;</td>");
          }
-         bw.write("        </tr>" + Dump.newLine());
+         out.writeLine("        </tr>");
       }
-      bw.write("      </table>" + Dump.newLine());
+      out.writeLine("      </table>");
 
-      bw.write("    </td>" + Dump.newLine());
-      bw.write("  </tr>" + Dump.newLine());
+      out.writeLine("    </td>");
+      out.writeLine("  </tr>");
 
-      bw.write("</table>" + Dump.newLine());
+      out.writeLine("</table>");
+      out.flush();
    }
 
    /**
@@ -24,8 +24,11 @@ package org.jboss.tattletale.reporting;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import org.jboss.tattletale.core.PrefixTrie;
+
 /**
- * Represents a key filter
+ * Represents a key filter. The filters are compiled into a {@link PrefixTrie},
+ * so a key is matched without being copied and whatever the number of filters.
  *
  * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
  */
@@ -34,10 +37,14 @@ public class KeyFilter implements Filter
    /** Key Filters */
    private final SortedSet<String> keyFilters;
 
+   /** The compiled key filters */
+   private PrefixTrie trie;
+
    /** Constructor */
    public KeyFilter()
    {
-      keyFilters = new TreeSet<String>(new SizeComparator());
+      keyFilters = new TreeSet<String>();
+      trie = PrefixTrie.EMPTY;
    }
 
    /**
@@ -58,32 +65,7 @@ public class KeyFilter implements Filter
     */
    public boolean isFiltered(String archive)
    {
-      if (archive.endsWith(".class"))
-      {
-         archive = archive.substring(0, archive.indexOf(".class"));
-      }
-
-      if (archive.endsWith(".jar"))
-      {
-         archive = archive.substring(0, archive.indexOf(".jar"));
-      }
-
-      if (archive.endsWith(".*"))
-      {
-         archive = archive.substring(0, archive.indexOf(".*"));
-      }
-
-      archive = archive.replace('.', '/');
-
-      for (String v : keyFilters)
-      {
-         if (archive.startsWith(v))
-         {
-            return true;
-         }
-      }
-
-      return false;
+      return trie.hasPrefixOf(archive, getKeyLength(archive), '.', '/');
    }
 
    /**
@@ -136,6 +118,39 @@ public class KeyFilter implements Filter
 
             keyFilters.add(value);
          }
+
+         trie = new PrefixTrie(keyFilters);
+      }
+   }
+
+   /**
+    * Get the length of a key without its .class, .jar and .* suffixes. Like the
+    * filter values, a key is cut at the first occurrence of a suffix it ends with.
+    * @param key The key
+    * @return The length of the part of the key to match
+    */
+   static int getKeyLength(String key)
+   {
+      int end = key.length();
+      end = cut(key, end, ".class");
+      end = cut(key, end, ".jar");
+      end = cut(key, end, ".*");
+      return end;
+   }
+
+   /**
+    * Cut a suffix from the beginning of a key
+    * @param key    The key
+    * @param end    The end of the beginning of the key
+    * @param suffix The suffix
+    * @return The first occurrence of the suffix if the beginning of the key ends with it; otherwise end
+    */
+   private static int cut(String key, int end, String suffix)
+   {
+      if (end >= suffix.length() && key.startsWith(suffix, end - suffix.length()))
+      {
+         return key.indexOf(suffix);
       }
+      return end;
    }
 }
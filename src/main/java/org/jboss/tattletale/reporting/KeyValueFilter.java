@@ -26,20 +26,23 @@ import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import org.jboss.tattletale.core.PrefixTrie;
+
 /**
- * Represents a key/value filter
+ * Represents a key/value filter. The values of each key are compiled into a
+ * {@link PrefixTrie}.
  *
  * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
  */
 public class KeyValueFilter implements Filter
 {
    /** KeyValue Filters */
-   private final Map<String, SortedSet<String>> keyValueFilters;
+   private final Map<String, PrefixTrie> keyValueFilters;
 
    /** Constructor */
    public KeyValueFilter()
    {
-      keyValueFilters = new HashMap<String, SortedSet<String>>();
+      keyValueFilters = new HashMap<String, PrefixTrie>();
    }
 
    /**
@@ -72,37 +75,9 @@ public class KeyValueFilter implements Filter
     */
    public boolean isFiltered(String archive, String query)
    {
-      final SortedSet<String> ss = keyValueFilters.get(archive);
-
-      if (null != ss)
-      {
-         if (query.endsWith(".class"))
-         {
-            query = query.substring(0, query.indexOf(".class"));
-         }
-
-         if (query.endsWith(".jar"))
-         {
-            query = query.substring(0, query.indexOf(".jar"));
-         }
-
-         if (query.endsWith(".*"))
-         {
-            query = query.substring(0, query.indexOf(".*"));
-         }
-
-         query = query.replace('.', '/');
-
-         for (String v : ss)
-         {
-            if (query.startsWith(v))
-            {
-               return true;
-            }
-         }
-      }
+      final PrefixTrie trie = keyValueFilters.get(archive);
 
-      return false;
+      return null != trie && trie.hasPrefixOf(query, KeyFilter.getKeyLength(query), '.', '/');
    }
 
    /**
@@ -121,7 +96,7 @@ public class KeyValueFilter implements Filter
             String key = token.substring(0, equal);
             String values = token.substring(equal + 1);
 
-            SortedSet<String> vs = new TreeSet<String>(new SizeComparator());
+            SortedSet<String> vs = new TreeSet<String>();
 
             for (String value : values.split(","))
             {
@@ -153,7 +128,7 @@ public class KeyValueFilter implements Filter
                vs.add(value);
             }
 
-            keyValueFilters.put(key, vs);
+            keyValueFilters.put(key, new PrefixTrie(vs));
          }
       }
    }
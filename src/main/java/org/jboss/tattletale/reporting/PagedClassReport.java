@@ -0,0 +1,453 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2009, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.tattletale.reporting;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Base class for the reports with a row per class of the globally provides map.
+ * By default all rows go into one page. With <code>classReportPageSize</code> set the
+ * rows are written in pages of at most that many rows, cut between packages where
+ * possible, and the report index lists the pages. With <code>classReportSearchIndex</code>
+ * a <code>search.json</code> holding the first and last class of each page is written
+ * as well, so the page of a class can be found with a binary search.
+ */
+public abstract class PagedClassReport extends AbstractReport
+{
+   /** The name of the search index */
+   private static final String SEARCH_INDEX = "search.json";
+
+   /** Globally provides */
+   private SortedMap<String, SortedSet<String>> gProvides;
+
+   /** The maximum number of rows on a page; 0 writes all rows into the index */
+   private int pageSize = 0;
+
+   /** Write a search index */
+   private boolean searchIndex = false;
+
+   /** The pages written */
+   private final List<Page> pages = new ArrayList<Page>();
+
+   /**
+    * Constructor
+    * @param id        The report id
+    * @param severity  The severity
+    * @param name      The name of the report
+    * @param directory The name of the output directory
+    */
+   protected PagedClassReport(String id, ReportSeverity severity, String name, String directory)
+   {
+      super(id, severity, name, directory);
+   }
+
+   /**
+    * Set the globally provides map to be used in generating this report
+    * @param gProvides the map of global provides
+    */
+   public void setGlobalProvides(SortedMap<String, SortedSet<String>> gProvides)
+   {
+      this.gProvides = gProvides;
+   }
+
+   /**
+    * Set the configuration properties to use in generating the report
+    * @param config The configuration properties
+    */
+   public void setConfig(Properties config)
+   {
+      final String value = config.getProperty("classReportPageSize");
+      if (null != value && !value.trim().equals(""))
+      {
+         try
+         {
+            pageSize = Math.max(0, Integer.parseInt(value.trim()));
+         }
+         catch (NumberFormatException nfe)
+         {
+            System.err.println("Invalid classReportPageSize: " + value);
+         }
+      }
+      searchIndex = Boolean.valueOf(config.getProperty("classReportSearchIndex", "false"));
+   }
+
+   /**
+    * Generate the report(s)
+    * @param outputDirectory The top-level output directory
+    */
+   @Override
+   public void generate(String outputDirectory)
+   {
+      if (pageSize <= 0)
+      {
+         super.generate(outputDirectory);
+         return;
+      }
+
+      try
+      {
+         createOutputDir(outputDirectory);
+         writePages();
+
+         final BufferedWriter bw = getBufferedWriter();
+         writeHtmlHead(bw);
+         writeHtmlBodyHeader(bw);
+         writePageIndex(HtmlWriter.of(bw));
+         writeHtmlBodyFooter(bw);
+         writeHtmlFooter(bw);
+         bw.flush();
+         bw.close();
+
+         if (searchIndex)
+         {
+            writeSearchIndex();
+         }
+      }
+      catch (IOException ioe)
+      {
+         System.err.println(getName() + " Report: " + ioe.getMessage());
+         ioe.printStackTrace(System.err);
+      }
+   }
+
+   /**
+    * write out the report's content
+    * @param bw the writer to use
+    * @throws IOException if an error occurs
+    */
+   public void writeHtmlBodyContent(BufferedWriter bw) throws IOException
+   {
+      final HtmlWriter out = HtmlWriter.of(bw);
+
+      writeTableHeader(out);
+
+      boolean odd = true;
+
+      for (Map.Entry<String, SortedSet<String>> entry : gProvides.entrySet())
+      {
+         if (include(entry.getKey(), entry.getValue()))
+         {
+            writeRow(out, entry.getKey(), entry.getValue(), odd);
+            odd = !odd;
+         }
+      }
+
+      out.writeLine("</table>");
+      out.flush();
+   }
+
+   /**
+    * Is there a row for a class
+    * @param clz      The class name
+    * @param archives The archives providing the class
+    * @return True if the class has a row; otherwise false
+    */
+   protected abstract boolean include(String clz, SortedSet<String> archives);
+
+   /**
+    * Write the row of a class
+    * @param out      The writer
+    * @param clz      The class name
+    * @param archives The archives providing the class
+    * @param odd      Is this an odd row
+    * @throws IOException if an error occurs
+    */
+   protected abstract void writeRow(HtmlWriter out, String clz, SortedSet<String> archives, boolean odd)
+      throws IOException;
+
+   /**
+    * Write the start of the table of classes
+    * @param out The writer
+    * @throws IOException if an error occurs
+    */
+   private void writeTableHeader(HtmlWriter out) throws IOException
+   {
+      out.writeLine("<table>");
+
+      out.writeLine("  <tr>");
+      out.writeLine("    <th>Class</th>");
+      out.writeLine("    <th>Archives</th>");
+      out.writeLine("  </tr>");
+   }
+
+   /**
+    * Write the rows into pages. The rows of a package are kept together unless they
+    * don't fit on an empty page.
+    * @throws IOException if an error occurs
+    */
+   private void writePages() throws IOException
+   {
+      final List<Map.Entry<String, SortedSet<String>>> pkg = new ArrayList<Map.Entry<String, SortedSet<String>>>();
+      String current = null;
+
+      for (Map.Entry<String, SortedSet<String>> entry : gProvides.entrySet())
+      {
+         if (include(entry.getKey(), entry.getValue()))
+         {
+            final String name = getPackage(entry.getKey());
+            if (!name.equals(current))
+            {
+               addRows(pkg);
+               pkg.clear();
+               current = name;
+            }
+            pkg.add(entry);
+         }
+      }
+
+      addRows(pkg);
+      closePage();
+   }
+
+   /**
+    * Add the rows of a package to the pages
+    * @param rows The rows
+    * @throws IOException if an error occurs
+    */
+   private void addRows(List<Map.Entry<String, SortedSet<String>>> rows) throws IOException
+   {
+      Page page = getOpenPage();
+      if (null != page && page.rows > 0 && page.rows + rows.size() > pageSize)
+      {
+         closePage();
+      }
+
+      for (Map.Entry<String, SortedSet<String>> entry : rows)
+      {
+         page = getOpenPage();
+         if (null == page)
+         {
+            page = openPage(entry.getKey());
+         }
+         else if (page.rows == pageSize)
+         {
+            closePage();
+            page = openPage(entry.getKey());
+         }
+
+         writeRow(page.out, entry.getKey(), entry.getValue(), 0 == page.rows % 2);
+         page.last = entry.getKey();
+         page.rows++;
+      }
+   }
+
+   /**
+    * Get the page being written
+    * @return The page; <code>null</code> if none
+    */
+   private Page getOpenPage()
+   {
+      if (pages.isEmpty())
+      {
+         return null;
+      }
+      final Page page = pages.get(pages.size() - 1);
+      return (null != page.out) ? page : null;
+   }
+
+   /**
+    * Start a page
+    * @param first The first class on the page
+    * @return The page
+    * @throws IOException if an error occurs
+    */
+   private Page openPage(String first) throws IOException
+   {
+      final Page page = new Page("page-" + (pages.size() + 1) + ".html", first);
+      page.out = HtmlWriter.of(getBufferedWriter(page.file));
+      pages.add(page);
+
+      writeHtmlHead(page.out);
+      writeHtmlBodyHeader(page.out);
+      page.out.writeLine("<a href=\"" + INDEX_HTML + "\">Pages</a>");
+      page.out.writeLine("<br style=\"clear:both;\"/>");
+      writeTableHeader(page.out);
+      return page;
+   }
+
+   /**
+    * Finish the page being written
+    * @throws IOException if an error occurs
+    */
+   private void closePage() throws IOException
+   {
+      final Page page = getOpenPage();
+      if (null != page)
+      {
+         page.out.writeLine("</table>");
+         writeHtmlBodyFooter(page.out);
+         writeHtmlFooter(page.out);
+         page.out.flush();
+         page.out.close();
+         page.out = null;
+      }
+   }
+
+   /**
+    * Write the list of pages
+    * @param out The writer
+    * @throws IOException if an error occurs
+    */
+   private void writePageIndex(HtmlWriter out) throws IOException
+   {
+      out.writeLine("<table>");
+
+      out.writeLine("  <tr>");
+      out.writeLine("    <th>Page</th>");
+      out.writeLine("    <th>Classes</th>");
+      out.writeLine("    <th>Rows</th>");
+      out.writeLine("  </tr>");
+
+      boolean odd = true;
+      for (Page page : pages)
+      {
+         out.writeLine(odd ? "  <tr class=\"rowodd\">" : "  <tr class=\"roweven\">");
+         out.write("    <td><a href=\"");
+         out.write(page.file);
+         out.write("\">");
+         out.write(page.file.substring(0, page.file.length() - ".html".length()));
+         out.writeLine("</a></td>");
+         out.write("    <td>");
+         out.write(page.first);
+         out.write(" - ");
+         out.write(page.last);
+         out.writeLine("</td>");
+         out.writeLine("    <td>" + page.rows + "</td>");
+         out.writeLine("  </tr>");
+         odd = !odd;
+      }
+
+      out.writeLine("</table>");
+      out.flush();
+   }
+
+   /**
+    * Write the search index: the file, first class, last class and number of rows
+    * of each page, in class order
+    * @throws IOException if an error occurs
+    */
+   private void writeSearchIndex() throws IOException
+   {
+      final BufferedWriter bw = getBufferedWriter(SEARCH_INDEX);
+      bw.write("{\"pages\":[");
+      for (int i = 0; i < pages.size(); i++)
+      {
+         final Page page = pages.get(i);
+         if (i > 0)
+         {
+            bw.write(",");
+         }
+         bw.newLine();
+         bw.write("{\"file\":");
+         writeJsonString(bw, page.file);
+         bw.write(",\"first\":");
+         writeJsonString(bw, page.first);
+         bw.write(",\"last\":");
+         writeJsonString(bw, page.last);
+         bw.write(",\"rows\":" + page.rows + "}");
+      }
+      bw.newLine();
+      bw.write("]}");
+      bw.newLine();
+      bw.flush();
+      bw.close();
+   }
+
+   /**
+    * Write a JSON string
+    * @param bw The writer
+    * @param s  The string
+    * @throws IOException if an error occurs
+    */
+   private static void writeJsonString(BufferedWriter bw, String s) throws IOException
+   {
+      bw.write('"');
+      for (int i = 0; i < s.length(); i++)
+      {
+         final char c = s.charAt(i);
+         if (c == '"' || c == '\\')
+         {
+            bw.write('\\');
+            bw.write(c);
+         }
+         else if (c < 0x20)
+         {
+            bw.write(String.format("\\u%04x", (int) c));
+         }
+         else
+         {
+            bw.write(c);
+         }
+      }
+      bw.write('"');
+   }
+
+   /**
+    * Get the package of a class
+    * @param clz The class name
+    * @return The package; empty for the default package
+    */
+   private static String getPackage(String clz)
+   {
+      final int idx = clz.lastIndexOf('.');
+      return (idx > 0) ? clz.substring(0, idx) : "";
+   }
+
+   /**
+    * A page of rows
+    */
+   private static final class Page
+   {
+      /** The file name */
+      private final String file;
+
+      /** The first class */
+      private final String first;
+
+      /** The last class */
+      private String last;
+
+      /** The number of rows */
+      private int rows;
+
+      /** The writer; <code>null</code> once the page is complete */
+      private HtmlWriter out;
+
+      /**
+       * Constructor
+       * @param file  The file name
+       * @param first The first class
+       */
+      Page(String file, String first)
+      {
+         this.file = file;
+         this.first = first;
+      }
+   }
+}
@@ -24,18 +24,9 @@ package org.jboss.tattletale.reporting;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
-import java.util.TreeMap;
-import java.util.TreeSet;
-
-import org.jboss.tattletale.core.Archive;
-import org.jboss.tattletale.core.ArchiveType;
-import org.jboss.tattletale.core.NestableArchive;
 
 /**
  * Transitive Depends On report
@@ -71,50 +62,14 @@ public class TransitiveDependsOnReport extends CLSReport
       bw.write("    <th>Depends On</th>" + Dump.newLine());
       bw.write("  </tr>" + Dump.newLine());
 
-      final SortedMap<String, SortedSet<String>> dependsOnMap = new TreeMap<String, SortedSet<String>>();
-
-      for (Archive archive : archives)
-      {
-         SortedSet<String> result = new TreeSet<String>();
-
-         for (Archive a : archives)
-         {
-            if (a.getType() == ArchiveType.JAR)
-            {
-               for (String require : getRequires(a))
-               {
-                  if (archive.doesProvide(require) && (null == getCLS() || getCLS().isVisible(a, archive)))
-                  {
-                     result.add(a.getName());
-                  }
-               }
-            }
-         }
-
-         dependsOnMap.put(archive.getName(), result);
-      }
-
-      final SortedMap<String, SortedSet<String>> transitiveDependsOnMap = new TreeMap<String, SortedSet<String>>();
-
-      for (Map.Entry<String, SortedSet<String>> entry : dependsOnMap.entrySet())
-      {
-         String archive = entry.getKey();
-         SortedSet<String> result = new TreeSet<String>();
-
-         for (String aValue : entry.getValue())
-         {
-            resolveDependsOn(aValue, archive, dependsOnMap, result);
-         }
-
-         transitiveDependsOnMap.put(archive, result);
-      }
+      final SortedMap<String, SortedSet<String>> dependsOnMap = getDependencyIndex().getDependants(getCLS());
+      final DependencyGraph graph = getDependencyIndex().getDependantsGraph(getCLS());
 
       boolean odd = true;
 
-      for (Map.Entry<String, SortedSet<String>> entry : transitiveDependsOnMap.entrySet())
+      for (String archive : dependsOnMap.keySet())
       {
-         String archive = entry.getKey();
-         SortedSet<String> value = entry.getValue();
+         final SortedSet<String> value = graph.getReachable(archive);
 
          if (odd)
          {
@@ -165,50 +120,4 @@ public class TransitiveDependsOnReport extends CLSReport
 
       bw.write("</table>" + Dump.newLine());
    }
-
-   /**
-    * Method getRequires.
-    * @param a Archive
-    * @return Set<String>
-    */
-   private Set<String> getRequires(Archive a)
-   {
-      final Set<String> requires = new HashSet<String>();
-      if (a instanceof NestableArchive)
-      {
-         final NestableArchive na = (NestableArchive) a;
-         requires.addAll(na.getRequires());
-
-         for (Archive sa : na.getSubArchives())
-         {
-            requires.addAll(getRequires(sa));
-         }
-      }
-      else
-      {
-         requires.addAll(a.getRequires());
-      }
-      return requires;
-   }
-
-   /**
-    * Get depends on
-    * @param scanArchive The scan archive
-    * @param archive     The archive
-    * @param map         The depends on map
-    * @param result      The result
-    */
-   private void resolveDependsOn(String scanArchive, String archive,
-                                 SortedMap<String, SortedSet<String>> map, SortedSet<String> result)
-   {
-      if (!archive.equals(scanArchive) && !result.contains(scanArchive))
-      {
-         result.add(scanArchive);
-
-         for (String aValue : map.get(scanArchive))
-         {
-            resolveDependsOn(aValue, archive, map, result);
-         }
-      }
-   }
 }
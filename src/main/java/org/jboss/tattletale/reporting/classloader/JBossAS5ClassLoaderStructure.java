@@ -22,10 +22,6 @@
 package org.jboss.tattletale.reporting.classloader;
 
 import java.io.File;
-import java.util.SortedSet;
-
-import org.jboss.tattletale.core.Archive;
-import org.jboss.tattletale.core.Location;
 
 /**
  * A classloader structure class that represents the JBoss Application Server 5.x
@@ -40,103 +36,83 @@ public class JBossAS5ClassLoaderStructure extends JBossASClassLoaderStructure
    }
 
    /**
-    * Can one archive see the other
-    * @param from The from archive
-    * @param to   The to archive
-    * @return True if from can see to; otherwise false
-    * @see org.jboss.tattletale.reporting.classloader.ClassLoaderStructure#isVisible(Archive, Archive)
+    * Can one directory see the other
+    * @param fp The directory of the from archive, relative to the server root
+    * @param tp The directory of the to archive, relative to the server root
+    * @return True if fp can see tp; otherwise false
     */
-   public boolean isVisible(Archive from, Archive to)
+   protected boolean isVisible(String fp, String tp)
    {
-      final SortedSet<Location> fromLocations = from.getLocations();
-      final SortedSet<Location> toLocations = to.getLocations();
+      if (fp.startsWith("docs"))
+      {
+         return false;
+      }
 
-      for (Location fromLocation : fromLocations)
+      // Same directory
+      if (fp.equals(tp))
       {
-         String fromPath = fromLocation.getFilename();
+         return true;
+      }
 
-         int fIdx = fromPath.indexOf(from.getName());
-         String fp = fromPath.substring(0, fIdx);
-         fp = stripPrefix(fp);
+      // bin and client can only see same directory
+      if (!fp.startsWith("bin") && !fp.startsWith("client"))
+      {
+         // Top-level bin, lib and common is always visible
+         if (tp.startsWith("bin") || tp.startsWith("lib") || tp.startsWith("common"))
+         {
+            return true;
+         }
 
-         if (!fp.startsWith("docs"))
+         if (fp.startsWith("lib") || fp.startsWith("common"))
          {
-            for (Location toLocation : toLocations)
+            // A sub-directory can see higher level or bin
+            if (fp.startsWith(tp) || tp.startsWith("bin"))
             {
-               String toPath = toLocation.getFilename();
-
-               int tIdx = toPath.indexOf(to.getName());
-               String tp = toPath.substring(0, tIdx);
-               tp = stripPrefix(tp);
-
-               // Same directory
-               if (fp.equals(tp))
+               return true;
+            }
+         }
+         else
+         {
+            // Exclude client from target
+            if (!tp.startsWith("client"))
+            {
+               // A sub-directory can see higher level
+               if (fp.startsWith(tp))
                {
                   return true;
                }
 
-               // bin and client can only see same directory
-               if (!fp.startsWith("bin") && !fp.startsWith("client"))
+               // server/xxx/lib directories can only see same directory at this point
+               if (!fp.endsWith("lib" + File.separator))
                {
-                  // Top-level bin, lib and common is always visible
-                  if (tp.startsWith("bin") || tp.startsWith("lib") || tp.startsWith("common"))
-                  {
-                     return true;
-                  }
+                  int deploy = fp.indexOf("deploy");
+                  int deployers = fp.indexOf("deployers");
 
-                  if (fp.startsWith("lib") || fp.startsWith("common"))
+                  // server/xxx/deploy
+                  if (deploy != -1 && deployers == -1)
                   {
-                     // A sub-directory can see higher level or bin
-                     if (fp.startsWith(tp) || tp.startsWith("bin"))
+                     String config = fp.substring(0, deploy);
+
+                     // server/xxx/lib
+                     if (tp.equals(config + "lib" + File.separator))
+                     {
+                        return true;
+                     }
+
+                     // server/xxx/deployers
+                     if (tp.startsWith(config + "deployers" + File.separator))
                      {
                         return true;
                      }
                   }
-                  else
+                  else if (deployers != -1)
                   {
-                     // Exclude client from target
-                     if (!tp.startsWith("client"))
+                     String config = fp.substring(0, deployers);
+
+                     // server/xxx/lib
+                     if (tp.equals(config + "lib" + File.separator))
                      {
-                        // A sub-directory can see higher level
-                        if (fp.startsWith(tp))
-                        {
-                           return true;
-                        }
-
-                        // server/xxx/lib directories can only see same directory at this point
-                        if (!fp.endsWith("lib" + File.separator))
-                        {
-                           int deploy = fp.indexOf("deploy");
-                           int deployers = fp.indexOf("deployers");
-
-                           // server/xxx/deploy
-                           if (deploy != -1 && deployers == -1)
-                           {
-                              String config = fp.substring(0, deploy);
-
-                              // server/xxx/lib
-                              if (tp.equals(config + "lib" + File.separator))
-                              {
-                                 return true;
-                              }
-
-                              // server/xxx/deployers
-                              if (tp.startsWith(config + "deployers" + File.separator))
-                              {
-                                 return true;
-                              }
-                           }
-                           else if (deployers != -1)
-                           {
-                              String config = fp.substring(0, deployers);
-
-                              // server/xxx/lib
-                              if (tp.equals(config + "lib" + File.separator))
-                              {
-                                 return true;
-                              }
-                           }
-                        }
+                        return true;
                      }
                   }
                }
@@ -153,7 +129,7 @@ public class JBossAS5ClassLoaderStructure extends JBossASClassLoaderStructure
     * @param input The input string
     * @return The result
     */
-   private String stripPrefix(String input)
+   protected String stripPrefix(String input)
    {
       int idx = input.indexOf("bin");
       if (idx != -1)
@@ -21,15 +21,149 @@
  */
 package org.jboss.tattletale.reporting.classloader;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.tattletale.core.Archive;
+import org.jboss.tattletale.core.Location;
+
 /**
- * A classloader structure class that represents the JBoss Application Server
+ * A classloader structure class that represents the JBoss Application Server.
+ * Each location of an archive is assigned to a domain, the directory of the location
+ * relative to the server root, such as <code>server/default/deploy/</code> or
+ * <code>lib/</code>. Whether one domain can see another only depends on the two
+ * directories, so it is decided once per pair of domains and kept in a bitset.
  *
  * @author <a href="mailto:jesper.pedersen@jboss.org">Jesper Pedersen</a>
  */
 public abstract class JBossASClassLoaderStructure implements ClassLoaderStructure
 {
+   /** The domains of the archives */
+   private final Map<Archive, int[]> archiveDomains = new IdentityHashMap<Archive, int[]>();
+
+   /** The domain ids by directory */
+   private final Map<String, Integer> domainIds = new HashMap<String, Integer>();
+
+   /** The directories by domain id */
+   private final List<String> domains = new ArrayList<String>();
+
+   /** For each domain, the domains whose visibility is decided */
+   private final List<BitSet> decided = new ArrayList<BitSet>();
+
+   /** For each domain, the domains it can see */
+   private final List<BitSet> visible = new ArrayList<BitSet>();
+
    /** Constructor */
    protected JBossASClassLoaderStructure()
    {
    }
+
+   /**
+    * Can one archive see the other
+    * @param from The from archive
+    * @param to   The to archive
+    * @return True if from can see to; otherwise false
+    * @see org.jboss.tattletale.reporting.classloader.ClassLoaderStructure#isVisible(Archive, Archive)
+    */
+   public synchronized boolean isVisible(Archive from, Archive to)
+   {
+      final int[] fromDomains = getDomains(from);
+      final int[] toDomains = getDomains(to);
+
+      for (int f : fromDomains)
+      {
+         final BitSet d = decided.get(f);
+         final BitSet v = visible.get(f);
+
+         for (int t : toDomains)
+         {
+            if (!d.get(t))
+            {
+               d.set(t);
+               if (isVisible(domains.get(f), domains.get(t)))
+               {
+                  v.set(t);
+               }
+            }
+
+            if (v.get(t))
+            {
+               return true;
+            }
+         }
+      }
+
+      return false;
+   }
+
+   /**
+    * Can one directory see the other
+    * @param fp The directory of the from archive, relative to the server root
+    * @param tp The directory of the to archive, relative to the server root
+    * @return True if fp can see tp; otherwise false
+    */
+   protected abstract boolean isVisible(String fp, String tp);
+
+   /**
+    * Strip the part of a directory in front of the server root
+    * @param input The directory
+    * @return The directory relative to the server root
+    */
+   protected abstract String stripPrefix(String input);
+
+   /**
+    * Get the domains of an archive, one for each distinct directory it is located in
+    * @param archive The archive
+    * @return The domain ids
+    */
+   private int[] getDomains(Archive archive)
+   {
+      int[] ids = archiveDomains.get(archive);
+
+      if (null == ids)
+      {
+         final BitSet set = new BitSet();
+         for (Location location : archive.getLocations())
+         {
+            final String path = location.getFilename();
+            final int idx = path.indexOf(archive.getName());
+            set.set(getDomain(stripPrefix(path.substring(0, idx))));
+         }
+
+         ids = new int[set.cardinality()];
+         int i = 0;
+         for (int id = set.nextSetBit(0); id >= 0; id = set.nextSetBit(id + 1))
+         {
+            ids[i++] = id;
+         }
+         archiveDomains.put(archive, ids);
+      }
+
+      return ids;
+   }
+
+   /**
+    * Get the id of the domain of a directory
+    * @param directory The directory, relative to the server root
+    * @return The domain id
+    */
+   private int getDomain(String directory)
+   {
+      Integer id = domainIds.get(directory);
+
+      if (null == id)
+      {
+         id = domains.size();
+         domainIds.put(directory, id);
+         domains.add(directory);
+         decided.add(new BitSet());
+         visible.add(new BitSet());
+      }
+
+      return id;
+   }
 }